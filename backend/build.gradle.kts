@@ -33,12 +33,16 @@ dependencies {
 
     // Redis
     implementation("org.springframework.boot:spring-boot-starter-data-redis")
+    implementation("com.github.ben-manes.caffeine:caffeine")
 
     // PostgreSQL & JPA
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
-    runtimeOnly("org.postgresql:postgresql")
+    implementation("org.postgresql:postgresql")
     implementation("org.flywaydb:flyway-core")
 
+    // Cold-history archive compression
+    implementation("com.github.luben:zstd-jni:1.5.5-11")
+
     // Security (for future JWT implementation)
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("io.jsonwebtoken:jjwt-api:0.12.3")
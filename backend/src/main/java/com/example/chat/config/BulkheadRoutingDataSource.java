@@ -0,0 +1,85 @@
+package com.example.chat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Routes each connection request to a bulkhead pool
+ *
+ * - Read-only transactions go to the replica pool; when the replica is unhealthy or
+ *   refuses a connection they fall back to the read-fallback pool on the primary,
+ *   never to a write pool
+ * - Everything else goes to the pool of {@link DataSourceBulkhead#current()}
+ * - Must be wrapped in a LazyConnectionDataSourceProxy so the lookup happens at the
+ *   first statement, after the transaction's read-only flag has been bound
+ *
+ * Metrics: chat.datasource.route{target=consumer-writes|interactive-writes|reads|fallback}
+ */
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String READ_FALLBACK = "read-fallback";
+
+    private final DataSource readFallback;
+    private final ReplicaHealthMonitor replicaHealthMonitor;
+    private final Map<DataSourceBulkhead, Counter> routes;
+    private final Counter fallbackRoutes;
+
+    public BulkheadRoutingDataSource(
+        Map<DataSourceBulkhead, DataSource> bulkheads,
+        DataSource readFallback,
+        ReplicaHealthMonitor replicaHealthMonitor,
+        MeterRegistry meterRegistry
+    ) {
+        this.readFallback = readFallback;
+        this.replicaHealthMonitor = replicaHealthMonitor;
+        this.fallbackRoutes = meterRegistry.counter("chat.datasource.route", "target", "fallback");
+
+        Map<DataSourceBulkhead, Counter> counters = new EnumMap<>(DataSourceBulkhead.class);
+        for (DataSourceBulkhead bulkhead : DataSourceBulkhead.values()) {
+            counters.put(bulkhead, meterRegistry.counter("chat.datasource.route", "target", bulkhead.getPoolName()));
+        }
+        this.routes = counters;
+
+        setTargetDataSources(Map.copyOf(bulkheads));
+        setDefaultTargetDataSource(bulkheads.get(DataSourceBulkhead.INTERACTIVE_WRITES));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return DataSourceBulkhead.READS;
+        }
+        return DataSourceBulkhead.current();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSourceBulkhead bulkhead = (DataSourceBulkhead) determineCurrentLookupKey();
+        if (bulkhead != DataSourceBulkhead.READS) {
+            Connection connection = determineTargetDataSource().getConnection();
+            routes.get(bulkhead).increment();
+            return connection;
+        }
+
+        if (replicaHealthMonitor.isHealthy()) {
+            try {
+                Connection connection = determineTargetDataSource().getConnection();
+                routes.get(bulkhead).increment();
+                return connection;
+            } catch (SQLException e) {
+                replicaHealthMonitor.markUnhealthy(e);
+            }
+        }
+
+        fallbackRoutes.increment();
+        return readFallback.getConnection();
+    }
+}
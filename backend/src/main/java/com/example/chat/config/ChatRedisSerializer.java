@@ -0,0 +1,246 @@
+package com.example.chat.config;
+
+import com.example.chat.dto.ChatMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Compact value serializer for the chat RedisTemplate
+ *
+ * Values:
+ * - String, Number: plain UTF-8 (user IDs, counters), readable by Lua and redis-cli.
+ *   Both read back as String, whatever their first character; callers parse numbers
+ * - ChatMessage: tagged binary record
+ *
+ * Tagged format (all integers big-endian):
+ * - Byte 0: TAG (0xC1, never the first byte of valid UTF-8, so it cannot collide with a plain string)
+ * - Byte 1: type/version (low 7 bits) | FLAG_ZSTD
+ * - Uncompressed: record bytes; compressed: raw length (int) + zstd frame.
+ *   Records of at least COMPRESSION_THRESHOLD bytes are compressed when that saves space.
+ *
+ * ChatMessage v1 record: messageId (2 longs), roomId, userId, username, content, type
+ * (each string as int length + UTF-8, -1 = null), timestamp (epoch micros, Long.MIN_VALUE = null),
+ * seq (long, -1 = none), reactions (int count, then emoji + int count + userIds).
+ *
+ * Migration:
+ * - Values written by the previous Jackson default-typing serializer are still decoded
+ *   when they carry its type marker (["fully.qualified.ClassName", ...]), i.e. ChatMessage
+ *   and collections. Its bare JSON strings and numbers are indistinguishable from plain
+ *   values and are read as plain strings; they only live in short-TTL keys and expire
+ * - Rolling deploys: nodes still on the previous serializer cannot read tagged (0xC1)
+ *   values and fail on them, so a mixed fleet breaks recent-message reads on old nodes.
+ *   Replace all nodes before serving traffic from both versions, or accept cache misses
+ *   on old nodes until they are gone
+ */
+@Slf4j
+public class ChatRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte TAG = (byte) 0xC1;
+    private static final byte FLAG_ZSTD = (byte) 0x80;
+    private static final byte CHAT_MESSAGE_V1 = 1;
+
+    private static final int COMPRESSION_THRESHOLD = 512;
+    private static final int COMPRESSION_LEVEL = 3;
+    private static final long NO_SEQ = -1L;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final byte[] EMPTY = new byte[0];
+
+    // Default-typing wrapper of the previous serializer: ["fully.qualified.ClassName",
+    private static final Pattern LEGACY_TYPE_MARKER =
+        Pattern.compile("\\[\"[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)+\",");
+
+    private final ObjectMapper legacyMapper;
+
+    /**
+     * @param legacyMapper ObjectMapper of the previous JSON serializer (default typing enabled),
+     *                     used only to read values written before this format
+     */
+    public ChatRedisSerializer(ObjectMapper legacyMapper) {
+        this.legacyMapper = legacyMapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+        if (value instanceof String string) {
+            return string.getBytes(StandardCharsets.UTF_8);
+        }
+        if (value instanceof Number) {
+            return value.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        if (value instanceof ChatMessage message) {
+            return tagged(CHAT_MESSAGE_V1, encodeChatMessage(message));
+        }
+        throw new SerializationException("Unsupported Redis value type: " + value.getClass().getName());
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == TAG) {
+            return untag(bytes);
+        }
+        String string = new String(bytes, StandardCharsets.UTF_8);
+        if (bytes[0] == '[' && LEGACY_TYPE_MARKER.matcher(string).lookingAt()) {
+            try {
+                return legacyMapper.readValue(bytes, Object.class);
+            } catch (IOException e) {
+                // A plain string that happens to start like a typed legacy value
+                log.trace("Value is not legacy JSON, reading as string");
+            }
+        }
+        return string;
+    }
+
+    private byte[] tagged(byte type, byte[] record) {
+        if (record.length >= COMPRESSION_THRESHOLD) {
+            byte[] compressed = Zstd.compress(record, COMPRESSION_LEVEL);
+            if (compressed.length + 4 < record.length) {
+                return ByteBuffer.allocate(2 + 4 + compressed.length)
+                    .put(TAG).put((byte) (type | FLAG_ZSTD))
+                    .putInt(record.length).put(compressed)
+                    .array();
+            }
+        }
+        return ByteBuffer.allocate(2 + record.length).put(TAG).put(type).put(record).array();
+    }
+
+    private Object untag(byte[] bytes) {
+        if (bytes.length < 2) {
+            throw new SerializationException("Truncated Redis value");
+        }
+        byte type = (byte) (bytes[1] & ~FLAG_ZSTD);
+        ByteBuffer record = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        if ((bytes[1] & FLAG_ZSTD) != 0) {
+            byte[] raw = new byte[record.getInt()];
+            byte[] compressed = new byte[record.remaining()];
+            record.get(compressed);
+            Zstd.decompress(raw, compressed);
+            record = ByteBuffer.wrap(raw);
+        }
+
+        if (type == CHAT_MESSAGE_V1) {
+            return decodeChatMessage(record);
+        }
+        throw new SerializationException("Unknown Redis value type/version: " + type);
+    }
+
+    private byte[] encodeChatMessage(ChatMessage message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            UUID messageId = message.getMessageId();
+            out.writeBoolean(messageId != null);
+            if (messageId != null) {
+                out.writeLong(messageId.getMostSignificantBits());
+                out.writeLong(messageId.getLeastSignificantBits());
+            }
+            writeString(out, message.getRoomId());
+            writeString(out, message.getUserId());
+            writeString(out, message.getUsername());
+            writeString(out, message.getContent());
+            writeString(out, message.getType());
+            out.writeLong(message.getTimestamp() != null ? toMicros(message.getTimestamp()) : NO_TIMESTAMP);
+            out.writeLong(message.getSeq() != null ? message.getSeq() : NO_SEQ);
+
+            Map<String, Set<String>> reactions = message.getReactions();
+            out.writeInt(reactions != null ? reactions.size() : 0);
+            if (reactions != null) {
+                for (Map.Entry<String, Set<String>> entry : reactions.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (String userId : entry.getValue()) {
+                        writeString(out, userId);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Failed to encode ChatMessage", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private ChatMessage decodeChatMessage(ByteBuffer in) {
+        UUID messageId = in.get() != 0 ? new UUID(in.getLong(), in.getLong()) : null;
+        String roomId = readString(in);
+        String userId = readString(in);
+        String username = readString(in);
+        String content = readString(in);
+        String type = readString(in);
+        long micros = in.getLong();
+        long seq = in.getLong();
+
+        int emojiCount = in.getInt();
+        Map<String, Set<String>> reactions = new HashMap<>(Math.max(4, emojiCount * 2));
+        for (int i = 0; i < emojiCount; i++) {
+            String emoji = readString(in);
+            int userCount = in.getInt();
+            Set<String> users = new HashSet<>(Math.max(4, userCount * 2));
+            for (int j = 0; j < userCount; j++) {
+                users.add(readString(in));
+            }
+            reactions.put(emoji, users);
+        }
+
+        return ChatMessage.builder()
+            .messageId(messageId)
+            .roomId(roomId)
+            .userId(userId)
+            .username(username)
+            .content(content)
+            .type(type)
+            .timestamp(micros != NO_TIMESTAMP ? fromMicros(micros) : null)
+            .seq(seq != NO_SEQ ? seq : null)
+            .reactions(reactions)
+            .build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+            Math.floorDiv(micros, 1_000_000L), (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
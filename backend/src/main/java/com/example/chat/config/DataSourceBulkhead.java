@@ -0,0 +1,64 @@
+package com.example.chat.config;
+
+/**
+ * Named connection-pool bulkheads
+ *
+ * Each bulkhead is a separate Hikari pool with its own size and acquire timeout,
+ * so a burst on one workload cannot exhaust the connections of another:
+ * - CONSUMER_WRITES: Kafka persistence consumers and background jobs (retention, archive)
+ * - INTERACTIVE_WRITES: writes on request/STOMP threads (read receipts, REST writes); default
+ * - READS: read-only transactions (replica, or the read-fallback pool on the primary)
+ *
+ * Read-only transactions always use READS. For everything else the bulkhead is
+ * bound to the current thread with {@link #run(Runnable)}.
+ *
+ * @see BulkheadRoutingDataSource
+ */
+public enum DataSourceBulkhead {
+
+    CONSUMER_WRITES("consumer-writes"),
+    INTERACTIVE_WRITES("interactive-writes"),
+    READS("reads");
+
+    private static final ThreadLocal<DataSourceBulkhead> CURRENT = new ThreadLocal<>();
+
+    private final String poolName;
+
+    DataSourceBulkhead(String poolName) {
+        this.poolName = poolName;
+    }
+
+    /**
+     * Hikari pool name (tag "pool" of hikaricp.* metrics)
+     */
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * Bulkhead bound to the current thread (INTERACTIVE_WRITES if none)
+     */
+    public static DataSourceBulkhead current() {
+        DataSourceBulkhead bulkhead = CURRENT.get();
+        return bulkhead != null ? bulkhead : INTERACTIVE_WRITES;
+    }
+
+    /**
+     * Run work with this bulkhead bound to the current thread
+     * - Connections first obtained inside the work come from this bulkhead's pool
+     * - Restores the previous binding afterwards (nesting is allowed)
+     */
+    public void run(Runnable work) {
+        DataSourceBulkhead previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            work.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.chat.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSource configuration with connection-pool bulkheads and read-replica routing
+ * - interactive-writes: spring.datasource.* (STOMP/REST writes, Flyway migrations)
+ * - consumer-writes: primary, chat.datasource.bulkheads.consumer-writes.hikari.* (Kafka consumers, background jobs)
+ * - reads: chat.datasource.replica.* (read-only transactions)
+ * - read-fallback: primary, chat.datasource.bulkheads.read-fallback.hikari.* (reads while the replica is unhealthy)
+ * - dataSource (@Primary): lazy routing proxy used by JPA and JdbcTemplate
+ *
+ * Each pool is a separate HikariDataSource, so Hikari metrics
+ * (hikaricp.connections.*, including the acquire-time histogram) are reported per pool name.
+ *
+ * @see DataSourceBulkhead
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource interactiveWritesDataSource(
+        @Qualifier("primaryDataSourceProperties") DataSourceProperties properties
+    ) {
+        return buildPool(properties, DataSourceBulkhead.INTERACTIVE_WRITES.getPoolName());
+    }
+
+    @Bean
+    @ConfigurationProperties("chat.datasource.bulkheads.consumer-writes.hikari")
+    public HikariDataSource consumerWritesDataSource(
+        @Qualifier("primaryDataSourceProperties") DataSourceProperties properties
+    ) {
+        return buildPool(properties, DataSourceBulkhead.CONSUMER_WRITES.getPoolName());
+    }
+
+    @Bean
+    @ConfigurationProperties("chat.datasource.bulkheads.read-fallback.hikari")
+    public HikariDataSource readFallbackDataSource(
+        @Qualifier("primaryDataSourceProperties") DataSourceProperties properties
+    ) {
+        HikariDataSource dataSource = buildPool(properties, BulkheadRoutingDataSource.READ_FALLBACK);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("chat.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("chat.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+        @Qualifier("replicaDataSourceProperties") DataSourceProperties properties
+    ) {
+        HikariDataSource dataSource = buildPool(properties, DataSourceBulkhead.READS.getPoolName());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(
+        @Qualifier("replicaDataSource") DataSource replicaDataSource,
+        @Value("${chat.datasource.replica.max-lag-ms:5000}") long maxLagMillis,
+        MeterRegistry meterRegistry
+    ) {
+        return new ReplicaHealthMonitor(replicaDataSource, maxLagMillis, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+        @Qualifier("interactiveWritesDataSource") DataSource interactiveWritesDataSource,
+        @Qualifier("consumerWritesDataSource") DataSource consumerWritesDataSource,
+        @Qualifier("replicaDataSource") DataSource replicaDataSource,
+        @Qualifier("readFallbackDataSource") DataSource readFallbackDataSource,
+        ReplicaHealthMonitor replicaHealthMonitor,
+        MeterRegistry meterRegistry
+    ) {
+        BulkheadRoutingDataSource routingDataSource = new BulkheadRoutingDataSource(
+            Map.of(
+                DataSourceBulkhead.INTERACTIVE_WRITES, interactiveWritesDataSource,
+                DataSourceBulkhead.CONSUMER_WRITES, consumerWritesDataSource,
+                DataSourceBulkhead.READS, replicaDataSource
+            ),
+            readFallbackDataSource, replicaHealthMonitor, meterRegistry
+        );
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private HikariDataSource buildPool(DataSourceProperties properties, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
@@ -41,6 +41,7 @@ public class KafkaConfig {
     public static final String GROUP_WEBSOCKET_FANOUT = "websocket-fanout";
     public static final String GROUP_PERSIST_STORE = "persist-store";
     public static final String GROUP_EVENT_HANDLER = "event-handler";
+    public static final String GROUP_MESSAGE_PERSIST = "message-persist";
 
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
@@ -102,4 +103,20 @@ public class KafkaConfig {
         return factory;
     }
 
+    /**
+     * Kafka Batch Listener Container Factory
+     * - Delivers each poll (up to max.poll.records) as a single List
+     * - Used by the message persistence consumer for bulk COPY writes
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(3);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
 }
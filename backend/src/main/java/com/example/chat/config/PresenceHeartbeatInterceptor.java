@@ -0,0 +1,102 @@
+package com.example.chat.config;
+
+import com.example.chat.service.AsyncRedisCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Piggybacks presence heartbeats on inbound STOMP traffic
+ *
+ * - Rooms joined over a WebSocket session are tracked in its session attributes
+ *   (roomId -> userId, see {@link #track} / {@link #untrack})
+ * - Every inbound frame of the session, including STOMP heart-beats, counts as
+ *   liveness; presence is refreshed at most once per timeout/3 per session,
+ *   asynchronously ({@link AsyncRedisCacheService}), so frames are not held up by Redis
+ * - A client that disconnects without leaving simply stops refreshing and
+ *   expires after chat.presence.timeout
+ */
+@Component
+@Slf4j
+public class PresenceHeartbeatInterceptor implements ChannelInterceptor {
+
+    private static final String ROOMS_ATTRIBUTE = "chat.presence.rooms";
+    private static final String LAST_REFRESH_ATTRIBUTE = "chat.presence.lastRefresh";
+
+    private final AsyncRedisCacheService asyncRedisCacheService;
+    private final long refreshIntervalMillis;
+
+    public PresenceHeartbeatInterceptor(
+        AsyncRedisCacheService asyncRedisCacheService,
+        @Value("${chat.presence.timeout:60s}") Duration presenceTimeout
+    ) {
+        this.asyncRedisCacheService = asyncRedisCacheService;
+        this.refreshIntervalMillis = presenceTimeout.toMillis() / 3;
+    }
+
+    /**
+     * Track a joined room for heartbeat refreshes of this session
+     *
+     * @param sessionAttributes WebSocket session attributes (ignored if null)
+     */
+    @SuppressWarnings("unchecked")
+    public static void track(Map<String, Object> sessionAttributes, String roomId, String userId) {
+        if (sessionAttributes == null) {
+            return;
+        }
+        ((Map<String, String>) sessionAttributes.computeIfAbsent(ROOMS_ATTRIBUTE, k -> new ConcurrentHashMap<>()))
+            .put(roomId, userId);
+        ((AtomicLong) sessionAttributes.computeIfAbsent(LAST_REFRESH_ATTRIBUTE, k -> new AtomicLong()))
+            .set(System.currentTimeMillis());
+    }
+
+    /**
+     * Stop refreshing presence for a room left by this session
+     */
+    @SuppressWarnings("unchecked")
+    public static void untrack(Map<String, Object> sessionAttributes, String roomId) {
+        if (sessionAttributes == null) {
+            return;
+        }
+        Map<String, String> rooms = (Map<String, String>) sessionAttributes.get(ROOMS_ATTRIBUTE);
+        if (rooms != null) {
+            rooms.remove(roomId);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        Map<String, Object> sessionAttributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        if (sessionAttributes == null) {
+            return message;
+        }
+
+        Map<String, String> rooms = (Map<String, String>) sessionAttributes.get(ROOMS_ATTRIBUTE);
+        AtomicLong lastRefresh = (AtomicLong) sessionAttributes.get(LAST_REFRESH_ATTRIBUTE);
+        if (rooms == null || rooms.isEmpty() || lastRefresh == null) {
+            return message;
+        }
+
+        long now = System.currentTimeMillis();
+        long previous = lastRefresh.get();
+        if (now - previous < refreshIntervalMillis || !lastRefresh.compareAndSet(previous, now)) {
+            return message;
+        }
+
+        // Fire and forget: the inbound thread does not wait for Redis (failures are logged by the service)
+        rooms.forEach(asyncRedisCacheService::refreshPresence);
+        log.trace("Refreshed presence for {} rooms of session {}",
+            rooms.size(), SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        return message;
+    }
+}
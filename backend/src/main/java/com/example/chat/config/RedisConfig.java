@@ -10,7 +10,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -21,7 +21,12 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  *
  * Key patterns (TRD 02-trd.md):
  * - room:{roomId}:recent -> Recent messages (List, TTL 10min)
- * - room:{roomId}:users -> Current users (Set, TTL 5min)
+ * - room:{roomId}:stream -> Recent messages (Stream, MAXLEN ~, TTL 24h; stream backend only)
+ * - room:{roomId}:presence -> Current users (Sorted Set, score = last heartbeat millis)
+ * - room:{roomId}:online:{window} -> Users seen per presence window (HyperLogLog)
+ * - presence:rooms -> Rooms with recent heartbeats (Sorted Set, for the presence sweeper)
+ * Per-room and per-message keys are built by {@link RedisKeySchema} (v2 wraps the ID in a
+ * cluster hash tag: room:{42}:recent)
  *
  * Implementation in Phase 1
  */
@@ -37,7 +42,12 @@ public class RedisConfig {
 
     // Cache key suffixes
     public static final String RECENT_MESSAGES_SUFFIX = ":recent";
-    public static final String ROOM_USERS_SUFFIX = ":users";
+    public static final String RECENT_STREAM_SUFFIX = ":stream";
+    public static final String ROOM_USERS_SUFFIX = ":presence";
+    public static final String ROOM_ONLINE_SUFFIX = ":online:";
+
+    // Index of rooms with presence
+    public static final String PRESENCE_ROOMS = "presence:rooms";
 
     // Rate limit keys
     public static final String RATE_LIMIT_IP = "rate:ip:";
@@ -45,7 +55,6 @@ public class RedisConfig {
 
     // TTL (seconds)
     public static final int TTL_RECENT_MESSAGES = 600;  // 10 minutes
-    public static final int TTL_ROOM_USERS = 300;       // 5 minutes
 
     /**
      * Configure ObjectMapper with Java 8+ date/time support
@@ -60,20 +69,17 @@ public class RedisConfig {
     }
 
     /**
-     * Configure RedisTemplate with JSON serialization
+     * Configure RedisTemplate with compact value serialization
      * - Key: String
-     * - Value: JSON-serialized Object
-     * - Handles ChatMessage and other DTOs
+     * - Value: {@link ChatRedisSerializer} (plain strings/numbers, binary ChatMessage)
+     * - The former JSON default-typing mapper is kept only to read values cached before the switch
      */
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        // Configure JSON serializer for values
-        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer =
-            new Jackson2JsonRedisSerializer<>(Object.class);
-
+        // Legacy JSON mapper (reads values written before ChatRedisSerializer)
         ObjectMapper om = new ObjectMapper();
         om.registerModule(new JavaTimeModule());
         om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
@@ -84,21 +90,31 @@ public class RedisConfig {
             .build();
         om.activateDefaultTyping(ptv, ObjectMapper.DefaultTyping.NON_FINAL);
 
-        jackson2JsonRedisSerializer.setObjectMapper(om);
+        ChatRedisSerializer valueSerializer = new ChatRedisSerializer(om);
 
         // String serializer for keys
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
 
         // Set key-value serialization
         template.setKeySerializer(stringRedisSerializer);
-        template.setValueSerializer(jackson2JsonRedisSerializer);
+        template.setValueSerializer(valueSerializer);
 
         // Set hash key-value serialization
         template.setHashKeySerializer(stringRedisSerializer);
-        template.setHashValueSerializer(jackson2JsonRedisSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
         return template;
     }
 
+    /**
+     * Listener container for Redis Pub/Sub subscriptions
+     * - Near-cache invalidations (cache:invalidate)
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
@@ -0,0 +1,182 @@
+package com.example.chat.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Versioned Redis key schema for per-room and per-message keys
+ *
+ * - v1 (legacy): bare IDs, e.g. room:42:recent, room:42:presence
+ * - v2: IDs wrapped in a hash tag, e.g. room:{42}:recent, room:{42}:presence,
+ *   message:{uuid}:reaction_counts. All keys of one room (or one message) map to the
+ *   same Redis Cluster slot, so multi-key scripts and PFCOUNT never cross slots
+ *
+ * Migration (chat.redis.key-schema.mode), one rolling deploy per step, each step
+ * can be rolled back to the previous one:
+ * - v1: read and write v1 keys
+ * - dual-write: write both schemas, read v1 (authoritative while v2 keys fill up)
+ * - dual-read: write both schemas, read v2 and fall back to v1 when the v2 key is empty
+ * - v2: read and write v2 keys only (required on Redis Cluster)
+ * While both schemas are written, the first write to a v2 recent-message or reaction key
+ * copies its v1 key (RedisKeySeeder), so a v2 key that exists is never a partial copy and
+ * the dual-read fallback to v1 is only needed for keys not written since dual-write.
+ * Presence and typing keys are not copied: heartbeats rebuild them within one timeout.
+ * Writes of nodes still on v1 during the rollout to dual-write can miss v2 keys seeded
+ * meanwhile; stay in dual-write for at least the longest key TTL (24h, reactions) before
+ * dual-read.
+ *
+ * Not versioned (single-key commands are cluster-safe as they are):
+ * - room:{roomId}:seq, room:{roomId}:lastRead:{userId}
+ * - presence:rooms (global index, updated outside the heartbeat script)
+ */
+@Component
+public class RedisKeySchema {
+
+    private static final String ROOM_PREFIX = "room:";
+    private static final String MESSAGE_PREFIX = "message:";
+    private static final String REACTIONS_SUFFIX = ":reactions:";
+    private static final String REACTION_COUNTS_SUFFIX = ":reaction_counts";
+    private static final String TYPING_SUFFIX = ":typing";
+
+    /**
+     * Key layout version
+     */
+    public enum Version {
+        V1, V2
+    }
+
+    /**
+     * Migration mode: versions read (in order of preference) and written
+     */
+    public enum Mode {
+        V1(List.of(Version.V1), List.of(Version.V1)),
+        DUAL_WRITE(List.of(Version.V1), List.of(Version.V1, Version.V2)),
+        DUAL_READ(List.of(Version.V2, Version.V1), List.of(Version.V2, Version.V1)),
+        V2(List.of(Version.V2), List.of(Version.V2));
+
+        private final List<Version> reads;
+        private final List<Version> writes;
+
+        Mode(List<Version> reads, List<Version> writes) {
+            this.reads = reads;
+            this.writes = writes;
+        }
+    }
+
+    private final Mode mode;
+
+    public RedisKeySchema(
+        @Value("${chat.redis.key-schema.mode:v1}") String mode,
+        @Value("${spring.data.redis.cluster.nodes:}") String clusterNodes
+    ) {
+        this.mode = Mode.valueOf(mode.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        if (!clusterNodes.isBlank() && this.mode != Mode.V2) {
+            throw new IllegalStateException(
+                "chat.redis.key-schema.mode must be v2 on Redis Cluster (was " + mode + ")");
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Versions to read, in order of preference (later ones are fallbacks)
+     */
+    public List<Version> readVersions() {
+        return mode.reads;
+    }
+
+    /**
+     * Versions every write goes to
+     */
+    public List<Version> writeVersions() {
+        return mode.writes;
+    }
+
+    /**
+     * Whether both schemas are written (dual-write, dual-read): v2 keys are seeded from v1
+     */
+    public boolean seeding() {
+        return mode.writes.size() > 1;
+    }
+
+    /**
+     * Version whose keys are authoritative for reads (also the near-cache key)
+     */
+    public Version primary() {
+        return mode.reads.get(0);
+    }
+
+    /**
+     * Recent messages (List)
+     */
+    public String recentMessages(Version version, String roomId) {
+        return room(version, roomId) + RedisConfig.RECENT_MESSAGES_SUFFIX;
+    }
+
+    /**
+     * Recent messages (Stream)
+     */
+    public String recentStream(Version version, String roomId) {
+        return room(version, roomId) + RedisConfig.RECENT_STREAM_SUFFIX;
+    }
+
+    /**
+     * Live members (Sorted Set: userId -> last heartbeat millis)
+     */
+    public String presence(Version version, String roomId) {
+        return room(version, roomId) + RedisConfig.ROOM_USERS_SUFFIX;
+    }
+
+    /**
+     * Users seen in one presence window (HyperLogLog)
+     */
+    public String online(Version version, String roomId, long window) {
+        return room(version, roomId) + RedisConfig.ROOM_ONLINE_SUFFIX + window;
+    }
+
+    /**
+     * Typing users (Set)
+     */
+    public String typing(Version version, String roomId) {
+        return room(version, roomId) + TYPING_SUFFIX;
+    }
+
+    /**
+     * Users who reacted to a message with one emoji (Set)
+     */
+    public String reactionUsers(Version version, UUID messageId, String emoji) {
+        return reactionUsersPrefix(version, messageId) + emoji;
+    }
+
+    /**
+     * Prefix of the per-emoji reaction sets of a message (emoji appended by the caller)
+     */
+    public String reactionUsersPrefix(Version version, UUID messageId) {
+        return message(version, messageId) + REACTIONS_SUFFIX;
+    }
+
+    /**
+     * Reaction counter hash of a message (emoji -> count)
+     */
+    public String reactionCounts(Version version, UUID messageId) {
+        return message(version, messageId) + REACTION_COUNTS_SUFFIX;
+    }
+
+    private static String room(Version version, String roomId) {
+        return ROOM_PREFIX + hashTag(version, roomId);
+    }
+
+    private static String message(Version version, UUID messageId) {
+        return MESSAGE_PREFIX + hashTag(version, messageId.toString());
+    }
+
+    private static String hashTag(Version version, String id) {
+        return version == Version.V2 ? "{" + id + "}" : id;
+    }
+}
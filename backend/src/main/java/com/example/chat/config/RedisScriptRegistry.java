@@ -0,0 +1,182 @@
+package com.example.chat.config;
+
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Registry of server-side Lua scripts (classpath:scripts/*.lua)
+ *
+ * - Scripts are loaded with SCRIPT LOAD when the application is ready and
+ *   invoked with EVALSHA, so each call sends only the SHA1, keys and arguments
+ * - NOSCRIPT (Redis restart, failover, SCRIPT FLUSH) is handled by retrying once with
+ *   EVAL, which is routed by key like EVALSHA and caches the script on the node that
+ *   owns the keys (SCRIPT LOAD has no key and may reach a different Redis Cluster node)
+ * - Keys use the template's key serializer, arguments its value serializer,
+ *   so script-written values are readable through the same RedisTemplate
+ *   (strings and numbers arrive in the script as plain strings)
+ *
+ * Metrics: chat.redis.script.reloads{script}
+ */
+@Component
+@Slf4j
+public class RedisScriptRegistry {
+
+    /**
+     * Available scripts
+     */
+    public enum Script {
+        CACHE_RECENT_MESSAGE("scripts/cache_recent_message.lua"),
+        APPEND_RECENT_STREAM("scripts/append_recent_stream.lua"),
+        PRESENCE_HEARTBEAT("scripts/presence_heartbeat.lua"),
+        ADD_TYPING_USER("scripts/add_typing_user.lua"),
+        ADD_REACTION("scripts/add_reaction.lua"),
+        REMOVE_REACTION("scripts/remove_reaction.lua"),
+        SEED_KEYS("scripts/seed_keys.lua");
+
+        private final String location;
+
+        Script(String location) {
+            this.location = location;
+        }
+    }
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Map<Script, DefaultRedisScript<Long>> scripts = new EnumMap<>(Script.class);
+    private final Map<Script, Counter> reloads = new EnumMap<>(Script.class);
+
+    public RedisScriptRegistry(RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+
+        for (Script script : Script.values()) {
+            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+            redisScript.setLocation(new ClassPathResource(script.location));
+            redisScript.setResultType(Long.class);
+            scripts.put(script, redisScript);
+            reloads.put(script, meterRegistry.counter("chat.redis.script.reloads", "script", script.name()));
+        }
+    }
+
+    /**
+     * Preload all scripts (best effort; a failed preload is recovered on first use)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (DefaultRedisScript<Long> script : scripts.values()) {
+                    connection.scriptingCommands().scriptLoad(bytes(script.getScriptAsString()));
+                }
+                return null;
+            });
+            log.info("Preloaded {} Redis scripts", scripts.size());
+        } catch (Exception e) {
+            log.warn("Failed to preload Redis scripts, loading on first use: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Run a script with EVALSHA
+     *
+     * @param script Script to run
+     * @param keys Redis keys (KEYS[1..n])
+     * @param args Arguments (ARGV[1..n]), serialized with the template's value serializer
+     * @return Integer reply of the script
+     */
+    public Long execute(Script script, List<String> keys, Object... args) {
+        DefaultRedisScript<Long> redisScript = scripts.get(script);
+        byte[][] keysAndArgs = serialize(keys, args);
+
+        return redisTemplate.execute((RedisCallback<Long>) connection -> {
+            RedisScriptingCommands scripting = connection.scriptingCommands();
+            try {
+                return scripting.evalSha(redisScript.getSha1(), ReturnType.INTEGER, keys.size(), keysAndArgs);
+            } catch (RuntimeException e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+                reloads.get(script).increment();
+                log.info("Redis script {} not cached on server, reloading", script);
+                return scripting.eval(bytes(redisScript.getScriptAsString()), ReturnType.INTEGER, keys.size(), keysAndArgs);
+            }
+        });
+    }
+
+    /**
+     * Run a script with EVALSHA on native Lettuce async commands (byte[] codec)
+     * - Same serialization and NOSCRIPT handling as {@link #execute(Script, List, Object...)},
+     *   without blocking the caller
+     *
+     * @param commands Async commands of a standalone or cluster connection
+     * @param script Script to run
+     * @param keys Redis keys (KEYS[1..n])
+     * @param args Arguments (ARGV[1..n])
+     * @return Future of the script's integer reply (completed on a Lettuce I/O thread)
+     */
+    public CompletableFuture<Long> executeAsync(RedisClusterAsyncCommands<byte[], byte[]> commands,
+                                                Script script, List<String> keys, Object... args) {
+        DefaultRedisScript<Long> redisScript = scripts.get(script);
+        byte[][] keysAndArgs = serialize(keys, args);
+        byte[][] keyBytes = Arrays.copyOfRange(keysAndArgs, 0, keys.size());
+        byte[][] argBytes = Arrays.copyOfRange(keysAndArgs, keys.size(), keysAndArgs.length);
+
+        return commands.<Long>evalsha(redisScript.getSha1(), ScriptOutputType.INTEGER, keyBytes, argBytes)
+            .toCompletableFuture()
+            .exceptionallyCompose(e -> {
+                if (!isNoScript(e)) {
+                    return CompletableFuture.failedFuture(e);
+                }
+                reloads.get(script).increment();
+                log.info("Redis script {} not cached on server, reloading", script);
+                return commands.<Long>eval(redisScript.getScriptAsString(), ScriptOutputType.INTEGER, keyBytes, argBytes)
+                    .toCompletableFuture();
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[][] serialize(List<String> keys, Object... args) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = keySerializer.serialize(keys.get(i));
+        }
+        for (int i = 0; i < args.length; i++) {
+            keysAndArgs[keys.size() + i] = valueSerializer.serialize(args[i]);
+        }
+        return keysAndArgs;
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
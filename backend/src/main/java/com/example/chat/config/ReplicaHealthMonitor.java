@@ -0,0 +1,86 @@
+package com.example.chat.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replica health monitor
+ * - Polls replica replay lag: 0 when all received WAL is replayed, otherwise the time
+ *   since the last replayed transaction (pg_last_xact_replay_timestamp)
+ * - Marks the replica unhealthy when lag exceeds the threshold or the replica is unreachable
+ * - Read-only transactions fall back to the primary while the replica is unhealthy
+ *
+ * Metrics:
+ * - chat.datasource.replica.healthy (gauge, 1/0)
+ * - chat.datasource.replica.lag (gauge, milliseconds)
+ */
+@Slf4j
+public class ReplicaHealthMonitor {
+
+    // 0 on a primary (not in recovery), so pointing the replica pool at the primary is always healthy.
+    // 0 once everything received has been replayed: time since the last replayed transaction
+    // only measures lag while WAL is pending (on a quiet primary it grows without bound)
+    private static final String REPLICA_LAG_SQL =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+        "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMillis;
+    private final AtomicBoolean healthy = new AtomicBoolean(true);
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public ReplicaHealthMonitor(DataSource replicaDataSource, long maxLagMillis, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagMillis = maxLagMillis;
+
+        meterRegistry.gauge("chat.datasource.replica.healthy", healthy, flag -> flag.get() ? 1 : 0);
+        meterRegistry.gauge("chat.datasource.replica.lag", lagMillis, AtomicLong::get);
+    }
+
+    /**
+     * Whether read-only transactions may be routed to the replica
+     */
+    public boolean isHealthy() {
+        return healthy.get();
+    }
+
+    /**
+     * Mark the replica unhealthy after a connection failure
+     * (re-checked on the next poll)
+     */
+    public void markUnhealthy(Exception cause) {
+        if (healthy.compareAndSet(true, false)) {
+            log.warn("Replica marked unhealthy, routing reads to primary: {}", cause.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.datasource.replica.health-check-interval-ms:5000}")
+    public void checkReplica() {
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(REPLICA_LAG_SQL, Double.class);
+            long currentLag = lag != null ? lag.longValue() : 0L;
+            lagMillis.set(currentLag);
+            update(currentLag <= maxLagMillis, "lag " + currentLag + "ms");
+        } catch (Exception e) {
+            update(false, e.getMessage());
+        }
+    }
+
+    private void update(boolean nowHealthy, String reason) {
+        boolean wasHealthy = healthy.getAndSet(nowHealthy);
+        if (wasHealthy != nowHealthy) {
+            if (nowHealthy) {
+                log.info("Replica healthy again, routing reads to replica ({})", reason);
+            } else {
+                log.warn("Replica unhealthy, routing reads to primary ({})", reason);
+            }
+        }
+    }
+}
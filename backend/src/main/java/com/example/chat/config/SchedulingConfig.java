@@ -0,0 +1,13 @@
+package com.example.chat.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling configuration for background maintenance jobs
+ * - Partition management (pre-create / drop monthly partitions)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,16 +1,25 @@
 package com.example.chat.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.time.Duration;
+
 /**
  * WebSocket configuration for real-time chat
  * - STOMP over WebSocket (or raw WebSocket + socket.io adapter)
  * - Redis pub/sub for horizontal scaling
  * - Session management
+ * - STOMP heart-beats (chat.presence.heartbeat-interval) double as presence heartbeats
  *
  * Implementation in Phase 1
  */
@@ -23,16 +32,36 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public static final String WS_TOPIC_PREFIX = "/topic";
     public static final String WS_APP_PREFIX = "/app";
 
+    private final PresenceHeartbeatInterceptor presenceHeartbeatInterceptor;
+    private final long heartbeatMillis;
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    public WebSocketConfig(
+        PresenceHeartbeatInterceptor presenceHeartbeatInterceptor,
+        @Value("${chat.presence.heartbeat-interval:10s}") Duration heartbeatInterval
+    ) {
+        this.presenceHeartbeatInterceptor = presenceHeartbeatInterceptor;
+        this.heartbeatMillis = heartbeatInterval.toMillis();
+    }
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler scheduler) {
+        this.messageBrokerTaskScheduler = scheduler;
+    }
+
     /**
      * Configure message broker
      * - Enable simple broker for /topic destinations
+     * - Negotiate STOMP heart-beats in both directions
      * - Set application destination prefix to /app
      * - Messages are sent to subscribers of topics
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable simple in-memory message broker for /topic destinations
-        config.enableSimpleBroker(WS_TOPIC_PREFIX);
+        config.enableSimpleBroker(WS_TOPIC_PREFIX)
+            .setHeartbeatValue(new long[] {heartbeatMillis, heartbeatMillis})
+            .setTaskScheduler(messageBrokerTaskScheduler);
 
         // Application destination prefix for incoming messages
         config.setApplicationDestinationPrefixes(WS_APP_PREFIX);
@@ -53,4 +82,13 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             .setAllowedOriginPatterns("*")
             .withSockJS();
     }
+
+    /**
+     * Inbound channel interceptors
+     * - Presence refresh on client frames (including heart-beats)
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(presenceHeartbeatInterceptor);
+    }
 }
@@ -1,24 +1,30 @@
 package com.example.chat.controller;
 
+import com.example.chat.config.PresenceHeartbeatInterceptor;
 import com.example.chat.config.WebSocketConfig;
 import com.example.chat.dto.ChatEvent;
 import com.example.chat.dto.ChatMessage;
 import com.example.chat.dto.MessageReaction;
 import com.example.chat.dto.ReadReceiptDTO;
 import com.example.chat.dto.TypingIndicator;
+import com.example.chat.service.AsyncRedisCacheService;
 import com.example.chat.service.KafkaProducerService;
 import com.example.chat.service.ReadReceiptService;
 import com.example.chat.service.RedisCacheService;
+import com.example.chat.service.RoomSequenceService;
+import com.example.chat.util.TimeOrderedUuid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * WebSocket Controller for Real-Time Chat
@@ -40,42 +46,33 @@ public class ChatWebSocketController {
 
     private final KafkaProducerService kafkaProducerService;
     private final RedisCacheService redisCacheService;
+    private final AsyncRedisCacheService asyncRedisCacheService;
     private final ReadReceiptService readReceiptService;
+    private final RoomSequenceService roomSequenceService;
     private final SimpMessagingTemplate messagingTemplate;
 
     /**
      * Handle user joining a room
-     * - Add user to Redis presence
-     * - Send join event via Kafka
-     * - Broadcast to all room subscribers
+     * - Add user to Redis presence (async; the inbound thread does not wait for Redis)
+     * - Track the room on the session so STOMP heart-beats keep the presence alive
+     * - Once the online count is known: send join event via Kafka and
+     *   broadcast to all room subscribers
      *
      * @param event ChatEvent with userId and roomId
+     * @param headerAccessor STOMP headers of the sending session
      */
     @MessageMapping("/chat.join")
-    public void handleJoin(ChatEvent event) {
+    public void handleJoin(ChatEvent event, SimpMessageHeaderAccessor headerAccessor) {
         log.info("User {} joining room {}", event.getUserId(), event.getRoomId());
 
         try {
-            // Add user to Redis room presence
-            redisCacheService.addUserToRoom(event.getRoomId(), event.getUserId());
-
-            // Get current online user count
-            long onlineCount = redisCacheService.getRoomUserCount(event.getRoomId());
-
-            // Add online count to metadata
-            if (event.getMetadata() == null) {
-                event.setMetadata(new java.util.HashMap<>());
-            }
-            event.getMetadata().put("onlineCount", onlineCount);
-
-            // Send join event to Kafka
-            kafkaProducerService.sendEvent(event);
-
-            // Broadcast to all subscribers of the room topic
-            String topic = WebSocketConfig.WS_TOPIC_PREFIX + "/room/" + event.getRoomId();
-            messagingTemplate.convertAndSend(topic, event);
+            PresenceHeartbeatInterceptor.track(
+                headerAccessor.getSessionAttributes(), event.getRoomId(), event.getUserId());
 
-            log.debug("User join event broadcast: roomId={}, onlineCount={}", event.getRoomId(), onlineCount);
+            // Add user to Redis room presence, then publish with the current online user count
+            asyncRedisCacheService.addUserToRoomAndCount(event.getRoomId(), event.getUserId())
+                .thenAccept(onlineCount -> publishPresenceEvent(event, onlineCount))
+                .exceptionally(e -> presenceEventFailed("join", e));
         } catch (Exception e) {
             log.error("Error handling user join: {}", e.getMessage(), e);
         }
@@ -83,6 +80,8 @@ public class ChatWebSocketController {
 
     /**
      * Handle incoming chat message
+     * - Assign a server-side time-ordered message ID (UUIDv7) and per-room sequence number
+     *   (rejected when no sequence number can be leased)
      * - Send to Kafka for persistence
      * - Broadcast to all room subscribers via WebSocket
      *
@@ -93,6 +92,19 @@ public class ChatWebSocketController {
         log.info("Message from {} in room {}", message.getUserId(), message.getRoomId());
 
         try {
+            // Server-assigned, time-ordered ID (index locality + history tiebreaker) and
+            // timestamp (history order and archive cutoff must not depend on client clocks)
+            message.setMessageId(TimeOrderedUuid.next());
+            message.setTimestamp(LocalDateTime.now());
+            Long seq = roomSequenceService.next(message.getRoomId());
+            if (seq == null) {
+                // Without seq the message would be invisible to catch-up and read watermarks
+                log.warn("Rejected message from {} in room {}: no sequence number available",
+                    message.getUserId(), message.getRoomId());
+                return;
+            }
+            message.setSeq(seq);
+
             // Send message to Kafka for persistence
             kafkaProducerService.sendMessage(message);
 
@@ -108,40 +120,65 @@ public class ChatWebSocketController {
 
     /**
      * Handle user leaving a room
-     * - Remove user from Redis presence
-     * - Send leave event via Kafka
-     * - Broadcast to all room subscribers
+     * - Stop heart-beat refreshes for the room
+     * - Remove user from Redis presence and count the remaining users (async, one round trip)
+     * - Once the online count is known: send leave event via Kafka and
+     *   broadcast to all room subscribers
      *
      * @param event ChatEvent with userId and roomId
+     * @param headerAccessor STOMP headers of the sending session
      */
     @MessageMapping("/chat.leave")
-    public void handleLeave(ChatEvent event) {
+    public void handleLeave(ChatEvent event, SimpMessageHeaderAccessor headerAccessor) {
         log.info("User {} leaving room {}", event.getUserId(), event.getRoomId());
 
         try {
-            // Remove user from Redis room presence
-            redisCacheService.removeUserFromRoom(event.getRoomId(), event.getUserId());
+            PresenceHeartbeatInterceptor.untrack(headerAccessor.getSessionAttributes(), event.getRoomId());
+
+            // Remove user from Redis room presence, then publish with the remaining online user count
+            asyncRedisCacheService.removeUserFromRoomAndCount(event.getRoomId(), event.getUserId())
+                .thenAccept(onlineCount -> publishPresenceEvent(event, onlineCount))
+                .exceptionally(e -> presenceEventFailed("leave", e));
+        } catch (Exception e) {
+            log.error("Error handling user leave: {}", e.getMessage(), e);
+        }
+    }
 
-            // Get current online user count (after removal)
-            long onlineCount = redisCacheService.getRoomUserCount(event.getRoomId());
+    /**
+     * Log a join/leave whose event could not be published
+     * - Full Redis callback queue: the event is skipped (counted as
+     *   chat.redis.async.callbacks.rejected), not logged per event on the completing thread
+     */
+    private Void presenceEventFailed(String action, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            log.debug("Skipped user {} event: {}", action, cause.getMessage());
+        } else {
+            log.error("Error handling user {}: {}", action, cause.getMessage(), cause);
+        }
+        return null;
+    }
 
-            // Add online count to metadata
-            if (event.getMetadata() == null) {
-                event.setMetadata(new java.util.HashMap<>());
-            }
-            event.getMetadata().put("onlineCount", onlineCount);
+    /**
+     * Send a join/leave event with the room's online count via Kafka and broadcast it
+     * (runs on the Redis callback executor once the presence update completed)
+     */
+    private void publishPresenceEvent(ChatEvent event, long onlineCount) {
+        // Add online count to metadata
+        if (event.getMetadata() == null) {
+            event.setMetadata(new java.util.HashMap<>());
+        }
+        event.getMetadata().put("onlineCount", onlineCount);
 
-            // Send leave event to Kafka
-            kafkaProducerService.sendEvent(event);
+        // Send event to Kafka
+        kafkaProducerService.sendEvent(event);
 
-            // Broadcast to all subscribers of the room topic
-            String topic = WebSocketConfig.WS_TOPIC_PREFIX + "/room/" + event.getRoomId();
-            messagingTemplate.convertAndSend(topic, event);
+        // Broadcast to all subscribers of the room topic
+        String topic = WebSocketConfig.WS_TOPIC_PREFIX + "/room/" + event.getRoomId();
+        messagingTemplate.convertAndSend(topic, event);
 
-            log.debug("User leave event broadcast: roomId={}, onlineCount={}", event.getRoomId(), onlineCount);
-        } catch (Exception e) {
-            log.error("Error handling user leave: {}", e.getMessage(), e);
-        }
+        log.debug("User {} event broadcast: roomId={}, onlineCount={}",
+            event.getEventType(), event.getRoomId(), onlineCount);
     }
 
     /**
@@ -158,10 +195,8 @@ public class ChatWebSocketController {
                 reaction.getEmoji(), reaction.getUserId(), reaction.getMessageId(), reaction.getRoomId());
 
         try {
-            // Generate reaction ID and timestamp if not provided
-            if (reaction.getReactionId() == null) {
-                reaction.setReactionId(UUID.randomUUID());
-            }
+            // Server-assigned, time-ordered reaction ID; timestamp if not provided
+            reaction.setReactionId(TimeOrderedUuid.next());
             if (reaction.getTimestamp() == null) {
                 reaction.setTimestamp(LocalDateTime.now());
             }
@@ -233,15 +268,15 @@ public class ChatWebSocketController {
 
     /**
      * Handle read receipt events (Phase 6)
-     * - Mark message as read in PostgreSQL
+     * - Advance the user's read watermark in PostgreSQL
      * - Update Redis cache (last read position)
      * - Broadcast to all room subscribers
      *
      * Flow:
-     * 1. Client sends read receipt when message becomes visible
+     * 1. Client sends read receipt (with the message's seq) when message becomes visible
      * 2. Service checks cache to prevent duplicates
-     * 3. Save to database and update cache
-     * 4. Broadcast to room subscribers (for updating UI checkmarks)
+     * 3. Advance watermark (stale receipts are dropped) and update cache
+     * 4. Broadcast to room subscribers (UI checkmarks up to the broadcast seq)
      *
      * @param receipt ReadReceiptDTO from client
      */
@@ -260,7 +295,8 @@ public class ChatWebSocketController {
             ReadReceiptDTO result = readReceiptService.markAsRead(
                     receipt.getRoomId(),
                     receipt.getUserId(),
-                    receipt.getMessageId()
+                    receipt.getMessageId(),
+                    receipt.getSeq()
             );
 
             // Only broadcast if this is a new read event (not duplicate)
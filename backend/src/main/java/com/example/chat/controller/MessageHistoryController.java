@@ -1,9 +1,16 @@
 package com.example.chat.controller;
 
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.HistoryCursor;
+import com.example.chat.dto.MessageHistoryRow;
 import com.example.chat.dto.MessageResponse;
-import com.example.chat.entity.ChatMessageEntity;
+import com.example.chat.dto.MessageSearchHit;
+import com.example.chat.dto.ReactionSummary;
+import com.example.chat.dto.RecentMessagePage;
+import com.example.chat.dto.SearchCursor;
 import com.example.chat.service.MessagePersistenceService;
 import com.example.chat.service.ReadReceiptService;
+import com.example.chat.service.RedisCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -14,50 +21,116 @@ import java.util.stream.Collectors;
 
 /**
  * REST Controller for Message History
- * Provides endpoints to retrieve historical messages from PostgreSQL
+ * Provides endpoints to retrieve and search historical messages from PostgreSQL,
+ * plus a batch lookup of live reactions from Redis
  */
 @RestController
 @RequestMapping("/api/messages")
 @RequiredArgsConstructor
 @Slf4j
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = MessageHistoryController.NEXT_CURSOR_HEADER)
 public class MessageHistoryController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final int MAX_QUERY_LENGTH = 256;
+
+    // History keyset order: (timestamp DESC, messageId DESC), UUIDs compared as unsigned bytes like PostgreSQL
+    private static final Comparator<MessageHistoryRow> NEWEST_FIRST = Comparator
+        .comparing(MessageHistoryRow::timestamp)
+        .thenComparing(MessageHistoryRow::messageId, (a, b) -> {
+            int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+            return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+        })
+        .reversed();
+
     private final MessagePersistenceService persistenceService;
     private final ReadReceiptService readReceiptService;
+    private final RedisCacheService redisCacheService;
 
     /**
      * Get message history for a room
      * GET /api/messages/history/{roomId}?limit=50
+     * GET /api/messages/history/{roomId}?limit=50&cursor={X-Next-Cursor of previous page}
      *
      * Phase 6: Now includes read receipt status for all messages
+     *
+     * Keyset pagination: when a full page is returned, the X-Next-Cursor response
+     * header carries an opaque cursor for the next (older) page.
+     *
+     * Catch-up: GET /api/messages/history/{roomId}?afterSeq=120&limit=50 returns
+     * messages with seq > 120 in ascending seq order (cursor is ignored).
+     *
+     * Newest pages merge the Redis recent-message window (messages not persisted yet)
+     * with PostgreSQL on the same (timestamp DESC, messageId DESC) keyset, so pages
+     * neither skip nor repeat messages whatever their Redis arrival order. Once no
+     * Redis message is left below the cursor, pages come from PostgreSQL (and the archive) only.
      */
     @GetMapping("/history/{roomId}")
     public ResponseEntity<List<MessageResponse>> getMessageHistory(
         @PathVariable String roomId,
-        @RequestParam(defaultValue = "50") int limit
+        @RequestParam(defaultValue = "50") int limit,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Long afterSeq
     ) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        HistoryCursor position = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                position = HistoryCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                log.debug("Rejected invalid history cursor for room: {}", roomId);
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
         try {
-            log.debug("Fetching message history for room: {}, limit: {}", roomId, limit);
+            log.debug("Fetching message history for room: {}, limit: {}, cursor: {}", roomId, pageSize, position);
 
-            List<ChatMessageEntity> entities = persistenceService.getMessageHistory(roomId, limit);
+            List<MessageHistoryRow> rows;
+            boolean recentRemaining = false;
+            if (afterSeq != null) {
+                rows = persistenceService.getMessagesAfterSeq(roomId, afterSeq, pageSize);
+            } else if (position == null || position.isRecent()) {
+                List<MessageHistoryRow> recent = recentBefore(roomId, position);
+                rows = mergeWithPersisted(roomId, recent, position, pageSize);
+                Set<UUID> returned = rows.stream().map(MessageHistoryRow::messageId).collect(Collectors.toSet());
+                recentRemaining = recent.stream().anyMatch(row -> !returned.contains(row.messageId()));
+            } else {
+                rows = persistenceService.getMessageHistoryBefore(
+                    roomId, position.getTimestamp(), position.getMessageId(), pageSize);
+            }
 
             // Get message IDs for batch read status query
-            List<UUID> messageIds = entities.stream()
-                .map(ChatMessageEntity::getMessageId)
+            List<UUID> messageIds = rows.stream()
+                .map(MessageHistoryRow::messageId)
                 .collect(Collectors.toList());
 
-            // Batch fetch read status for all messages (Phase 6)
-            Map<UUID, Set<String>> readStatusMap = readReceiptService.getReadStatusForMessages(messageIds);
+            // Batch fetch read status for all messages (Phase 6): one scan of the room's read watermarks
+            Map<UUID, Long> seqByMessageId = new HashMap<>();
+            rows.forEach(row -> seqByMessageId.put(row.messageId(), row.seq()));
+            Map<UUID, Set<String>> readStatusMap = readReceiptService.getReadStatusForRoomMessages(roomId, seqByMessageId);
+
+            // Batch fetch materialized reaction counts
+            Map<UUID, Map<String, Integer>> reactionCounts = persistenceService.getReactionCounts(messageIds);
 
-            // Convert entities to responses with read status
-            List<MessageResponse> messages = entities.stream()
-                .map(entity -> entityToResponse(entity, readStatusMap.get(entity.getMessageId())))
+            // Convert rows to responses with read status and reaction counts
+            List<MessageResponse> messages = rows.stream()
+                .map(row -> toResponse(row, readStatusMap.get(row.messageId()), reactionCounts.get(row.messageId())))
                 .collect(Collectors.toList());
 
             log.debug("Retrieved {} messages for room: {} with read status", messages.size(), roomId);
 
-            return ResponseEntity.ok(messages);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (afterSeq == null && rows.size() == pageSize) {
+                MessageHistoryRow last = rows.get(rows.size() - 1);
+                response.header(NEXT_CURSOR_HEADER,
+                    new HistoryCursor(last.timestamp(), last.messageId(), recentRemaining).encode());
+            }
+            return response.body(messages);
         } catch (Exception e) {
             log.error("Error fetching message history for room: {}", roomId, e);
             return ResponseEntity.internalServerError().build();
@@ -65,20 +138,145 @@ public class MessageHistoryController {
     }
 
     /**
-     * Convert ChatMessageEntity to MessageResponse DTO
+     * Full-text search in a room's history
+     * GET /api/messages/search/{roomId}?q=deploy%20failed&limit=20
+     * GET /api/messages/search/{roomId}?q=...&cursor={X-Next-Cursor of previous page}
+     *
+     * Hits are ranked by relevance (newest first on ties) and carry an HTML-escaped
+     * snippet with matches wrapped in <mark>. Pagination works like history:
+     * a full page sets the X-Next-Cursor header.
+     */
+    @GetMapping("/search/{roomId}")
+    public ResponseEntity<List<MessageSearchHit>> searchMessages(
+        @PathVariable String roomId,
+        @RequestParam("q") String query,
+        @RequestParam(defaultValue = "20") int limit,
+        @RequestParam(required = false) String cursor
+    ) {
+        if (query.isBlank() || query.length() > MAX_QUERY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        SearchCursor position = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                position = SearchCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                log.debug("Rejected invalid search cursor for room: {}", roomId);
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        try {
+            List<MessageSearchHit> hits = persistenceService.searchMessages(roomId, query, position, pageSize);
+            log.debug("Search in room: {} returned {} hits", roomId, hits.size());
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (hits.size() == pageSize) {
+                response.header(NEXT_CURSOR_HEADER, SearchCursor.after(hits.get(hits.size() - 1)).encode());
+            }
+            return response.body(hits);
+        } catch (Exception e) {
+            log.error("Error searching messages in room: {}", roomId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Batch reaction lookup for a rendered message list
+     * POST /api/messages/reactions
+     * Body: ["messageId1", "messageId2", ...] (at most 200)
      *
-     * @param entity ChatMessageEntity from database
+     * Returns messageId -> reactions (emoji -> user IDs) for the messages that have
+     * any; the lookup is pipelined, so cost does not grow in round trips per message.
+     */
+    @PostMapping("/reactions")
+    public ResponseEntity<Map<UUID, ReactionSummary>> getReactionsForMessages(@RequestBody List<UUID> messageIds) {
+        if (messageIds == null || messageIds.size() > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(redisCacheService.getReactionsForMessages(messageIds));
+        } catch (Exception e) {
+            log.error("Error fetching reactions for {} messages", messageIds.size(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Messages of the Redis recent-message window strictly below a cursor, newest first
+     */
+    private List<MessageHistoryRow> recentBefore(String roomId, HistoryCursor position) {
+        RecentMessagePage recent = redisCacheService.getRecentMessagesBefore(roomId, null, MAX_PAGE_SIZE);
+
+        // Cursor position as a row, so it compares in the same keyset order
+        MessageHistoryRow bound = position != null
+            ? new MessageHistoryRow(position.getMessageId(), roomId, null, null, null, position.getTimestamp(), null)
+            : null;
+
+        List<MessageHistoryRow> rows = new ArrayList<>(recent.messages().size());
+        for (ChatMessage message : recent.messages()) {
+            if (message.getMessageId() == null || message.getTimestamp() == null) {
+                continue;
+            }
+            MessageHistoryRow row = new MessageHistoryRow(message.getMessageId(), roomId, message.getUserId(),
+                message.getUsername(), message.getContent(), message.getTimestamp(), message.getSeq());
+            if (bound == null || NEWEST_FIRST.compare(row, bound) > 0) {
+                rows.add(row);
+            }
+        }
+        rows.sort(NEWEST_FIRST);
+        return rows;
+    }
+
+    /**
+     * Newest pageSize messages below the cursor across Redis and PostgreSQL
+     * - Both sources are cut at the same keyset position and merged in keyset order;
+     *   messages present in both are returned once
+     */
+    private List<MessageHistoryRow> mergeWithPersisted(
+        String roomId, List<MessageHistoryRow> recent, HistoryCursor position, int pageSize
+    ) {
+        List<MessageHistoryRow> persisted = position == null
+            ? persistenceService.getMessageHistory(roomId, pageSize)
+            : persistenceService.getMessageHistoryBefore(roomId, position.getTimestamp(), position.getMessageId(), pageSize);
+        if (recent.isEmpty()) {
+            return persisted;
+        }
+
+        Map<UUID, MessageHistoryRow> byId = new HashMap<>();
+        persisted.forEach(row -> byId.put(row.messageId(), row));
+        recent.forEach(row -> byId.putIfAbsent(row.messageId(), row));
+
+        return byId.values().stream()
+            .sorted(NEWEST_FIRST)
+            .limit(pageSize)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Convert MessageHistoryRow to MessageResponse DTO
+     *
+     * @param row MessageHistoryRow from database
      * @param readBy Set of user IDs who read this message (can be null)
-     * @return MessageResponse DTO with read status
+     * @param reactionCounts Emoji -> count for this message (can be null)
+     * @return MessageResponse DTO with read status and reaction counts
      */
-    private MessageResponse entityToResponse(ChatMessageEntity entity, Set<String> readBy) {
+    private MessageResponse toResponse(
+        MessageHistoryRow row, Set<String> readBy, Map<String, Integer> reactionCounts
+    ) {
         return MessageResponse.builder()
-            .messageId(entity.getMessageId())
-            .roomId(entity.getRoomId())
-            .userId(entity.getUserId())
-            .username(entity.getUsername())
-            .content(entity.getContent())
-            .timestamp(entity.getTimestamp())
+            .messageId(row.messageId())
+            .roomId(row.roomId())
+            .userId(row.userId())
+            .username(row.username())
+            .content(row.content())
+            .timestamp(row.timestamp())
+            .seq(row.seq())
+            .reactionCounts(reactionCounts != null ? reactionCounts : Collections.emptyMap())
             .readBy(readBy != null ? readBy : Collections.emptySet())
             .readCount(readBy != null ? readBy.size() : 0)
             .build();
@@ -0,0 +1,25 @@
+package com.example.chat.controller;
+
+import com.example.chat.dto.RedisBreakerStatus;
+import com.example.chat.service.RedisCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the Redis circuit breaker
+ * - GET /actuator/redis -> breaker state, fallbacks and pending reconciliation of this node
+ */
+@Component
+@Endpoint(id = "redis")
+@RequiredArgsConstructor
+public class RedisBreakerEndpoint {
+
+    private final RedisCacheService redisCacheService;
+
+    @ReadOperation
+    public RedisBreakerStatus status() {
+        return redisCacheService.getBreakerStatus();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.chat.controller;
+
+import com.example.chat.dto.RetentionStatus;
+import com.example.chat.service.RetentionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the retention engine
+ * - GET  /actuator/retention          -> progress snapshot
+ * - POST /actuator/retention/pause    -> pause before the next chunk
+ * - POST /actuator/retention/resume   -> resume a paused pass
+ */
+@Component
+@Endpoint(id = "retention")
+@RequiredArgsConstructor
+public class RetentionEndpoint {
+
+    private final RetentionService retentionService;
+
+    @ReadOperation
+    public RetentionStatus status() {
+        return retentionService.getStatus();
+    }
+
+    @WriteOperation
+    public RetentionStatus control(@Selector String action) {
+        switch (action) {
+            case "pause" -> retentionService.pause();
+            case "resume" -> retentionService.resume();
+            default -> throw new IllegalArgumentException("Unknown retention action: " + action);
+        }
+        return retentionService.getStatus();
+    }
+}
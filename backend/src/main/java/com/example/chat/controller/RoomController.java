@@ -0,0 +1,56 @@
+package com.example.chat.controller;
+
+import com.example.chat.dto.RoomInfo;
+import com.example.chat.service.RoomService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for Room Information
+ * Serves room details and room lists from room_stats (no per-request counting)
+ */
+@RestController
+@RequestMapping("/api/rooms")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class RoomController {
+
+    private static final int MAX_ROOMS = 100;
+
+    private final RoomService roomService;
+
+    /**
+     * Most recently active rooms
+     * GET /api/rooms?limit=20
+     */
+    @GetMapping
+    public ResponseEntity<List<RoomInfo>> getActiveRooms(@RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(roomService.getActiveRooms(Math.min(Math.max(limit, 1), MAX_ROOMS)));
+        } catch (Exception e) {
+            log.error("Error fetching active rooms", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Room details and statistics
+     * GET /api/rooms/{roomId}
+     */
+    @GetMapping("/{roomId}")
+    public ResponseEntity<RoomInfo> getRoomInfo(@PathVariable String roomId) {
+        try {
+            return ResponseEntity.ok(roomService.getRoomInfo(roomId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error fetching room info: {}", roomId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -79,6 +79,12 @@ public class ChatMessage {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime timestamp;
 
+    /**
+     * Per-room sequence number (assigned on server at ingest)
+     * Increasing within a room; null if no sequence could be assigned
+     */
+    private Long seq;
+
     /**
      * Message type: TEXT, JOIN, or LEAVE
      */
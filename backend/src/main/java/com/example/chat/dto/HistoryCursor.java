@@ -0,0 +1,88 @@
+package com.example.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Message History Cursor
+ *
+ * Opaque keyset position in a room's history: (timestamp, messageId) of the
+ * last message on the previous page. The next page contains messages strictly
+ * older than this position in (timestamp DESC, messageId DESC) order.
+ *
+ * A recent cursor means the Redis recent-message window still held messages
+ * older than this position, so the next page merges Redis with PostgreSQL again.
+ *
+ * Wire format: URL-safe Base64 of "{ISO timestamp}|{messageId}" or
+ * "{ISO timestamp}|{messageId}|r" (recent).
+ * Clients must treat the value as opaque.
+ *
+ * @see com.example.chat.controller.MessageHistoryController#getMessageHistory
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class HistoryCursor {
+
+    private static final String SEPARATOR = "|";
+    private static final String RECENT_MARKER = "r";
+
+    private final LocalDateTime timestamp;
+    private final UUID messageId;
+
+    /**
+     * Whether the next page must still consult the Redis recent-message window
+     */
+    private final boolean recent;
+
+    public HistoryCursor(LocalDateTime timestamp, UUID messageId) {
+        this(timestamp, messageId, false);
+    }
+
+    /**
+     * Encode this cursor as an opaque URL-safe string
+     */
+    public String encode() {
+        String raw = timestamp + SEPARATOR + messageId + (recent ? SEPARATOR + RECENT_MARKER : "");
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode an opaque cursor string
+     *
+     * @param cursor Value previously produced by {@link #encode()}
+     * @return Decoded cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static HistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid history cursor");
+            }
+
+            int streamSeparator = raw.indexOf(SEPARATOR, separator + 1);
+            LocalDateTime timestamp = LocalDateTime.parse(raw.substring(0, separator));
+            if (streamSeparator < 0) {
+                return new HistoryCursor(timestamp, UUID.fromString(raw.substring(separator + 1)));
+            }
+            // Any third part (including stream entry IDs of older cursors) means recent
+            UUID messageId = UUID.fromString(raw.substring(separator + 1, streamSeparator));
+            return new HistoryCursor(timestamp, messageId, true);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid history cursor", e);
+        }
+    }
+}
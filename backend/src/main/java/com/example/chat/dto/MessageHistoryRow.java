@@ -0,0 +1,23 @@
+package com.example.chat.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Message History Row
+ *
+ * Immutable read model for message history, selected column-by-column
+ * from chat_messages (no entity hydration, no persistence context).
+ *
+ * @see com.example.chat.repository.ChatMessageHistoryRepository
+ */
+public record MessageHistoryRow(
+    UUID messageId,
+    String roomId,
+    String userId,
+    String username,
+    String content,
+    LocalDateTime timestamp,
+    Long seq
+) {
+}
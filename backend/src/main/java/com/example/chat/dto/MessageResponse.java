@@ -59,12 +59,23 @@ public class MessageResponse {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime timestamp;
 
+    /**
+     * Per-room sequence number (null for messages without one)
+     */
+    private Long seq;
+
     /**
      * Reactions on this message (emoji -> list of userIds)
      * Phase 3.2: Reaction feature
      */
     private Map<String, List<String>> reactions;
 
+    /**
+     * Reaction counts on this message (emoji -> count)
+     * Materialized in message_reaction_counts, available for messages of any age
+     */
+    private Map<String, Integer> reactionCounts;
+
     /**
      * List of user IDs who read this message
      * Phase 6: Read receipts
@@ -0,0 +1,29 @@
+package com.example.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Message Search Hit
+ *
+ * One ranked full-text match in a room's history.
+ * - snippet: HTML-escaped excerpt of the content with matches wrapped in &lt;mark&gt;
+ * - rank: ts_rank_cd score, only used to build the next-page cursor
+ *
+ * @see com.example.chat.repository.ChatMessageSearchRepository
+ */
+public record MessageSearchHit(
+    UUID messageId,
+    String roomId,
+    String userId,
+    String username,
+    String snippet,
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime timestamp,
+    @JsonIgnore
+    float rank
+) {
+}
@@ -20,7 +20,7 @@ import java.util.UUID;
  *
  * Data Flow:
  * 1. Client sends read event via WebSocket (/app/chat.read)
- * 2. Backend stores in PostgreSQL (message_read_status table)
+ * 2. Backend advances the user's read watermark in PostgreSQL (room_read_watermarks table)
  * 3. Backend caches in Redis (last read position)
  * 4. Backend broadcasts to all room subscribers
  * 5. Frontend updates UI (✓ → ✓✓)
@@ -28,7 +28,8 @@ import java.util.UUID;
  * Performance:
  * - Client debounces read events (1 second)
  * - Redis caching reduces DB queries
- * - Duplicate reads are ignored (unique constraint)
+ * - Duplicate and stale reads are ignored (watermark only moves forward)
+ * - Reading a message implies reading all earlier messages of the room (by seq)
  *
  * @see com.example.chat.controller.ChatWebSocketController#handleReadReceipt(ReadReceiptDTO)
  * @see com.example.chat.service.ReadReceiptService
@@ -58,6 +59,14 @@ public class ReadReceiptDTO {
     @JsonProperty("messageId")
     private UUID messageId;
 
+    /**
+     * Per-room sequence number of the message that was read
+     * - From clients: a hint, checked against the persisted message's seq, or against
+     *   the room's issued numbers while the message is not persisted yet
+     * - On broadcasts: always set; every message up to this seq is read by userId
+     */
+    private Long seq;
+
     /**
      * Timestamp when the message was read (client time)
      * Server will override with server time for accuracy
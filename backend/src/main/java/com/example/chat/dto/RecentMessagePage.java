@@ -0,0 +1,21 @@
+package com.example.chat.dto;
+
+import java.util.List;
+
+/**
+ * One page of recent messages served from Redis
+ *
+ * @param messages Messages, newest first
+ * @param oldestEntryId Redis Stream entry ID of the oldest message on the page,
+ *                      the exclusive upper bound of the next page (null if the
+ *                      backend cannot page further)
+ */
+public record RecentMessagePage(
+    List<ChatMessage> messages,
+    String oldestEntryId
+) {
+
+    public static RecentMessagePage empty() {
+        return new RecentMessagePage(List.of(), null);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Redis Breaker Status DTO
+ *
+ * Snapshot of the Redis circuit breaker and the node-local degraded state.
+ * - Exposed via the "redis" actuator endpoint
+ *
+ * @see com.example.chat.service.RedisCacheService#getBreakerStatus()
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RedisBreakerStatus {
+
+    /**
+     * Breaker state (CLOSED, OPEN, HALF_OPEN)
+     */
+    private String state;
+
+    /**
+     * Time of the last state change
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime stateChangedAt;
+
+    /**
+     * Bad-call (error or slow) rate of the current sliding window
+     */
+    private double failureRate;
+
+    /**
+     * Calls served from a fallback since startup
+     */
+    private long fallbacks;
+
+    /**
+     * Messages queued for replay into Redis
+     */
+    private long pendingMessages;
+
+    /**
+     * Rooms with queued messages or presence changes
+     */
+    private int pendingRooms;
+}
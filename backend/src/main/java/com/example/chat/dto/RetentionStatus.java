@@ -0,0 +1,57 @@
+package com.example.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Retention Status DTO
+ *
+ * Progress snapshot of the retention engine.
+ * - Exposed via the "retention" actuator endpoint
+ *
+ * @see com.example.chat.service.RetentionService#getStatus()
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RetentionStatus {
+
+    /**
+     * Whether a retention run is in progress
+     */
+    private boolean running;
+
+    /**
+     * Whether the engine is paused (a running job waits between chunks)
+     */
+    private boolean paused;
+
+    /**
+     * Table currently being processed (null when idle)
+     */
+    private String currentTable;
+
+    /**
+     * Rows deleted per table during the current (or last) run
+     */
+    private Map<String, Long> rowsDeleted;
+
+    /**
+     * Start time of the current (or last) run
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastRunStartedAt;
+
+    /**
+     * Finish time of the last completed run
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastRunFinishedAt;
+}
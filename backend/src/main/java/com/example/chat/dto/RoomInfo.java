@@ -10,15 +10,17 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * Room Information DTO
  *
  * Represents chat room metadata and statistics.
  * - Used for room listing and room details API
- * - Cached in Redis: room:{roomId}:info
+ * - Statistics come from room_stats (maintained on message persist)
+ * - userCount comes from Redis presence
  *
- * @see com.example.chat.service.ChatService#getRoomInfo(String)
+ * @see com.example.chat.service.RoomService#getRoomInfo(String)
  */
 @Data
 @AllArgsConstructor
@@ -51,4 +53,29 @@ public class RoomInfo {
     @NotNull(message = "createdAt cannot be null")
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime createdAt;
+
+    /**
+     * Total number of persisted messages
+     */
+    private Long messageCount;
+
+    /**
+     * Number of distinct users who have sent a message
+     */
+    private Long uniqueSenders;
+
+    /**
+     * Most recent message (null if the room has no messages)
+     */
+    private UUID lastMessageId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastMessageAt;
+
+    private String lastSenderId;
+
+    /**
+     * First 200 characters of the most recent message
+     */
+    private String lastMessagePreview;
 }
@@ -0,0 +1,24 @@
+package com.example.chat.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Room Stats
+ *
+ * Read model of one chat_rooms row joined with its room_stats row.
+ * Statistics fields are zero/null for rooms without persisted messages.
+ *
+ * @see com.example.chat.repository.RoomStatsRepository
+ */
+public record RoomStats(
+    String roomId,
+    LocalDateTime createdAt,
+    long messageCount,
+    long uniqueSenders,
+    UUID lastMessageId,
+    LocalDateTime lastMessageAt,
+    String lastSenderId,
+    String lastMessagePreview
+) {
+}
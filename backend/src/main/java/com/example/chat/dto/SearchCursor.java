@@ -0,0 +1,78 @@
+package com.example.chat.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Message Search Cursor
+ *
+ * Opaque keyset position in a ranked result list: (rank, timestamp, messageId)
+ * of the last hit on the previous page. The next page contains hits strictly
+ * after this position in (rank DESC, timestamp DESC, messageId DESC) order.
+ *
+ * Wire format: URL-safe Base64 of "{rank float bits}|{ISO timestamp}|{messageId}".
+ * The rank is carried as raw float bits so the comparison in SQL is exact.
+ *
+ * @see com.example.chat.controller.MessageHistoryController#searchMessages
+ */
+@Getter
+@RequiredArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class SearchCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final float rank;
+    private final LocalDateTime timestamp;
+    private final UUID messageId;
+
+    /**
+     * Cursor positioned after a hit
+     */
+    public static SearchCursor after(MessageSearchHit hit) {
+        return new SearchCursor(hit.rank(), hit.timestamp(), hit.messageId());
+    }
+
+    /**
+     * Encode this cursor as an opaque URL-safe string
+     */
+    public String encode() {
+        String raw = Integer.toHexString(Float.floatToIntBits(rank)) + SEPARATOR + timestamp + SEPARATOR + messageId;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode an opaque cursor string
+     *
+     * @param cursor Value previously produced by {@link #encode()}
+     * @return Decoded cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static SearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+
+            float rank = Float.intBitsToFloat(Integer.parseUnsignedInt(parts[0], 16));
+            LocalDateTime timestamp = LocalDateTime.parse(parts[1]);
+            UUID messageId = UUID.fromString(parts[2]);
+            return new SearchCursor(rank, timestamp, messageId);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+}
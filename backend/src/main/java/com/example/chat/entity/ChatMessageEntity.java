@@ -1,5 +1,6 @@
 package com.example.chat.entity;
 
+import com.example.chat.util.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -36,6 +37,9 @@ public class ChatMessageEntity {
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
 
+    @Column(name = "seq")
+    private Long seq;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -46,7 +50,7 @@ public class ChatMessageEntity {
     @PrePersist
     protected void onCreate() {
         if (messageId == null) {
-            messageId = UUID.randomUUID();
+            messageId = TimeOrderedUuid.next();
         }
         createdAt = LocalDateTime.now();
     }
@@ -1,5 +1,6 @@
 package com.example.chat.entity;
 
+import com.example.chat.util.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,8 +11,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "message_reactions",
-    uniqueConstraints = @UniqueConstraint(columnNames = {"message_id", "user_id", "emoji"}))
+@Table(name = "message_reactions")
 @Data
 @Builder
 @NoArgsConstructor
@@ -50,7 +50,7 @@ public class MessageReactionEntity {
     @PrePersist
     protected void onCreate() {
         if (reactionId == null) {
-            reactionId = UUID.randomUUID();
+            reactionId = TimeOrderedUuid.next();
         }
         createdAt = LocalDateTime.now();
     }
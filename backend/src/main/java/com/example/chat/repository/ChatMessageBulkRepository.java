@@ -0,0 +1,217 @@
+package com.example.chat.repository;
+
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.MessageHistoryRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk writer for chat_messages using PostgreSQL binary COPY
+ * (plus batched primary-key deletes for archived rows)
+ *
+ * Write path:
+ * 1. COPY ... FROM STDIN (FORMAT BINARY) into a session-local staging table
+ * 2. INSERT staged rows into chat_messages (ON CONFLICT DO NOTHING)
+ * 3. Record the rows that were actually inserted in chat_messages_inserted, for
+ *    {@link RoomStatsRepository#applyInsertedBatch()} in the same transaction
+ *
+ * Both temp tables are created once per connection with ON COMMIT DELETE ROWS,
+ * so it is emptied at the end of every transaction and never shared across sessions.
+ * Redelivered Kafka records are absorbed by the conflict clause instead of failing the batch.
+ *
+ * Must be called inside a transaction (uses the transaction-bound connection),
+ * after the rooms of all messages have been ensured.
+ */
+@Repository
+@Slf4j
+@RequiredArgsConstructor
+public class ChatMessageBulkRepository {
+
+    private static final String STAGING_TABLE = "chat_messages_staging";
+
+    private static final String MESSAGE_COLUMNS =
+        "message_id, room_id, user_id, username, content, timestamp, seq, created_at";
+
+    private static final String CREATE_STAGING_SQL =
+        "CREATE TEMP TABLE IF NOT EXISTS " + STAGING_TABLE +
+        " (LIKE chat_messages INCLUDING DEFAULTS) ON COMMIT DELETE ROWS";
+
+    private static final String CREATE_INSERTED_SQL =
+        "CREATE TEMP TABLE IF NOT EXISTS " + RoomStatsRepository.INSERTED_TABLE +
+        " (message_id UUID, room_id VARCHAR(255), user_id VARCHAR(255), content TEXT, timestamp TIMESTAMP)" +
+        " ON COMMIT DELETE ROWS";
+
+    private static final String COPY_SQL =
+        "COPY " + STAGING_TABLE + " (" + MESSAGE_COLUMNS + ") FROM STDIN (FORMAT BINARY)";
+
+    private static final String INSERT_MESSAGES_SQL =
+        "WITH inserted AS (" +
+        "  INSERT INTO chat_messages (" + MESSAGE_COLUMNS + ") " +
+        "  SELECT " + MESSAGE_COLUMNS + " FROM " + STAGING_TABLE + " " +
+        "  ON CONFLICT (message_id, timestamp) DO NOTHING" +
+        "  RETURNING message_id, room_id, user_id, content, timestamp" +
+        ") " +
+        "INSERT INTO " + RoomStatsRepository.INSERTED_TABLE + " SELECT * FROM inserted";
+
+    private static final String DELETE_BY_KEY_SQL =
+        "DELETE FROM chat_messages WHERE message_id = ? AND timestamp = ?";
+
+    // PGCOPY binary header: signature, flags field, header extension length
+    private static final byte[] COPY_SIGNATURE =
+        {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    // PostgreSQL timestamps are microseconds since 2000-01-01 00:00:00
+    private static final LocalDateTime PG_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private static final short COLUMN_COUNT = 8;
+
+    private final DataSource dataSource;
+
+    /**
+     * Insert a batch of messages with binary COPY
+     *
+     * @param messages Messages to insert
+     * @return Number of rows actually inserted (duplicates are skipped)
+     */
+    public int copyInsert(List<ChatMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return 0;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_SQL);
+                statement.execute(CREATE_INSERTED_SQL);
+            }
+
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            LocalDateTime createdAt = LocalDateTime.now();
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new PGCopyOutputStream(pgConnection, COPY_SQL), 65536))) {
+                writeHeader(out);
+                for (ChatMessage message : messages) {
+                    writeRow(out, message, createdAt);
+                }
+                out.writeShort(-1);
+            }
+
+            int inserted;
+            try (Statement statement = connection.createStatement()) {
+                inserted = statement.executeUpdate(INSERT_MESSAGES_SQL);
+            }
+
+            log.debug("Bulk inserted {} of {} messages via COPY", inserted, messages.size());
+            return inserted;
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Failed to bulk insert messages", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Delete exactly the given rows by primary key (message_id, timestamp)
+     *
+     * @param keys Rows to delete
+     * @return Number of rows deleted
+     */
+    public int deleteByKeys(List<MessageHistoryRow> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return 0;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_BY_KEY_SQL)) {
+            for (MessageHistoryRow key : keys) {
+                statement.setObject(1, key.messageId());
+                statement.setObject(2, key.timestamp());
+                statement.addBatch();
+            }
+            int deleted = 0;
+            for (int count : statement.executeBatch()) {
+                deleted += Math.max(count, 0);
+            }
+            return deleted;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to delete messages", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void writeHeader(DataOutputStream out) throws IOException {
+        out.write(COPY_SIGNATURE);
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    private void writeRow(DataOutputStream out, ChatMessage message, LocalDateTime createdAt) throws IOException {
+        out.writeShort(COLUMN_COUNT);
+        writeUuid(out, message.getMessageId());
+        writeText(out, message.getRoomId());
+        writeText(out, message.getUserId());
+        writeText(out, message.getUsername());
+        writeText(out, message.getContent());
+        writeTimestamp(out, message.getTimestamp());
+        writeBigint(out, message.getSeq());
+        writeTimestamp(out, createdAt);
+    }
+
+    private void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(16);
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    private void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeBigint(DataOutputStream out, Long value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    private void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, value));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.chat.repository;
+
+import com.example.chat.dto.MessageHistoryRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read-only history queries for chat_messages
+ *
+ * Selects only the columns needed for history responses and maps them straight
+ * into {@link MessageHistoryRow} records. Unlike ChatMessageRepository, nothing
+ * is attached to a persistence context: no entity instances, no lazy chatRoom
+ * proxies, no dirty checking.
+ *
+ * All pages are ordered by (timestamp DESC, message_id DESC), matching
+ * idx_messages_room_timestamp.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatMessageHistoryRepository {
+
+    private static final String COLUMNS =
+        "SELECT message_id, room_id, user_id, username, content, timestamp, seq FROM chat_messages ";
+
+    private static final String ORDER_AND_LIMIT =
+        "ORDER BY timestamp DESC, message_id DESC LIMIT ?";
+
+    private static final String LATEST_SQL =
+        COLUMNS + "WHERE room_id = ? " + ORDER_AND_LIMIT;
+
+    private static final String BEFORE_TIMESTAMP_SQL =
+        COLUMNS + "WHERE room_id = ? AND timestamp < ? " + ORDER_AND_LIMIT;
+
+    private static final String BEFORE_CURSOR_SQL =
+        COLUMNS + "WHERE room_id = ? AND (timestamp, message_id) < (?, ?) " + ORDER_AND_LIMIT;
+
+    private static final String AFTER_SEQ_SQL =
+        COLUMNS + "WHERE room_id = ? AND seq > ? ORDER BY seq LIMIT ?";
+
+    private static final String SEQ_SQL =
+        "SELECT seq FROM chat_messages WHERE message_id = ? AND room_id = ? AND seq IS NOT NULL";
+
+    private static final String ROOM_DAY_SQL =
+        COLUMNS + "WHERE room_id = ? AND timestamp >= ? AND timestamp < ? ORDER BY timestamp DESC, message_id DESC";
+
+    private static final String COLD_ROOM_DAYS_SQL =
+        "SELECT DISTINCT room_id, CAST(date_trunc('day', timestamp) AS DATE) AS day " +
+        "FROM chat_messages WHERE timestamp < ? ORDER BY day LIMIT ?";
+
+    private static final RowMapper<MessageHistoryRow> ROW_MAPPER = (rs, rowNum) -> new MessageHistoryRow(
+        rs.getObject("message_id", UUID.class),
+        rs.getString("room_id"),
+        rs.getString("user_id"),
+        rs.getString("username"),
+        rs.getString("content"),
+        rs.getObject("timestamp", LocalDateTime.class),
+        rs.getObject("seq", Long.class)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Newest messages of a room
+     */
+    public List<MessageHistoryRow> findLatest(String roomId, int limit) {
+        return jdbcTemplate.query(LATEST_SQL, ROW_MAPPER, roomId, limit);
+    }
+
+    /**
+     * Messages of a room strictly older than a timestamp
+     */
+    public List<MessageHistoryRow> findBefore(String roomId, LocalDateTime before, int limit) {
+        return jdbcTemplate.query(BEFORE_TIMESTAMP_SQL, ROW_MAPPER, roomId, before, limit);
+    }
+
+    /**
+     * Messages of a room strictly older than a (timestamp, messageId) keyset position
+     */
+    public List<MessageHistoryRow> findBefore(String roomId, LocalDateTime before, UUID beforeMessageId, int limit) {
+        return jdbcTemplate.query(BEFORE_CURSOR_SQL, ROW_MAPPER, roomId, before, beforeMessageId, limit);
+    }
+
+    /**
+     * Messages of a room with a sequence number greater than afterSeq, in sequence order
+     * - Served by idx_messages_room_seq
+     */
+    public List<MessageHistoryRow> findAfterSeq(String roomId, long afterSeq, int limit) {
+        return jdbcTemplate.query(AFTER_SEQ_SQL, ROW_MAPPER, roomId, afterSeq, limit);
+    }
+
+    /**
+     * Sequence number of a persisted message (empty if not persisted yet or without seq)
+     */
+    public Optional<Long> findSeq(UUID messageId, String roomId) {
+        return jdbcTemplate.query(SEQ_SQL, (rs, rowNum) -> rs.getLong("seq"), messageId, roomId)
+            .stream().findFirst();
+    }
+
+    /**
+     * All messages of one room-day, newest first
+     */
+    public List<MessageHistoryRow> findRoomDay(String roomId, LocalDate day) {
+        return jdbcTemplate.query(ROOM_DAY_SQL, ROW_MAPPER,
+            roomId, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Distinct (roomId, day) pairs with messages older than a cutoff, oldest day first
+     */
+    public List<RoomDay> findRoomDaysBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.query(COLD_ROOM_DAYS_SQL,
+            (rs, rowNum) -> new RoomDay(rs.getString("room_id"), rs.getObject("day", LocalDate.class)),
+            cutoff, limit);
+    }
+
+    /**
+     * One room's messages of one calendar day
+     */
+    public record RoomDay(String roomId, LocalDate day) {
+    }
+}
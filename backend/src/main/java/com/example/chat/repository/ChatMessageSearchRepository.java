@@ -0,0 +1,94 @@
+package com.example.chat.repository;
+
+import com.example.chat.dto.MessageSearchHit;
+import com.example.chat.dto.SearchCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Full-text search over chat_messages.content_tsv (V5)
+ *
+ * - Query syntax: websearch_to_tsquery ("quoted phrases", OR, -exclusion)
+ * - Ranking: ts_rank_cd, ties broken by (timestamp DESC, message_id DESC)
+ * - Pagination: keyset on (rank, timestamp, message_id), see {@link SearchCursor}
+ * - Snippets: ts_headline is only computed for the rows of the returned page
+ *
+ * Messages already moved to the cold-history archive are not searchable.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatMessageSearchRepository {
+
+    private static final String MARK_OPEN = "<mark>";
+    private static final String MARK_CLOSE = "</mark>";
+
+    private static final String HEADLINE_OPTIONS =
+        "StartSel=" + MARK_OPEN + ", StopSel=" + MARK_CLOSE + ", MaxWords=24, MinWords=8, MaxFragments=2";
+
+    private static final String HITS_SQL =
+        "SELECT m.message_id, m.room_id, m.user_id, m.username, m.content, m.timestamp, " +
+        "       ts_rank_cd(m.content_tsv, q.query) AS rank, q.query " +
+        "FROM chat_messages m, websearch_to_tsquery('simple', ?) AS q(query) " +
+        "WHERE m.room_id = ? AND m.content_tsv @@ q.query ";
+
+    private static final String PAGE_SQL =
+        "ORDER BY rank DESC, timestamp DESC, message_id DESC LIMIT ?";
+
+    private static final String SELECT_WITH_HEADLINE =
+        "SELECT message_id, room_id, user_id, username, timestamp, rank, " +
+        "       ts_headline('simple', content, query, '" + HEADLINE_OPTIONS + "') AS snippet " +
+        "FROM (SELECT * FROM (" + HITS_SQL + ") hits ";
+
+    private static final String FIRST_PAGE_SQL =
+        SELECT_WITH_HEADLINE + PAGE_SQL + ") page " +
+        "ORDER BY rank DESC, timestamp DESC, message_id DESC";
+
+    private static final String NEXT_PAGE_SQL =
+        SELECT_WITH_HEADLINE +
+        "WHERE (rank, timestamp, message_id) < (CAST(? AS REAL), ?, ?) " + PAGE_SQL + ") page " +
+        "ORDER BY rank DESC, timestamp DESC, message_id DESC";
+
+    private static final RowMapper<MessageSearchHit> ROW_MAPPER = (rs, rowNum) -> new MessageSearchHit(
+        rs.getObject("message_id", UUID.class),
+        rs.getString("room_id"),
+        rs.getString("user_id"),
+        rs.getString("username"),
+        escapeSnippet(rs.getString("snippet")),
+        rs.getObject("timestamp", LocalDateTime.class),
+        rs.getFloat("rank")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ranked hits of a room, first page or the page after a cursor
+     *
+     * @param roomId Room ID
+     * @param query User search query (websearch syntax)
+     * @param after Position of the last hit of the previous page, or null for the first page
+     * @param limit Maximum hits to return
+     */
+    public List<MessageSearchHit> search(String roomId, String query, SearchCursor after, int limit) {
+        if (after == null) {
+            return jdbcTemplate.query(FIRST_PAGE_SQL, ROW_MAPPER, query, roomId, limit);
+        }
+        return jdbcTemplate.query(NEXT_PAGE_SQL, ROW_MAPPER,
+            query, roomId, after.getRank(), after.getTimestamp(), after.getMessageId(), limit);
+    }
+
+    /**
+     * ts_headline returns raw content: escape it, then restore only the highlight markers
+     */
+    private static String escapeSnippet(String snippet) {
+        return HtmlUtils.htmlEscape(snippet)
+            .replace(HtmlUtils.htmlEscape(MARK_OPEN), MARK_OPEN)
+            .replace(HtmlUtils.htmlEscape(MARK_CLOSE), MARK_CLOSE);
+    }
+}
@@ -2,8 +2,24 @@ package com.example.chat.repository;
 
 import com.example.chat.entity.ChatRoomEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ChatRoomRepository extends JpaRepository<ChatRoomEntity, String> {
+
+    /**
+     * Create a room if it does not exist yet
+     * Safe against concurrent creation of the same room by multiple consumers
+     *
+     * @return 1 if the room was created, 0 if it already existed
+     */
+    @Modifying
+    @Query(value = "INSERT INTO chat_rooms (room_id, created_at, updated_at) " +
+                   "VALUES (:roomId, LOCALTIMESTAMP, LOCALTIMESTAMP) " +
+                   "ON CONFLICT (room_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("roomId") String roomId);
 }
@@ -0,0 +1,396 @@
+package com.example.chat.repository;
+
+import com.example.chat.dto.MessageHistoryRow;
+import com.github.luben.zstd.Zstd;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * File-based store for cold message history
+ *
+ * Layout: {chat.archive.directory}/{base64url(roomId)}/{yyyy-MM-dd}.seg
+ * One immutable segment per room-day, replaced atomically when rewritten.
+ *
+ * Segment format (all integers big-endian):
+ * - Blocks: zstd-compressed runs of up to BLOCK_RECORDS records,
+ *   sorted by (timestamp DESC, messageId DESC) across the whole segment
+ * - Sparse index: one entry per block
+ *   (offset, compressedLength, rawLength, recordCount, oldest timestamp micros, oldest messageId)
+ * - Footer: magic, version, index offset, block count
+ *
+ * Record: messageId (16 bytes), timestamp (epoch micros), userId, username, content
+ * (each string as int length + UTF-8), then since version 2 seq (long, -1 = none).
+ * roomId is implied by the directory.
+ *
+ * Reads memory-map the segment, binary-search the sparse index for the first block
+ * that can contain rows older than the cursor, and decompress only the blocks needed.
+ * Message IDs are compared as unsigned bytes, matching PostgreSQL uuid ordering.
+ */
+@Repository
+@Slf4j
+public class MessageArchiveRepository {
+
+    private static final int MAGIC = 0x43484152; // "CHAR"
+    private static final int VERSION = 2;
+    private static final long NO_SEQ = -1L;
+    private static final int BLOCK_RECORDS = 256;
+    private static final int FOOTER_SIZE = 4 + 4 + 8 + 4;
+    private static final int INDEX_ENTRY_SIZE = 8 + 4 + 4 + 4 + 8 + 8 + 8;
+    private static final int COMPRESSION_LEVEL = 6;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final Comparator<MessageHistoryRow> NEWEST_FIRST = (a, b) ->
+        -compareKey(toMicros(a.timestamp()), a.messageId(), toMicros(b.timestamp()), b.messageId());
+
+    private final Path directory;
+
+    public MessageArchiveRepository(@Value("${chat.archive.directory:./data/archive}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Write (or merge into) the segment of one room-day
+     * - Existing rows of the segment are kept; duplicates by messageId are collapsed
+     * - The new segment is written to a temp file, fsynced, then atomically moved into place
+     *
+     * @param roomId Room ID
+     * @param day Day all rows belong to
+     * @param rows Rows to archive
+     */
+    public void writeSegment(String roomId, LocalDate day, List<MessageHistoryRow> rows) {
+        Path segment = segmentPath(roomId, day);
+
+        try {
+            Map<UUID, MessageHistoryRow> merged = new LinkedHashMap<>();
+            if (Files.exists(segment)) {
+                readSegment(segment, roomId, null, Integer.MAX_VALUE)
+                    .forEach(row -> merged.put(row.messageId(), row));
+            }
+            rows.forEach(row -> merged.put(row.messageId(), row));
+
+            List<MessageHistoryRow> sorted = new ArrayList<>(merged.values());
+            sorted.sort(NEWEST_FIRST);
+
+            Files.createDirectories(segment.getParent());
+            Path temp = segment.resolveSibling(segment.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(encodeSegment(sorted)));
+                channel.force(true);
+            }
+            Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            log.debug("Wrote archive segment {} ({} rows)", segment, sorted.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive segment " + segment, e);
+        }
+    }
+
+    /**
+     * Read archived messages strictly older than a position, newest first
+     *
+     * @param roomId Room ID
+     * @param before Upper bound timestamp (exclusive), or null for the newest archived message
+     * @param beforeMessageId Tiebreaker for equal timestamps, or null to exclude the whole timestamp
+     * @param limit Maximum rows to return
+     */
+    public List<MessageHistoryRow> readBefore(String roomId, LocalDateTime before, UUID beforeMessageId, int limit) {
+        List<MessageHistoryRow> result = new ArrayList<>();
+        Path roomDirectory = directory.resolve(encodeRoomId(roomId));
+        if (limit <= 0 || !Files.isDirectory(roomDirectory)) {
+            return result;
+        }
+
+        long cursorMicros = before != null ? toMicros(before) : Long.MAX_VALUE;
+        UUID cursorId = beforeMessageId != null ? beforeMessageId : new UUID(0L, 0L);
+        LocalDate startDay = before != null ? before.toLocalDate() : LocalDate.MAX;
+
+        try {
+            for (LocalDate day : listDaysNewestFirst(roomDirectory)) {
+                if (day.isAfter(startDay)) {
+                    continue;
+                }
+                Cursor cursor = before != null ? new Cursor(cursorMicros, cursorId) : null;
+                result.addAll(readSegment(segmentPath(roomId, day), roomId, cursor, limit - result.size()));
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive for room " + roomId, e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Delete the segments of every room for days before a given day
+     * - Room directories left empty are removed as well
+     *
+     * @param day First day to keep
+     * @return Number of segments deleted
+     */
+    public int deleteSegmentsBefore(LocalDate day) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        int deleted = 0;
+        try (Stream<Path> rooms = Files.list(directory)) {
+            for (Path roomDirectory : rooms.filter(Files::isDirectory).toList()) {
+                for (LocalDate segmentDay : listDaysNewestFirst(roomDirectory)) {
+                    if (segmentDay.isBefore(day)
+                            && Files.deleteIfExists(roomDirectory.resolve(segmentDay + SEGMENT_SUFFIX))) {
+                        deleted++;
+                    }
+                }
+                try (Stream<Path> left = Files.list(roomDirectory)) {
+                    if (left.findAny().isEmpty()) {
+                        Files.deleteIfExists(roomDirectory);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete archive segments before " + day, e);
+        }
+        return deleted;
+    }
+
+    /**
+     * Total size of all segment files in bytes
+     */
+    public long diskUsageBytes() {
+        if (!Files.isDirectory(directory)) {
+            return 0L;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(path -> path.toString().endsWith(SEGMENT_SUFFIX))
+                .mapToLong(path -> path.toFile().length())
+                .sum();
+        } catch (IOException e) {
+            log.warn("Failed to compute archive disk usage: {}", e.getMessage());
+            return 0L;
+        }
+    }
+
+    private List<LocalDate> listDaysNewestFirst(Path roomDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(roomDirectory)) {
+            return files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> LocalDate.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        }
+    }
+
+    private List<MessageHistoryRow> readSegment(Path segment, String roomId, Cursor cursor, int limit)
+        throws IOException {
+        List<MessageHistoryRow> rows = new ArrayList<>();
+        if (!Files.exists(segment)) {
+            return rows;
+        }
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int footer = mapped.capacity() - FOOTER_SIZE;
+            int version = mapped.getInt(footer + 4);
+            if (mapped.getInt(footer) != MAGIC || version < 1 || version > VERSION) {
+                throw new IOException("Not an archive segment: " + segment);
+            }
+            long indexOffset = mapped.getLong(footer + 8);
+            int blockCount = mapped.getInt(footer + 16);
+
+            int block = cursor == null ? 0 : firstBlockOlderThan(mapped, indexOffset, blockCount, cursor);
+            for (; block < blockCount && rows.size() < limit; block++) {
+                int entry = (int) indexOffset + block * INDEX_ENTRY_SIZE;
+                long offset = mapped.getLong(entry);
+                int compressedLength = mapped.getInt(entry + 8);
+                int rawLength = mapped.getInt(entry + 12);
+                int recordCount = mapped.getInt(entry + 16);
+
+                ByteBuffer compressed = mapped.slice((int) offset, compressedLength);
+                ByteBuffer raw = ByteBuffer.allocateDirect(rawLength);
+                Zstd.decompress(raw, compressed);
+                raw.flip();
+
+                for (int i = 0; i < recordCount && rows.size() < limit; i++) {
+                    MessageHistoryRow row = decodeRecord(raw, roomId, version);
+                    if (cursor == null || cursor.isAfter(toMicros(row.timestamp()), row.messageId())) {
+                        rows.add(row);
+                    }
+                }
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Binary search for the first block whose oldest record is older than the cursor.
+     * Blocks are sorted newest first, so "oldest < cursor" is monotonic over the index.
+     */
+    private int firstBlockOlderThan(ByteBuffer mapped, long indexOffset, int blockCount, Cursor cursor) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int entry = (int) indexOffset + mid * INDEX_ENTRY_SIZE;
+            long oldestMicros = mapped.getLong(entry + 20);
+            UUID oldestId = new UUID(mapped.getLong(entry + 28), mapped.getLong(entry + 36));
+            if (cursor.isAfter(oldestMicros, oldestId)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private byte[] encodeSegment(List<MessageHistoryRow> rows) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(index);
+        int blockCount = 0;
+
+        for (int start = 0; start < rows.size(); start += BLOCK_RECORDS) {
+            List<MessageHistoryRow> blockRows = rows.subList(start, Math.min(start + BLOCK_RECORDS, rows.size()));
+
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            DataOutputStream rawOut = new DataOutputStream(raw);
+            for (MessageHistoryRow row : blockRows) {
+                encodeRecord(rawOut, row);
+            }
+            byte[] rawBytes = raw.toByteArray();
+            byte[] compressed = Zstd.compress(rawBytes, COMPRESSION_LEVEL);
+
+            MessageHistoryRow oldest = blockRows.get(blockRows.size() - 1);
+            indexOut.writeLong(file.size());
+            indexOut.writeInt(compressed.length);
+            indexOut.writeInt(rawBytes.length);
+            indexOut.writeInt(blockRows.size());
+            indexOut.writeLong(toMicros(oldest.timestamp()));
+            indexOut.writeLong(oldest.messageId().getMostSignificantBits());
+            indexOut.writeLong(oldest.messageId().getLeastSignificantBits());
+
+            file.write(compressed);
+            blockCount++;
+        }
+
+        long indexOffset = file.size();
+        file.write(index.toByteArray());
+
+        DataOutputStream footer = new DataOutputStream(file);
+        footer.writeInt(MAGIC);
+        footer.writeInt(VERSION);
+        footer.writeLong(indexOffset);
+        footer.writeInt(blockCount);
+        footer.flush();
+
+        return file.toByteArray();
+    }
+
+    private void encodeRecord(DataOutputStream out, MessageHistoryRow row) throws IOException {
+        out.writeLong(row.messageId().getMostSignificantBits());
+        out.writeLong(row.messageId().getLeastSignificantBits());
+        out.writeLong(toMicros(row.timestamp()));
+        writeString(out, row.userId());
+        writeString(out, row.username());
+        writeString(out, row.content());
+        out.writeLong(row.seq() != null ? row.seq() : NO_SEQ);
+    }
+
+    private MessageHistoryRow decodeRecord(ByteBuffer in, String roomId, int version) {
+        UUID messageId = new UUID(in.getLong(), in.getLong());
+        LocalDateTime timestamp = fromMicros(in.getLong());
+        String userId = readString(in);
+        String username = readString(in);
+        String content = readString(in);
+        Long seq = null;
+        if (version >= 2) {
+            long value = in.getLong();
+            seq = value != NO_SEQ ? value : null;
+        }
+        return new MessageHistoryRow(messageId, roomId, userId, username, content, timestamp, seq);
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path segmentPath(String roomId, LocalDate day) {
+        return directory.resolve(encodeRoomId(roomId)).resolve(day + SEGMENT_SUFFIX);
+    }
+
+    // Room IDs are user-controlled; encoding keeps them a single safe path element
+    private static String encodeRoomId(String roomId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(roomId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+            Math.floorDiv(micros, 1_000_000L), (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Compare (timestamp, messageId) keys; IDs compared as unsigned, like PostgreSQL uuid
+     */
+    private static int compareKey(long micros, UUID id, long otherMicros, UUID otherId) {
+        int result = Long.compare(micros, otherMicros);
+        if (result == 0) {
+            result = Long.compareUnsigned(id.getMostSignificantBits(), otherId.getMostSignificantBits());
+        }
+        if (result == 0) {
+            result = Long.compareUnsigned(id.getLeastSignificantBits(), otherId.getLeastSignificantBits());
+        }
+        return result;
+    }
+
+    /**
+     * Exclusive upper bound of a read
+     */
+    private record Cursor(long micros, UUID messageId) {
+
+        boolean isAfter(long otherMicros, UUID otherId) {
+            return compareKey(otherMicros, otherId, micros, messageId) < 0;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.chat.repository;
+
+import com.example.chat.dto.MessageReaction;
+import com.example.chat.util.TimeOrderedUuid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Batched reaction writes (message_reactions + message_reaction_keys; V4)
+ *
+ * Uniqueness of (message_id, user_id, emoji) is enforced by the primary key of the
+ * non-partitioned message_reaction_keys table, so concurrent writers cannot both add
+ * the same reaction:
+ * - Add: INSERT the keys ON CONFLICT DO NOTHING, then insert reaction rows only for
+ *   the keys that were actually created
+ * - Remove: DELETE the keys, then the reaction rows of the keys that were deleted
+ * Each is one statement per batch (arrays expanded with unnest()), and returns only
+ * the effective changes, so count deltas never include duplicates or no-op removals.
+ *
+ * Callers pass at most one reaction per (message_id, user_id, emoji) per call.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MessageReactionBulkRepository {
+
+    private static final String INSERT_SQL =
+        "WITH input AS (" +
+        "  SELECT * FROM unnest(CAST(? AS UUID[]), CAST(? AS UUID[]), CAST(? AS VARCHAR[]), CAST(? AS VARCHAR[])," +
+        "                       CAST(? AS VARCHAR[]), CAST(? AS VARCHAR[]), CAST(? AS TIMESTAMP[]))" +
+        "  AS i(reaction_id, message_id, room_id, user_id, username, emoji, timestamp)" +
+        "), created_keys AS (" +
+        "  INSERT INTO message_reaction_keys (message_id, user_id, emoji)" +
+        "  SELECT message_id, user_id, emoji FROM input" +
+        "  ON CONFLICT DO NOTHING" +
+        "  RETURNING message_id, user_id, emoji" +
+        "), inserted AS (" +
+        "  INSERT INTO message_reactions (reaction_id, message_id, room_id, user_id, username, emoji, timestamp, created_at)" +
+        "  SELECT i.reaction_id, i.message_id, i.room_id, i.user_id, i.username, i.emoji," +
+        "         COALESCE(i.timestamp, LOCALTIMESTAMP), LOCALTIMESTAMP" +
+        "  FROM input i JOIN created_keys k" +
+        "    ON k.message_id = i.message_id AND k.user_id = i.user_id AND k.emoji = i.emoji" +
+        "  RETURNING message_id, emoji" +
+        ") " +
+        "SELECT message_id, emoji FROM inserted";
+
+    private static final String DELETE_SQL =
+        "WITH input AS (" +
+        "  SELECT * FROM unnest(CAST(? AS UUID[]), CAST(? AS VARCHAR[]), CAST(? AS VARCHAR[]))" +
+        "  AS i(message_id, user_id, emoji)" +
+        "), deleted_keys AS (" +
+        "  DELETE FROM message_reaction_keys k USING input i" +
+        "  WHERE k.message_id = i.message_id AND k.user_id = i.user_id AND k.emoji = i.emoji" +
+        "  RETURNING k.message_id, k.user_id, k.emoji" +
+        "), deleted_rows AS (" +
+        "  DELETE FROM message_reactions r USING deleted_keys d" +
+        "  WHERE r.message_id = d.message_id AND r.user_id = d.user_id AND r.emoji = d.emoji" +
+        ") " +
+        "SELECT message_id, emoji FROM deleted_keys";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert reactions that do not exist yet
+     *
+     * @return messageId -> (emoji -> number of reactions inserted)
+     */
+    public Map<UUID, Map<String, Integer>> insertIfAbsent(List<MessageReaction> reactions) {
+        Map<UUID, Map<String, Integer>> inserted = new HashMap<>();
+        if (reactions.isEmpty()) {
+            return inserted;
+        }
+
+        int size = reactions.size();
+        UUID[] reactionIds = new UUID[size];
+        UUID[] messageIds = new UUID[size];
+        String[] roomIds = new String[size];
+        String[] userIds = new String[size];
+        String[] usernames = new String[size];
+        String[] emojis = new String[size];
+        Timestamp[] timestamps = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            MessageReaction reaction = reactions.get(i);
+            reactionIds[i] = reaction.getReactionId() != null ? reaction.getReactionId() : TimeOrderedUuid.next();
+            messageIds[i] = reaction.getMessageId();
+            roomIds[i] = reaction.getRoomId();
+            userIds[i] = reaction.getUserId();
+            usernames[i] = reaction.getUsername();
+            emojis[i] = reaction.getEmoji();
+            timestamps[i] = reaction.getTimestamp() != null ? Timestamp.valueOf(reaction.getTimestamp()) : null;
+        }
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", reactionIds));
+            statement.setArray(2, connection.createArrayOf("uuid", messageIds));
+            statement.setArray(3, connection.createArrayOf("varchar", roomIds));
+            statement.setArray(4, connection.createArrayOf("varchar", userIds));
+            statement.setArray(5, connection.createArrayOf("varchar", usernames));
+            statement.setArray(6, connection.createArrayOf("varchar", emojis));
+            statement.setArray(7, connection.createArrayOf("timestamp", timestamps));
+            return statement;
+        }, rs -> {
+            inserted.computeIfAbsent(rs.getObject("message_id", UUID.class), id -> new HashMap<>())
+                .merge(rs.getString("emoji"), 1, Integer::sum);
+        });
+        return inserted;
+    }
+
+    /**
+     * Delete reactions that exist
+     *
+     * @return messageId -> (emoji -> number of reactions deleted)
+     */
+    public Map<UUID, Map<String, Integer>> deleteIfPresent(List<MessageReaction> reactions) {
+        Map<UUID, Map<String, Integer>> deleted = new HashMap<>();
+        if (reactions.isEmpty()) {
+            return deleted;
+        }
+
+        int size = reactions.size();
+        UUID[] messageIds = new UUID[size];
+        String[] userIds = new String[size];
+        String[] emojis = new String[size];
+        for (int i = 0; i < size; i++) {
+            MessageReaction reaction = reactions.get(i);
+            messageIds[i] = reaction.getMessageId();
+            userIds[i] = reaction.getUserId();
+            emojis[i] = reaction.getEmoji();
+        }
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DELETE_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", messageIds));
+            statement.setArray(2, connection.createArrayOf("varchar", userIds));
+            statement.setArray(3, connection.createArrayOf("varchar", emojis));
+            return statement;
+        }, rs -> {
+            deleted.computeIfAbsent(rs.getObject("message_id", UUID.class), id -> new HashMap<>())
+                .merge(rs.getString("emoji"), 1, Integer::sum);
+        });
+        return deleted;
+    }
+}
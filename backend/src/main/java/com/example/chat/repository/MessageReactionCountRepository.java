@@ -0,0 +1,112 @@
+package com.example.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Materialized reaction counts (message_reaction_counts; V8)
+ *
+ * Write path: one statement per batch of deltas
+ * - Deltas are passed as parallel arrays and expanded with unnest()
+ * - Existing rows are updated with the signed delta (never below zero)
+ * - Missing rows are inserted for positive deltas only
+ * - Rows that reach zero are kept and filtered on read
+ *
+ * Reactions are produced with the room as Kafka key, so all deltas of a message
+ * are applied by one consumer; the ON CONFLICT clause only covers the
+ * single-reaction fallback racing a batch.
+ *
+ * Read path: primary-key lookup for a page of message IDs.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MessageReactionCountRepository {
+
+    private static final String APPLY_DELTAS_SQL =
+        "WITH deltas AS (" +
+        "  SELECT * FROM unnest(CAST(? AS UUID[]), CAST(? AS VARCHAR[]), CAST(? AS INTEGER[]))" +
+        "  AS d(message_id, emoji, delta)" +
+        "), updated AS (" +
+        "  UPDATE message_reaction_counts c" +
+        "  SET count = GREATEST(c.count + d.delta, 0), updated_at = LOCALTIMESTAMP" +
+        "  FROM deltas d" +
+        "  WHERE c.message_id = d.message_id AND c.emoji = d.emoji" +
+        "  RETURNING c.message_id, c.emoji" +
+        ") " +
+        "INSERT INTO message_reaction_counts (message_id, emoji, count, updated_at) " +
+        "SELECT d.message_id, d.emoji, d.delta, LOCALTIMESTAMP FROM deltas d " +
+        "WHERE d.delta > 0 " +
+        "  AND NOT EXISTS (SELECT 1 FROM updated u WHERE u.message_id = d.message_id AND u.emoji = d.emoji) " +
+        "ON CONFLICT (message_id, emoji) DO UPDATE SET " +
+        "  count = message_reaction_counts.count + EXCLUDED.count, updated_at = EXCLUDED.updated_at";
+
+    private static final String FIND_BY_MESSAGES_SQL =
+        "SELECT message_id, emoji, count FROM message_reaction_counts " +
+        "WHERE message_id = ANY(?) AND count > 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Apply count deltas
+     *
+     * @param deltas messageId -> (emoji -> signed delta); zero deltas are skipped
+     */
+    public void applyDeltas(Map<UUID, Map<String, Integer>> deltas) {
+        List<UUID> messageIds = new ArrayList<>();
+        List<String> emojis = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+
+        deltas.forEach((messageId, byEmoji) -> byEmoji.forEach((emoji, delta) -> {
+            if (delta != 0) {
+                messageIds.add(messageId);
+                emojis.add(emoji);
+                counts.add(delta);
+            }
+        }));
+
+        if (messageIds.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(APPLY_DELTAS_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", messageIds.toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar", emojis.toArray()));
+            statement.setArray(3, connection.createArrayOf("integer", counts.toArray()));
+            return statement;
+        });
+    }
+
+    /**
+     * Non-zero counts of a set of messages
+     *
+     * @return messageId -> (emoji -> count), sorted by emoji; messages without reactions are absent
+     */
+    public Map<UUID, Map<String, Integer>> findByMessageIds(List<UUID> messageIds) {
+        Map<UUID, Map<String, Integer>> result = new HashMap<>();
+        if (messageIds == null || messageIds.isEmpty()) {
+            return result;
+        }
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_BY_MESSAGES_SQL);
+            Array ids = connection.createArrayOf("uuid", messageIds.toArray());
+            statement.setArray(1, ids);
+            return statement;
+        }, rs -> {
+            result.computeIfAbsent(rs.getObject("message_id", UUID.class), id -> new TreeMap<>())
+                .put(rs.getString("emoji"), rs.getInt("count"));
+        });
+        return result;
+    }
+}
@@ -7,7 +7,6 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -18,21 +17,6 @@ public interface MessageReactionRepository extends JpaRepository<MessageReaction
      */
     List<MessageReactionEntity> findByMessageId(UUID messageId);
 
-    /**
-     * Find a specific reaction by message, user, and emoji
-     */
-    Optional<MessageReactionEntity> findByMessageIdAndUserIdAndEmoji(
-        UUID messageId,
-        String userId,
-        String emoji
-    );
-
-    /**
-     * Delete a specific reaction
-     */
-    @Modifying
-    void deleteByMessageIdAndUserIdAndEmoji(UUID messageId, String userId, String emoji);
-
     /**
      * Delete all reactions for a message
      */
@@ -0,0 +1,124 @@
+package com.example.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Read watermarks (room_read_watermarks; V9)
+ *
+ * Write path: one upsert per read receipt
+ * - The row only moves forward: the ON CONFLICT update is guarded by
+ *   last_read_seq < EXCLUDED.last_read_seq, so stale or duplicate receipts
+ *   (and out-of-order deliveries) change nothing
+ *
+ * Read path: "read by" is derived from the watermarks
+ * - By message ID: joined with chat_messages for the message's room and seq
+ * - By (room, seq): range scan on idx_read_watermarks_room_seq, no message lookup
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReadWatermarkRepository {
+
+    private static final String ADVANCE_SQL =
+        "INSERT INTO room_read_watermarks (room_id, user_id, last_read_seq, last_read_message_id, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT (room_id, user_id) DO UPDATE SET " +
+        "  last_read_seq = EXCLUDED.last_read_seq, " +
+        "  last_read_message_id = EXCLUDED.last_read_message_id, " +
+        "  updated_at = EXCLUDED.updated_at " +
+        "WHERE room_read_watermarks.last_read_seq < EXCLUDED.last_read_seq";
+
+    private static final String LAST_READ_MESSAGE_SQL =
+        "SELECT last_read_message_id FROM room_read_watermarks WHERE room_id = ? AND user_id = ?";
+
+    private static final String READERS_BY_MESSAGES_SQL =
+        "SELECT m.message_id, w.user_id FROM chat_messages m " +
+        "JOIN room_read_watermarks w ON w.room_id = m.room_id AND w.last_read_seq >= m.seq " +
+        "WHERE m.message_id = ANY(?)";
+
+    private static final String COUNT_READERS_SQL =
+        "SELECT COUNT(*) FROM chat_messages m " +
+        "JOIN room_read_watermarks w ON w.room_id = m.room_id AND w.last_read_seq >= m.seq " +
+        "WHERE m.message_id = ?";
+
+    private static final String HAS_READ_SQL =
+        "SELECT EXISTS (SELECT 1 FROM chat_messages m " +
+        "JOIN room_read_watermarks w ON w.room_id = m.room_id AND w.last_read_seq >= m.seq " +
+        "WHERE m.message_id = ? AND w.user_id = ?)";
+
+    private static final String ROOM_WATERMARKS_SQL =
+        "SELECT user_id, last_read_seq FROM room_read_watermarks WHERE room_id = ? AND last_read_seq >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Move a user's watermark forward
+     *
+     * @return true if the row was created or advanced, false if it already was at or past seq
+     */
+    public boolean advance(String roomId, String userId, long seq, UUID messageId, LocalDateTime readAt) {
+        return jdbcTemplate.update(ADVANCE_SQL, roomId, userId, seq, messageId, readAt) > 0;
+    }
+
+    public Optional<UUID> findLastReadMessageId(String roomId, String userId) {
+        return jdbcTemplate.query(LAST_READ_MESSAGE_SQL,
+                (rs, rowNum) -> rs.getObject("last_read_message_id", UUID.class), roomId, userId)
+            .stream().findFirst();
+    }
+
+    /**
+     * Readers of a set of messages
+     *
+     * @return messageId -> userIds; messages nobody read (or without seq) are absent
+     */
+    public Map<UUID, Set<String>> findReadersByMessageIds(List<UUID> messageIds) {
+        Map<UUID, Set<String>> result = new HashMap<>();
+        if (messageIds == null || messageIds.isEmpty()) {
+            return result;
+        }
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(READERS_BY_MESSAGES_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", messageIds.toArray()));
+            return statement;
+        }, rs -> {
+            result.computeIfAbsent(rs.getObject("message_id", UUID.class), id -> new HashSet<>())
+                .add(rs.getString("user_id"));
+        });
+        return result;
+    }
+
+    public long countReaders(UUID messageId) {
+        Long count = jdbcTemplate.queryForObject(COUNT_READERS_SQL, Long.class, messageId);
+        return count != null ? count : 0L;
+    }
+
+    public boolean hasRead(UUID messageId, String userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_READ_SQL, Boolean.class, messageId, userId));
+    }
+
+    /**
+     * Watermarks of a room at or past a sequence number
+     *
+     * @return userId -> last read seq
+     */
+    public Map<String, Long> findRoomWatermarks(String roomId, long minSeq) {
+        Map<String, Long> result = new HashMap<>();
+        jdbcTemplate.query(ROOM_WATERMARKS_SQL,
+            rs -> {
+                result.put(rs.getString("user_id"), rs.getLong("last_read_seq"));
+            }, roomId, minSeq);
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Per-room sequence high-water marks (room_sequences; V10)
+ *
+ * - Write path: one upsert per leased range, before any number of the range is used.
+ *   The row only moves forward (guarded by leased_seq < EXCLUDED.leased_seq)
+ * - Read path: primary-key lookup, to seed a missing Redis counter
+ */
+@Repository
+@RequiredArgsConstructor
+public class RoomSequenceRepository {
+
+    private static final String ADVANCE_SQL =
+        "INSERT INTO room_sequences (room_id, leased_seq, updated_at) VALUES (?, ?, LOCALTIMESTAMP) " +
+        "ON CONFLICT (room_id) DO UPDATE SET " +
+        "  leased_seq = EXCLUDED.leased_seq, " +
+        "  updated_at = EXCLUDED.updated_at " +
+        "WHERE room_sequences.leased_seq < EXCLUDED.leased_seq";
+
+    private static final String LEASED_SEQ_SQL =
+        "SELECT leased_seq FROM room_sequences WHERE room_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Record the highest number of a leased range
+     */
+    public void advance(String roomId, long leasedSeq) {
+        jdbcTemplate.update(ADVANCE_SQL, roomId, leasedSeq);
+    }
+
+    /**
+     * Highest number ever leased for a room
+     *
+     * @return Highest leased number, 0 if none
+     */
+    public long findLeasedSeq(String roomId) {
+        return jdbcTemplate.query(LEASED_SEQ_SQL, (rs, rowNum) -> rs.getLong("leased_seq"), roomId)
+            .stream().findFirst().orElse(0L);
+    }
+}
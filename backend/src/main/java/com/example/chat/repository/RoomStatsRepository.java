@@ -0,0 +1,142 @@
+package com.example.chat.repository;
+
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.RoomStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Incrementally maintained room statistics (room_stats, room_senders; V7)
+ *
+ * Write path: one statement per persisted batch
+ * - Aggregates the batch per room (count, newest message, new senders)
+ * - Records first-time senders in room_senders (ON CONFLICT DO NOTHING);
+ *   only newly inserted pairs increment unique_senders
+ * - Upserts room_stats with deltas; the "last message" fields only move forward
+ *   in (timestamp, message_id) order, so out-of-order batches are harmless
+ *
+ * Must run in the same transaction as the message insert, so the stats commit
+ * (or roll back) together with the messages they count.
+ *
+ * Read path: primary-key lookups on chat_rooms joined with room_stats.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RoomStatsRepository {
+
+    /**
+     * Rows inserted by the current transaction's bulk insert
+     * (temp table filled by {@link ChatMessageBulkRepository#copyInsert})
+     */
+    static final String INSERTED_TABLE = "chat_messages_inserted";
+
+    private static final int PREVIEW_LENGTH = 200;
+
+    private static final String SINGLE_MESSAGE_SOURCE =
+        "(VALUES (CAST(? AS UUID), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TEXT), CAST(? AS TIMESTAMP))) " +
+        "AS m(message_id, room_id, user_id, content, timestamp)";
+
+    private static final String NEWER =
+        "(room_stats.last_message_at IS NULL OR " +
+        "(EXCLUDED.last_message_at, EXCLUDED.last_message_id) > (room_stats.last_message_at, room_stats.last_message_id))";
+
+    // %s: relation with columns (message_id, room_id, user_id, content, timestamp)
+    private static final String APPLY_BATCH_SQL =
+        "WITH batch AS (" +
+        "  SELECT message_id, room_id, user_id, content, timestamp FROM %s" +
+        "), new_senders AS (" +
+        "  INSERT INTO room_senders (room_id, user_id, first_message_at)" +
+        "  SELECT room_id, user_id, MIN(timestamp) FROM batch GROUP BY room_id, user_id" +
+        "  ON CONFLICT DO NOTHING" +
+        "  RETURNING room_id" +
+        "), sender_counts AS (" +
+        "  SELECT room_id, COUNT(*) AS senders FROM new_senders GROUP BY room_id" +
+        "), message_counts AS (" +
+        "  SELECT room_id, COUNT(*) AS messages FROM batch GROUP BY room_id" +
+        "), latest AS (" +
+        "  SELECT DISTINCT ON (room_id) room_id, message_id, timestamp, user_id, LEFT(content, " + PREVIEW_LENGTH + ") AS preview" +
+        "  FROM batch ORDER BY room_id, timestamp DESC, message_id DESC" +
+        ") " +
+        "INSERT INTO room_stats (room_id, message_count, unique_senders, last_message_id, last_message_at," +
+        "                        last_sender_id, last_message_preview, updated_at) " +
+        "SELECT c.room_id, c.messages, COALESCE(s.senders, 0), l.message_id, l.timestamp, l.user_id, l.preview, LOCALTIMESTAMP " +
+        "FROM message_counts c " +
+        "JOIN latest l ON l.room_id = c.room_id " +
+        "LEFT JOIN sender_counts s ON s.room_id = c.room_id " +
+        "ORDER BY c.room_id " +
+        "ON CONFLICT (room_id) DO UPDATE SET " +
+        "  message_count = room_stats.message_count + EXCLUDED.message_count," +
+        "  unique_senders = room_stats.unique_senders + EXCLUDED.unique_senders," +
+        "  last_message_id = CASE WHEN " + NEWER + " THEN EXCLUDED.last_message_id ELSE room_stats.last_message_id END," +
+        "  last_sender_id = CASE WHEN " + NEWER + " THEN EXCLUDED.last_sender_id ELSE room_stats.last_sender_id END," +
+        "  last_message_preview = CASE WHEN " + NEWER + " THEN EXCLUDED.last_message_preview ELSE room_stats.last_message_preview END," +
+        "  last_message_at = CASE WHEN " + NEWER + " THEN EXCLUDED.last_message_at ELSE room_stats.last_message_at END," +
+        "  updated_at = EXCLUDED.updated_at";
+
+    private static final String APPLY_INSERTED_SQL = String.format(APPLY_BATCH_SQL, INSERTED_TABLE);
+
+    private static final String APPLY_SINGLE_SQL = String.format(APPLY_BATCH_SQL, SINGLE_MESSAGE_SOURCE);
+
+    private static final String SELECT_STATS =
+        "SELECT r.room_id, r.created_at, s.message_count, s.unique_senders, s.last_message_id," +
+        "       s.last_message_at, s.last_sender_id, s.last_message_preview " +
+        "FROM chat_rooms r LEFT JOIN room_stats s ON s.room_id = r.room_id ";
+
+    private static final String FIND_BY_ROOM_SQL =
+        SELECT_STATS + "WHERE r.room_id = ?";
+
+    private static final String FIND_MOST_RECENT_SQL =
+        SELECT_STATS + "WHERE s.last_message_at IS NOT NULL ORDER BY s.last_message_at DESC LIMIT ?";
+
+    private static final RowMapper<RoomStats> ROW_MAPPER = (rs, rowNum) -> new RoomStats(
+        rs.getString("room_id"),
+        rs.getObject("created_at", LocalDateTime.class),
+        rs.getLong("message_count"),
+        rs.getLong("unique_senders"),
+        rs.getObject("last_message_id", UUID.class),
+        rs.getObject("last_message_at", LocalDateTime.class),
+        rs.getString("last_sender_id"),
+        rs.getString("last_message_preview")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Apply the rows inserted by the preceding bulk insert of this transaction
+     *
+     * @return Number of rooms whose stats changed
+     */
+    public int applyInsertedBatch() {
+        return jdbcTemplate.update(APPLY_INSERTED_SQL);
+    }
+
+    /**
+     * Apply a single newly inserted message
+     */
+    public void applyMessage(ChatMessage message) {
+        jdbcTemplate.update(APPLY_SINGLE_SQL,
+            message.getMessageId(), message.getRoomId(), message.getUserId(),
+            message.getContent(), message.getTimestamp());
+    }
+
+    /**
+     * Stats of one room (empty if the room does not exist)
+     */
+    public Optional<RoomStats> findByRoomId(String roomId) {
+        return jdbcTemplate.query(FIND_BY_ROOM_SQL, ROW_MAPPER, roomId).stream().findFirst();
+    }
+
+    /**
+     * Rooms with the most recent activity first
+     */
+    public List<RoomStats> findMostRecentlyActive(int limit) {
+        return jdbcTemplate.query(FIND_MOST_RECENT_SQL, ROW_MAPPER, limit);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.chat.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking Redis presence operations for STOMP handlers
+ *
+ * Same keys, scripts, breaker and node-local fallback as {@link RedisCacheService},
+ * but the calling (clientInboundChannel) thread only issues the commands:
+ * - Futures complete on the Redis callback executor, never on a Lettuce I/O thread,
+ *   so dependent work (Kafka send, broadcast) may be chained directly
+ * - Redis errors never complete a future exceptionally; they are logged and a count of 0
+ *   returned. Only a full callback queue does (RejectedExecutionException): the update is
+ *   made, but dependent work should be skipped rather than run on the completing thread
+ *
+ * Other operations (recent messages, reactions, typing) stay on {@link RedisCacheService}.
+ */
+public interface AsyncRedisCacheService {
+
+    /**
+     * Add a user to a room (presence heartbeat) and get the resulting user count
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     * @return Future of the number of users in the room
+     */
+    CompletableFuture<Long> addUserToRoomAndCount(String roomId, String userId);
+
+    /**
+     * Refresh a user's presence in a room (heartbeat)
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     * @return Future completed once the heartbeat is recorded
+     */
+    CompletableFuture<Void> refreshPresence(String roomId, String userId);
+
+    /**
+     * Remove a user from a room and get the remaining user count
+     * - Removal and count are sent back to back on one connection (one round trip)
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     * @return Future of the number of users left in the room
+     */
+    CompletableFuture<Long> removeUserFromRoomAndCount(String roomId, String userId);
+}
@@ -3,12 +3,15 @@ package com.example.chat.service;
 import com.example.chat.dto.ChatEvent;
 import com.example.chat.dto.ChatMessage;
 
+import java.util.List;
+
 /**
  * Kafka Consumer Service Interface
  *
  * Consumes messages and events from Kafka topics
  * - chat.message.v1: Process incoming chat messages
  * - chat.event.v1: Process user presence events
+ * - chat.reaction.v1: Persist message reactions
  *
  * Implementation in Phase 1
  */
@@ -24,6 +27,15 @@ public interface KafkaConsumerService {
      */
     void handleChatMessage(String messageJson);
 
+    /**
+     * Handle a batch of chat messages from Kafka
+     * - Deserialize each JSON record to ChatMessage
+     * - Persist the whole batch to PostgreSQL in one bulk write
+     *
+     * @param messageJsons JSON strings of ChatMessage from one Kafka poll
+     */
+    void handleChatMessageBatch(List<String> messageJsons);
+
     /**
      * Handle incoming chat event from Kafka
      * - Deserialize JSON to ChatEvent
@@ -33,4 +45,13 @@ public interface KafkaConsumerService {
      * @param eventJson JSON string of ChatEvent from Kafka
      */
     void handleChatEvent(String eventJson);
+
+    /**
+     * Handle a batch of message reactions from Kafka
+     * - Deserialize each JSON record to MessageReaction
+     * - Persist reactions and reaction count deltas in one transaction
+     *
+     * @param reactionJsons JSON strings of MessageReaction from one Kafka poll
+     */
+    void handleMessageReactionBatch(List<String> reactionJsons);
 }
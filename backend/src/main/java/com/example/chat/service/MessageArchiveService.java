@@ -0,0 +1,45 @@
+package com.example.chat.service;
+
+import com.example.chat.dto.MessageHistoryRow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Message Archive Service Interface
+ *
+ * Moves cold message history out of PostgreSQL into compressed per-room-day
+ * segment files and serves history reads that run past the oldest row still
+ * in the database.
+ *
+ * @see com.example.chat.service.impl.MessageArchiveServiceImpl
+ */
+public interface MessageArchiveService {
+
+    /**
+     * Archive every room-day older than chat.archive.cold-after-days
+     * - Segment is written and fsynced before its rows are deleted
+     * - No-op if a run is already in progress on any node
+     *
+     * @return Number of rows moved out of PostgreSQL
+     */
+    int archiveColdHistory();
+
+    /**
+     * Delete archived messages of days before a cutoff (whole room-day segments)
+     *
+     * @param cutoff Messages older than this are expired; the cutoff's own day is kept
+     * @return Number of segments deleted
+     */
+    int deleteArchivedBefore(LocalDateTime cutoff);
+
+    /**
+     * Archived messages strictly older than a position, newest first
+     *
+     * @param before Upper bound timestamp (exclusive), or null for the newest archived message
+     * @param beforeMessageId Tiebreaker for equal timestamps, or null
+     */
+    List<MessageHistoryRow> getArchivedHistoryBefore(
+        String roomId, LocalDateTime before, UUID beforeMessageId, int limit);
+}
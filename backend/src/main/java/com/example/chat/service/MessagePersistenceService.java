@@ -2,10 +2,14 @@ package com.example.chat.service;
 
 import com.example.chat.dto.ChatMessage;
 import com.example.chat.dto.MessageReaction;
-import com.example.chat.entity.ChatMessageEntity;
+import com.example.chat.dto.MessageHistoryRow;
+import com.example.chat.dto.MessageSearchHit;
+import com.example.chat.dto.SearchCursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public interface MessagePersistenceService {
 
@@ -14,6 +18,16 @@ public interface MessagePersistenceService {
      */
     void saveMessage(ChatMessage message);
 
+    /**
+     * Save a batch of chat messages to the database (bulk write path)
+     * - Uses PostgreSQL COPY through a staging table
+     * - Duplicate message IDs are skipped
+     * - Updates room_stats for the inserted messages in the same transaction
+     *
+     * @return Number of messages actually inserted
+     */
+    int saveMessages(List<ChatMessage> messages);
+
     /**
      * Save a message reaction to the database
      */
@@ -24,15 +38,56 @@ public interface MessagePersistenceService {
      */
     void removeReaction(MessageReaction reaction);
 
+    /**
+     * Apply a batch of reaction ADD/REMOVE events in one transaction
+     * - The last event per (message, user, emoji) wins; duplicates and no-op removals are skipped
+     * - One batched insert, one batched delete, one batched count delta upsert
+     *
+     * @return Number of reactions that changed state
+     */
+    int applyReactions(List<MessageReaction> reactions);
+
+    /**
+     * Get materialized reaction counts for a set of messages
+     *
+     * @return messageId -> (emoji -> count); messages without reactions are absent
+     */
+    Map<UUID, Map<String, Integer>> getReactionCounts(List<UUID> messageIds);
+
     /**
      * Get message history for a room (most recent first)
+     * - Read-only projection, no entity hydration
+     * - Pages that run past the oldest database row continue into the cold-history archive
      */
-    List<ChatMessageEntity> getMessageHistory(String roomId, int limit);
+    List<MessageHistoryRow> getMessageHistory(String roomId, int limit);
 
     /**
      * Get message history before a specific timestamp (pagination)
      */
-    List<ChatMessageEntity> getMessageHistoryBefore(String roomId, LocalDateTime before, int limit);
+    List<MessageHistoryRow> getMessageHistoryBefore(String roomId, LocalDateTime before, int limit);
+
+    /**
+     * Get message history strictly older than a keyset position (cursor pagination)
+     * - Ordered by (timestamp, messageId) descending
+     * - Unambiguous when several messages share the same timestamp
+     */
+    List<MessageHistoryRow> getMessageHistoryBefore(String roomId, LocalDateTime before, UUID beforeMessageId, int limit);
+
+    /**
+     * Get messages with a sequence number greater than afterSeq (catch-up after a gap)
+     * - Ordered by seq ascending
+     * - Messages without a sequence number are not included
+     */
+    List<MessageHistoryRow> getMessagesAfterSeq(String roomId, long afterSeq, int limit);
+
+    /**
+     * Full-text search in a room's history
+     * - Ranked by relevance, then newest first
+     * - Keyset-paginated: pass the cursor of the last hit to get the next page
+     *
+     * @param after Cursor of the previous page, or null for the first page
+     */
+    List<MessageSearchHit> searchMessages(String roomId, String query, SearchCursor after, int limit);
 
     /**
      * Ensure a chat room exists in the database
@@ -41,6 +96,8 @@ public interface MessagePersistenceService {
 
     /**
      * Delete old messages (cleanup task)
+     * - Drops whole monthly partitions that end on or before the cutoff
+     * - Messages in a partially expired month are kept until the month expires
      */
     void deleteOldMessages(LocalDateTime before);
 }
@@ -0,0 +1,44 @@
+package com.example.chat.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Partition Management Service Interface
+ *
+ * Maintains monthly range partitions of the time-series tables:
+ * - chat_messages (by timestamp)
+ * - message_reactions (by timestamp)
+ * - message_read_status (by read_at)
+ *
+ * Partition naming: {table}_pYYYY_MM, plus one {table}_default partition.
+ *
+ * @see com.example.chat.service.impl.PartitionManagementServiceImpl
+ */
+public interface PartitionManagementService {
+
+    /**
+     * Run one maintenance cycle
+     * - Pre-create partitions for the coming months
+     * - Expired partitions are dropped by the retention pass, not here
+     */
+    void runMaintenance();
+
+    /**
+     * Create monthly partitions for all managed tables up to (and including) a month
+     *
+     * @param lastMonth Any date in the last month to create
+     * @return Number of partitions created
+     */
+    int createPartitionsThrough(LocalDate lastMonth);
+
+    /**
+     * Drop every partition of a table whose whole range is older than a cutoff
+     * - Metadata only; expired rows in the default partition are left to the caller
+     *
+     * @param table Managed table name
+     * @param cutoff Rows older than this are expired
+     * @return Number of partitions dropped
+     */
+    int dropPartitionsBefore(String table, LocalDateTime cutoff);
+}
@@ -13,15 +13,18 @@ import java.util.UUID;
  * Manages message read status tracking and read receipts.
  *
  * Features:
- * - Mark messages as read
- * - Get read status for messages
+ * - Mark messages as read (moves the user's read watermark in the room forward)
+ * - Get read status for messages (derived from the watermarks)
  * - Cache last read position in Redis
- * - Prevent duplicate read receipts
+ * - Prevent duplicate and stale read receipts
  *
  * Storage:
- * - PostgreSQL: Permanent read status records
+ * - PostgreSQL: One watermark per (room, user) - highest read per-room sequence number
  * - Redis: Cache for last read message per user (TTL 1 hour)
  *
+ * A message counts as read by every user whose watermark in its room is at or past
+ * the message's seq; messages without seq are never reported as read.
+ *
  * @see com.example.chat.service.impl.ReadReceiptServiceImpl
  */
 public interface ReadReceiptService {
@@ -31,17 +34,33 @@ public interface ReadReceiptService {
      *
      * Process:
      * 1. Check Redis cache for duplicate
-     * 2. Save to PostgreSQL
-     * 3. Update Redis cache
-     * 4. Return read receipt DTO for broadcasting
+     * 2. Look up the message's seq in PostgreSQL
+     * 3. Advance the user's watermark in the room to that seq (monotonic upsert)
+     * 4. Update Redis cache
+     * 5. Return read receipt DTO for broadcasting
      *
      * @param roomId Room ID
      * @param userId User ID who read the message
      * @param messageId Message ID that was read
-     * @return ReadReceiptDTO for broadcasting, or null if duplicate
+     * @return ReadReceiptDTO for broadcasting, or null if duplicate, stale or unknown
      */
     ReadReceiptDTO markAsRead(String roomId, String userId, UUID messageId);
 
+    /**
+     * Mark a message with a client-supplied per-room sequence number as read
+     * - The message's seq is always looked up; a persisted seq must equal the client's
+     * - Not persisted yet (still in Kafka): the client seq is accepted only if it is
+     *   within the numbers already issued for the room
+     * - Then the same watermark upsert as {@link #markAsRead(String, String, UUID)}
+     *
+     * @param roomId Room ID
+     * @param userId User ID who read the message
+     * @param messageId Message ID that was read
+     * @param seq Per-room sequence number of the message (looked up if null)
+     * @return ReadReceiptDTO for broadcasting, or null if duplicate, stale, unknown or invalid
+     */
+    ReadReceiptDTO markAsRead(String roomId, String userId, UUID messageId, Long seq);
+
     /**
      * Get list of users who read a specific message
      *
@@ -59,6 +78,16 @@ public interface ReadReceiptService {
      */
     Map<UUID, Set<String>> getReadStatusForMessages(List<UUID> messageIds);
 
+    /**
+     * Get read status for messages of one room whose sequence numbers are known
+     * Used by history pages (no message lookup)
+     *
+     * @param roomId Room ID
+     * @param seqByMessageId Message ID -> per-room sequence number
+     * @return Map of messageId -> Set of userIds who read it
+     */
+    Map<UUID, Set<String>> getReadStatusForRoomMessages(String roomId, Map<UUID, Long> seqByMessageId);
+
     /**
      * Get the last message ID read by a user in a room
      * Used to determine read/unread status
@@ -2,6 +2,8 @@ package com.example.chat.service;
 
 import com.example.chat.dto.ChatMessage;
 import com.example.chat.dto.ReactionSummary;
+import com.example.chat.dto.RedisBreakerStatus;
+import com.example.chat.dto.RecentMessagePage;
 
 import java.util.List;
 import java.util.Map;
@@ -45,6 +47,18 @@ public interface RedisCacheService {
      */
     List<ChatMessage> getRecentMessages(String roomId);
 
+    /**
+     * Get a page of recent messages from Redis, newest first
+     * With the stream backend, pages continue from the previous page's oldest entry ID
+     * for deep scroll-back; the list backend only serves the newest page.
+     *
+     * @param roomId Room ID
+     * @param beforeEntryId Oldest entry ID of the previous page (null = newest)
+     * @param limit Maximum number of messages
+     * @return Page of messages
+     */
+    RecentMessagePage getRecentMessagesBefore(String roomId, String beforeEntryId, int limit);
+
     /**
      * Add a user to a room
      *
@@ -53,6 +67,24 @@ public interface RedisCacheService {
      */
     void addUserToRoom(String roomId, String userId);
 
+    /**
+     * Add a user to a room and get the resulting user count in one round trip
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     * @return Number of users in the room
+     */
+    long addUserToRoomAndCount(String roomId, String userId);
+
+    /**
+     * Refresh a user's presence in a room (heartbeat)
+     * Members whose last heartbeat is older than chat.presence.timeout expire individually.
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     */
+    void refreshPresence(String roomId, String userId);
+
     /**
      * Remove a user from a room
      *
@@ -69,11 +101,18 @@ public interface RedisCacheService {
      */
     Set<String> getRoomUsers(String roomId);
 
+    /**
+     * Remove members whose presence has expired from all active rooms
+     *
+     * @return Number of members removed
+     */
+    long sweepExpiredPresence();
+
     /**
      * Add a reaction to a message
-     * - Stores in Redis Hash: message:{messageId}:reactions
-     * - Field: emoji, Value: Set of user IDs (JSON)
-     * - TTL: 86400 seconds (24 hours)
+     * - Stores in Redis Set: message:{messageId}:reactions:{emoji} (user IDs)
+     * - Counter Hash: message:{messageId}:reaction_counts (emoji -> count)
+     * - Both updated atomically; TTL: 86400 seconds (24 hours)
      *
      * @param messageId Message ID
      * @param emoji Emoji type (HEART, LAUGH, WOW, SAD, THUMBS_UP, FIRE)
@@ -98,9 +137,18 @@ public interface RedisCacheService {
      */
     ReactionSummary getReactions(UUID messageId);
 
+    /**
+     * Get reaction counts for a message without loading the reactor sets
+     *
+     * @param messageId Message ID
+     * @return Map of emoji -> count
+     */
+    Map<String, Long> getReactionCounts(UUID messageId);
+
     /**
      * Get reactions for multiple messages
      * Useful for batch loading reactions when fetching recent messages
+     * - Pipelined: a constant number of round trips for any number of messages
      *
      * @param messageIds List of message IDs
      * @return Map of messageId -> ReactionSummary
@@ -135,9 +183,33 @@ public interface RedisCacheService {
 
     /**
      * Get count of users in a room
+     * Exact for normal rooms; approximate (HyperLogLog) for very large rooms
      *
      * @param roomId Room ID
      * @return Number of users in the room
      */
     long getRoomUserCount(String roomId);
+
+    /**
+     * Get user counts of multiple rooms in one round trip (room lists)
+     * Same counting as {@link #getRoomUserCount(String)}
+     *
+     * @param roomIds Room IDs
+     * @return Map of roomId -> number of users in the room
+     */
+    Map<String, Long> getRoomUserCounts(List<String> roomIds);
+
+    /**
+     * Replay writes queued on this node while the Redis circuit breaker was open
+     *
+     * @return Number of replayed messages and presence updates
+     */
+    int reconcileDegradedState();
+
+    /**
+     * Redis circuit breaker state and pending reconciliation of this node
+     *
+     * @return Status snapshot
+     */
+    RedisBreakerStatus getBreakerStatus();
 }
@@ -0,0 +1,37 @@
+package com.example.chat.service;
+
+import com.example.chat.dto.RetentionStatus;
+
+/**
+ * Retention Service Interface
+ *
+ * Deletes expired chat messages and read receipts without long transactions:
+ * - Whole expired months are dropped as partitions first
+ * - The remainder is deleted in small primary-key chunks, one short
+ *   transaction per chunk, throttled to a configurable row rate
+ *
+ * @see com.example.chat.service.impl.RetentionServiceImpl
+ */
+public interface RetentionService {
+
+    /**
+     * Run one retention pass over all configured tables
+     * - No-op if a pass is already running
+     */
+    void runRetention();
+
+    /**
+     * Pause deletion (a running pass waits before its next chunk)
+     */
+    void pause();
+
+    /**
+     * Resume a paused engine
+     */
+    void resume();
+
+    /**
+     * Current progress snapshot
+     */
+    RetentionStatus getStatus();
+}
@@ -0,0 +1,31 @@
+package com.example.chat.service;
+
+/**
+ * Room Sequence Service Interface
+ *
+ * Assigns per-room sequence numbers to messages at ingest.
+ * - Unique per room, also across Redis data loss (seeded from a durable high-water mark)
+ * - Allocated from Redis in leased ranges, one round trip per range
+ *
+ * @see com.example.chat.service.impl.RoomSequenceServiceImpl
+ */
+public interface RoomSequenceService {
+
+    /**
+     * Next sequence number of a room
+     *
+     * @param roomId Room ID
+     * @return Sequence number, or null if no range could be leased (Redis unavailable or
+     *         breaker open); the caller must not send the message without one
+     */
+    Long next(String roomId);
+
+    /**
+     * Highest sequence number handed out for a room so far (any node)
+     * - Includes numbers leased to nodes but not yet assigned to a message
+     *
+     * @param roomId Room ID
+     * @return Highest issued sequence number, 0 if none, or null if Redis is unavailable
+     */
+    Long current(String roomId);
+}
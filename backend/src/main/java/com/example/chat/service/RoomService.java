@@ -0,0 +1,41 @@
+package com.example.chat.service;
+
+import com.example.chat.dto.RoomInfo;
+
+import java.util.List;
+
+/**
+ * Room Service Interface
+ *
+ * Room details and room lists exposed via REST API.
+ * - Persisted statistics from room_stats
+ * - Current user count from Redis presence
+ *
+ * @see com.example.chat.service.impl.RoomServiceImpl
+ */
+public interface RoomService {
+
+    /**
+     * Get room information and statistics
+     * - Room metadata
+     * - Current user count
+     * - Creation time
+     * - Message count, unique senders, last message (from room_stats)
+     *
+     * @param roomId Room identifier
+     * @return RoomInfo with current statistics
+     * @throws IllegalArgumentException if room does not exist
+     */
+    RoomInfo getRoomInfo(String roomId);
+
+    /**
+     * Get the most recently active rooms (room list)
+     * - Ordered by last message time, newest first
+     * - One indexed read of room_stats, no per-room counting
+     * - User counts of all rooms in one Redis round trip
+     *
+     * @param limit Maximum number of rooms
+     * @return RoomInfo list with current statistics
+     */
+    List<RoomInfo> getActiveRooms(int limit);
+}
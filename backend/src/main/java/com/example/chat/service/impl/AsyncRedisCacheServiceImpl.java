@@ -0,0 +1,368 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.config.RedisConfig;
+import com.example.chat.config.RedisKeySchema;
+import com.example.chat.config.RedisKeySchema.Version;
+import com.example.chat.config.RedisScriptRegistry;
+import com.example.chat.config.RedisScriptRegistry.Script;
+import com.example.chat.service.AsyncRedisCacheService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Async Redis Cache Service Implementation
+ *
+ * Presence join/heartbeat/leave on native Lettuce async commands:
+ * - Dedicated byte[] connection from the Lettuce client behind the Spring connection
+ *   factory (standalone or cluster), opened on first use; same serializers as the
+ *   RedisTemplate, so keys and members match {@link RedisCacheServiceImpl}
+ * - Independent commands are issued without waiting for each other and share one
+ *   round trip (Lettuce pipelines commands written to the same connection):
+ *   heartbeat scripts of every written key version plus the presence:rooms index on join,
+ *   ZREMs plus ZCOUNTs on leave (commands on one connection run in order)
+ * - Command timeouts: spring.data.redis.timeout, as for blocking calls
+ * - Calls go through {@link RedisCircuitBreaker#executeAsync}; while it is open,
+ *   {@link DegradedRoomState} answers and the update is queued for reconciliation
+ * - Near-cache invalidation (a blocking PUBLISH) and all completions run on the
+ *   callback executor (chat.redis.async.callback-threads), off the Lettuce I/O threads.
+ *   Invalidation runs after the breaker has recorded the call, so it is neither timed
+ *   as Redis latency nor able to turn a successful write into a fallback
+ * - Callback queue full (chat.redis.async.callback-queue-capacity): the completion is
+ *   dropped and counted, never run on the Lettuce I/O thread; the returned future then
+ *   completes exceptionally with a RejectedExecutionException, so dependent work
+ *   (presence events) is skipped and a dropped invalidation leaves the near-cached count
+ *   until its TTL
+ *
+ * Metrics: chat.redis.async.callbacks.rejected (counter)
+ */
+@Service
+@Slf4j
+public class AsyncRedisCacheServiceImpl implements AsyncRedisCacheService {
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final RedisScriptRegistry scriptRegistry;
+    private final RedisNearCache nearCache;
+    private final RedisKeySchema keySchema;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final DegradedRoomState degradedState;
+    private final RedisSerializer<String> keySerializer;
+    private final RedisSerializer<Object> valueSerializer;
+    private final ThreadPoolTaskExecutor callbackExecutor;
+    private final long presenceTimeoutMillis;
+    private final int maxTrackedMembers;
+
+    // roomId -> last time this node wrote the room to presence:rooms (epoch millis)
+    private final Cache<String, Long> indexedRooms = Caffeine.newBuilder().maximumSize(100_000).build();
+
+    private StatefulConnection<byte[], byte[]> connection;
+    private volatile RedisClusterAsyncCommands<byte[], byte[]> commands;
+
+    @SuppressWarnings("unchecked")
+    public AsyncRedisCacheServiceImpl(
+        LettuceConnectionFactory connectionFactory,
+        RedisTemplate<String, Object> redisTemplate,
+        RedisScriptRegistry scriptRegistry,
+        RedisNearCache nearCache,
+        RedisKeySchema keySchema,
+        RedisCircuitBreaker circuitBreaker,
+        DegradedRoomState degradedState,
+        @Value("${chat.presence.timeout:60s}") Duration presenceTimeout,
+        @Value("${chat.presence.max-tracked-members:10000}") int maxTrackedMembers,
+        @Value("${chat.redis.async.callback-threads:4}") int callbackThreads,
+        @Value("${chat.redis.async.callback-queue-capacity:10000}") int callbackQueueCapacity,
+        MeterRegistry meterRegistry
+    ) {
+        this.connectionFactory = connectionFactory;
+        this.scriptRegistry = scriptRegistry;
+        this.nearCache = nearCache;
+        this.keySchema = keySchema;
+        this.circuitBreaker = circuitBreaker;
+        this.degradedState = degradedState;
+        this.keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        this.valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        this.presenceTimeoutMillis = presenceTimeout.toMillis();
+        this.maxTrackedMembers = maxTrackedMembers;
+
+        this.callbackExecutor = new ThreadPoolTaskExecutor();
+        callbackExecutor.setCorePoolSize(callbackThreads);
+        callbackExecutor.setMaxPoolSize(callbackThreads);
+        callbackExecutor.setQueueCapacity(callbackQueueCapacity);
+        callbackExecutor.setThreadNamePrefix("redis-callback-");
+        Counter rejectedCallbacks = meterRegistry.counter("chat.redis.async.callbacks.rejected");
+        callbackExecutor.setRejectedExecutionHandler((task, executor) -> {
+            rejectedCallbacks.increment();
+            throw new RejectedExecutionException("Redis callback queue full");
+        });
+        callbackExecutor.initialize();
+    }
+
+    /**
+     * Add a user to a room and return the resulting user count
+     * - Breaker open: node-local presence, queued for reconciliation
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     * @return Future of the number of users in the room (0 on error)
+     */
+    @Override
+    public CompletableFuture<Long> addUserToRoomAndCount(String roomId, String userId) {
+        try {
+            degradedState.heartbeat(roomId, userId);
+            AtomicBoolean degraded = new AtomicBoolean();
+            CompletableFuture<Long> count = circuitBreaker.executeAsync("addUserToRoom",
+                () -> heartbeat(roomId, userId),
+                () -> {
+                    degraded.set(true);
+                    degradedState.queuePresence(roomId, userId);
+                    return (long) degradedState.getRoomUsers(roomId).size();
+                });
+            return complete(invalidatePresenceUnless(degraded, roomId, count), "adding user to room " + roomId, 0L);
+        } catch (Exception e) {
+            log.error("Error adding user to room {}: {}", roomId, e.getMessage(), e);
+            return CompletableFuture.completedFuture(0L);
+        }
+    }
+
+    /**
+     * Record a presence heartbeat
+     * - Does not invalidate near-cached counts (as {@link RedisCacheServiceImpl#refreshPresence})
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     */
+    @Override
+    public CompletableFuture<Void> refreshPresence(String roomId, String userId) {
+        try {
+            degradedState.heartbeat(roomId, userId);
+            return complete(circuitBreaker.executeAsync("refreshPresence",
+                () -> heartbeat(roomId, userId).thenApply(count -> (Void) null),
+                () -> {
+                    degradedState.queuePresence(roomId, userId);
+                    return null;
+                }), "refreshing presence of user " + userId + " in room " + roomId, null);
+        } catch (Exception e) {
+            log.error("Error refreshing presence of user {} in room {}: {}", userId, roomId, e.getMessage(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Remove a user from a room and return the remaining user count
+     * - ZREM on every written key version and the count on every read version,
+     *   sent together; the first read version with members wins (as
+     *   {@link RedisCacheServiceImpl#getRoomUserCount})
+     * - Breaker open: node-local presence, queued for reconciliation
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     * @return Future of the number of users left in the room (0 on error)
+     */
+    @Override
+    public CompletableFuture<Long> removeUserFromRoomAndCount(String roomId, String userId) {
+        try {
+            degradedState.removeUser(roomId, userId);
+            AtomicBoolean degraded = new AtomicBoolean();
+            CompletableFuture<Long> count = circuitBreaker.executeAsync("removeUserFromRoom",
+                () -> removeAndCount(roomId, userId),
+                () -> {
+                    degraded.set(true);
+                    degradedState.queuePresence(roomId, userId);
+                    return (long) degradedState.getRoomUsers(roomId).size();
+                });
+            return complete(invalidatePresenceUnless(degraded, roomId, count), "removing user from room " + roomId, 0L);
+        } catch (Exception e) {
+            log.error("Error removing user from room {}: {}", roomId, e.getMessage(), e);
+            return CompletableFuture.completedFuture(0L);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (connection != null) {
+            connection.closeAsync();
+        }
+        callbackExecutor.shutdown();
+    }
+
+    private CompletableFuture<Long> heartbeat(String roomId, String userId) {
+        RedisClusterAsyncCommands<byte[], byte[]> async = commands();
+        long now = System.currentTimeMillis();
+        long window = now / presenceTimeoutMillis;
+
+        List<CompletableFuture<?>> writes = new ArrayList<>();
+        CompletableFuture<Long> count = null;
+        for (Version version : keySchema.writeVersions()) {
+            CompletableFuture<Long> result = scriptRegistry.executeAsync(async, Script.PRESENCE_HEARTBEAT,
+                List.of(keySchema.presence(version, roomId), keySchema.online(version, roomId, window),
+                    keySchema.online(version, roomId, window - 1)),
+                userId, now, presenceTimeoutMillis, maxTrackedMembers);
+            writes.add(result);
+            if (version == keySchema.primary()) {
+                count = result;
+            }
+        }
+        writes.add(indexPresenceRoom(async, roomId, now));
+
+        CompletableFuture<Long> primaryCount = count;
+        return CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new))
+            .thenApply(done -> primaryCount.join());
+    }
+
+    /**
+     * Record a room in presence:rooms for the sweeper (at most once per timeout/3 per room and node)
+     */
+    private CompletableFuture<?> indexPresenceRoom(RedisClusterAsyncCommands<byte[], byte[]> async,
+                                                   String roomId, long now) {
+        Long indexedAt = indexedRooms.getIfPresent(roomId);
+        if (indexedAt != null && now - indexedAt < presenceTimeoutMillis / 3) {
+            return CompletableFuture.completedFuture(null);
+        }
+        indexedRooms.put(roomId, now);
+        return async.zadd(key(RedisConfig.PRESENCE_ROOMS), now, value(roomId)).toCompletableFuture()
+            .whenComplete((added, error) -> {
+                if (error != null) {
+                    indexedRooms.invalidate(roomId);
+                }
+            });
+    }
+
+    private CompletableFuture<Long> removeAndCount(String roomId, String userId) {
+        RedisClusterAsyncCommands<byte[], byte[]> async = commands();
+
+        List<CompletableFuture<?>> removals = new ArrayList<>();
+        for (Version version : keySchema.writeVersions()) {
+            removals.add(async.zrem(key(keySchema.presence(version, roomId)), value(userId)).toCompletableFuture());
+        }
+        List<CompletableFuture<Long>> counts = new ArrayList<>();
+        for (Version version : keySchema.readVersions()) {
+            counts.add(countRoomUsers(async, version, roomId));
+        }
+
+        List<CompletableFuture<?>> all = new ArrayList<>(removals);
+        all.addAll(counts);
+        return CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            long users = 0L;
+            for (CompletableFuture<Long> count : counts) {
+                users = count.join();
+                if (users > 0) {
+                    break;
+                }
+            }
+            return users;
+        });
+    }
+
+    private CompletableFuture<Long> countRoomUsers(RedisClusterAsyncCommands<byte[], byte[]> async,
+                                                   Version version, String roomId) {
+        long now = System.currentTimeMillis();
+        return async.zcount(key(keySchema.presence(version, roomId)),
+                Range.create((double) (now - presenceTimeoutMillis), Double.POSITIVE_INFINITY))
+            .toCompletableFuture()
+            .thenCompose(live -> {
+                if (live < maxTrackedMembers) {
+                    return CompletableFuture.completedFuture(live);
+                }
+                // Very large room: second round trip for the HyperLogLog estimate
+                long window = now / presenceTimeoutMillis;
+                return async.pfcount(key(keySchema.online(version, roomId, window)),
+                        key(keySchema.online(version, roomId, window - 1)))
+                    .toCompletableFuture()
+                    .thenApply(estimate -> Math.max(estimate, live));
+            });
+    }
+
+    /**
+     * Invalidate near-cached presence on the callback executor once a write reached Redis
+     * (skipped when the breaker served the fallback)
+     */
+    private <T> CompletableFuture<T> invalidatePresenceUnless(AtomicBoolean degraded, String roomId,
+                                                              CompletableFuture<T> written) {
+        return written.thenApplyAsync(result -> {
+            if (!degraded.get()) {
+                nearCache.invalidate(writtenKeys(version -> keySchema.presence(version, roomId)));
+            }
+            return result;
+        }, callbackExecutor);
+    }
+
+    /**
+     * Hand the result to the callback executor; log failures and complete with the default
+     */
+    private <T> CompletableFuture<T> complete(CompletableFuture<T> pending, String operation, T defaultValue) {
+        return pending.handleAsync((result, error) -> {
+            if (error != null) {
+                log.error("Error {}: {}", operation, error.getMessage(), error);
+                return defaultValue;
+            }
+            return result;
+        }, callbackExecutor);
+    }
+
+    /**
+     * Async commands of the dedicated connection, opened on first use
+     * (Lettuce reconnects it automatically afterwards)
+     */
+    private RedisClusterAsyncCommands<byte[], byte[]> commands() {
+        RedisClusterAsyncCommands<byte[], byte[]> current = commands;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (commands == null) {
+                AbstractRedisClient client = connectionFactory.getRequiredNativeClient();
+                if (client instanceof RedisClusterClient clusterClient) {
+                    StatefulRedisClusterConnection<byte[], byte[]> cluster = clusterClient.connect(ByteArrayCodec.INSTANCE);
+                    connection = cluster;
+                    commands = cluster.async();
+                } else if (client instanceof RedisClient redisClient) {
+                    StatefulRedisConnection<byte[], byte[]> standalone = redisClient.connect(ByteArrayCodec.INSTANCE);
+                    connection = standalone;
+                    commands = standalone.async();
+                } else {
+                    throw new IllegalStateException("Unsupported Lettuce client " + client.getClass().getName());
+                }
+                log.info("Opened async Redis connection ({})", client.getClass().getSimpleName());
+            }
+            return commands;
+        }
+    }
+
+    private String[] writtenKeys(Function<Version, String> key) {
+        return keySchema.writeVersions().stream().map(key).toArray(String[]::new);
+    }
+
+    private byte[] key(String key) {
+        return keySerializer.serialize(key);
+    }
+
+    private byte[] value(Object value) {
+        return valueSerializer.serialize(value);
+    }
+}
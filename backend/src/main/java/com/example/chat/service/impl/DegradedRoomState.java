@@ -0,0 +1,254 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.dto.ChatMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local room state served while the Redis circuit breaker is open
+ *
+ * Mirrored from every write handled by this node (breaker open or not), so it is warm
+ * when the breaker trips:
+ * - Recent messages: newest 50 per room
+ * - Presence: userId -> last heartbeat millis per room (only users connected to this node)
+ * - Typing: userId -> expiry millis per room
+ * Rooms are bounded by max-rooms (Caffeine, least recently used rooms evicted first).
+ *
+ * Writes that could not reach Redis are queued for reconciliation
+ * ({@link RedisCacheServiceImpl#reconcileDegradedState()}):
+ * - Messages per room in arrival order, at most max-pending-messages-per-room; on overflow
+ *   the oldest queued messages are dropped from this queue only (they are still persisted
+ *   through Kafka and served from PostgreSQL; the shared Redis key is never cleared)
+ * - Replayed messages are acknowledged by identity, so an overflow during a replay can
+ *   never make an acknowledgement remove a message that was not replayed
+ * - Rooms whose presence changed: live local members are re-sent as heartbeats, users who
+ *   left are removed. Typing state is not reconciled (5s TTL).
+ *
+ * Metrics:
+ * - chat.redis.degraded.pending.messages, chat.redis.degraded.pending.rooms (gauges)
+ * - chat.redis.degraded.dropped.messages (counter, queue overflows)
+ */
+@Component
+public class DegradedRoomState {
+
+    private static final int MAX_RECENT_MESSAGES = 50;
+
+        private final Cache<String, Deque<ChatMessage>> recentMessages;
+    private final Cache<String, Map<String, Long>> presence;
+    private final Cache<String, Map<String, Long>> typing;
+    private final long presenceTimeoutMillis;
+    private final int maxPendingMessagesPerRoom;
+    private final Counter droppedMessages;
+
+    private final Map<String, Deque<ChatMessage>> pendingMessages = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> pendingPresence = new ConcurrentHashMap<>();
+
+    public DegradedRoomState(
+        MeterRegistry meterRegistry,
+        @Value("${chat.presence.timeout:60s}") Duration presenceTimeout,
+        @Value("${chat.redis.degraded.max-rooms:10000}") long maxRooms,
+        @Value("${chat.redis.degraded.max-pending-messages-per-room:1000}") int maxPendingMessagesPerRoom
+    ) {
+        this.presenceTimeoutMillis = presenceTimeout.toMillis();
+        this.maxPendingMessagesPerRoom = maxPendingMessagesPerRoom;
+        this.recentMessages = Caffeine.newBuilder().maximumSize(maxRooms).build();
+        this.presence = Caffeine.newBuilder().maximumSize(maxRooms).expireAfterAccess(presenceTimeout).build();
+        this.typing = Caffeine.newBuilder().maximumSize(maxRooms).expireAfterAccess(presenceTimeout).build();
+        this.droppedMessages = meterRegistry.counter("chat.redis.degraded.dropped.messages");
+
+        meterRegistry.gauge("chat.redis.degraded.pending.messages", this, DegradedRoomState::getPendingMessageCount);
+        meterRegistry.gauge("chat.redis.degraded.pending.rooms", this, DegradedRoomState::getPendingRoomCount);
+    }
+
+    public void appendRecent(String roomId, ChatMessage message) {
+        Deque<ChatMessage> messages = recentMessages.get(roomId, k -> new ArrayDeque<>());
+        synchronized (messages) {
+            messages.addLast(message);
+            while (messages.size() > MAX_RECENT_MESSAGES) {
+                messages.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * @return Newest messages of the room, oldest first (at most limit)
+     */
+    public List<ChatMessage> getRecentMessages(String roomId, int limit) {
+        Deque<ChatMessage> messages = recentMessages.getIfPresent(roomId);
+        if (messages == null) {
+            return Collections.emptyList();
+        }
+        synchronized (messages) {
+            List<ChatMessage> snapshot = new ArrayList<>(messages);
+            return List.copyOf(snapshot.subList(Math.max(0, snapshot.size() - limit), snapshot.size()));
+        }
+    }
+
+    public void queueMessage(String roomId, ChatMessage message) {
+        pendingMessages.compute(roomId, (k, queue) -> {
+            Deque<ChatMessage> messages = queue != null ? queue : new ArrayDeque<>();
+            synchronized (messages) {
+                messages.addLast(message);
+                if (messages.size() > maxPendingMessagesPerRoom) {
+                    messages.removeFirst();
+                    droppedMessages.increment();
+                }
+            }
+            return messages;
+        });
+    }
+
+    public boolean hasPendingMessages(String roomId) {
+        return pendingMessages.containsKey(roomId);
+    }
+
+    public Set<String> getPendingMessageRooms() {
+        return new HashSet<>(pendingMessages.keySet());
+    }
+
+    /**
+     * Snapshot of the messages queued for a room, oldest first (removed with {@link #ackMessage})
+     */
+    public List<ChatMessage> peekMessages(String roomId) {
+        Deque<ChatMessage> queue = pendingMessages.get(roomId);
+        if (queue == null) {
+            return Collections.emptyList();
+        }
+        synchronized (queue) {
+            return new ArrayList<>(queue);
+        }
+    }
+
+    /**
+     * Remove a replayed message from its room's queue
+     * - By identity, not position: a message dropped by an overflow since the snapshot
+     *   is simply not found
+     */
+    public void ackMessage(String roomId, ChatMessage message) {
+        pendingMessages.computeIfPresent(roomId, (k, queue) -> {
+            synchronized (queue) {
+                Iterator<ChatMessage> queued = queue.iterator();
+                while (queued.hasNext()) {
+                    if (queued.next() == message) {
+                        queued.remove();
+                        break;
+                    }
+                }
+                return queue.isEmpty() ? null : queue;
+            }
+        });
+    }
+
+    public void heartbeat(String roomId, String userId) {
+        presence.get(roomId, k -> new ConcurrentHashMap<>()).put(userId, System.currentTimeMillis());
+    }
+
+    public void removeUser(String roomId, String userId) {
+        Map<String, Long> users = presence.getIfPresent(roomId);
+        if (users != null) {
+            users.remove(userId);
+        }
+    }
+
+    /**
+     * Users of this node with a heartbeat within the presence timeout
+     */
+    public Set<String> getRoomUsers(String roomId) {
+        Map<String, Long> users = presence.getIfPresent(roomId);
+        if (users == null) {
+            return Collections.emptySet();
+        }
+        long cutoff = System.currentTimeMillis() - presenceTimeoutMillis;
+        Set<String> live = new HashSet<>();
+        users.forEach((userId, lastSeen) -> {
+            if (lastSeen >= cutoff) {
+                live.add(userId);
+            }
+        });
+        return live;
+    }
+
+    /**
+     * Remember a user whose join/heartbeat or leave did not reach Redis
+     */
+    public void queuePresence(String roomId, String userId) {
+        pendingPresence.computeIfAbsent(roomId, k -> ConcurrentHashMap.newKeySet()).add(userId);
+    }
+
+    public Set<String> getPendingPresenceRooms() {
+        return new HashSet<>(pendingPresence.keySet());
+    }
+
+    /**
+     * Take the users of a room whose presence must be reconciled
+     */
+    public Set<String> takePendingPresence(String roomId) {
+        Set<String> users = pendingPresence.remove(roomId);
+        return users != null ? users : Collections.emptySet();
+    }
+
+    /**
+     * Drop local members past the presence timeout
+     */
+    public void sweepPresence() {
+        long cutoff = System.currentTimeMillis() - presenceTimeoutMillis;
+        presence.asMap().values().forEach(users -> users.values().removeIf(lastSeen -> lastSeen < cutoff));
+    }
+
+    public void addTypingUser(String roomId, String userId, long ttlMillis) {
+        typing.get(roomId, k -> new ConcurrentHashMap<>()).put(userId, System.currentTimeMillis() + ttlMillis);
+    }
+
+    public void removeTypingUser(String roomId, String userId) {
+        Map<String, Long> users = typing.getIfPresent(roomId);
+        if (users != null) {
+            users.remove(userId);
+        }
+    }
+
+    public Set<String> getTypingUsers(String roomId) {
+        Map<String, Long> users = typing.getIfPresent(roomId);
+        if (users == null) {
+            return new HashSet<>();
+        }
+        long now = System.currentTimeMillis();
+        users.values().removeIf(expiresAt -> expiresAt < now);
+        return new HashSet<>(users.keySet());
+    }
+
+    public long getPendingMessageCount() {
+        long count = 0;
+        for (Deque<ChatMessage> queue : pendingMessages.values()) {
+            synchronized (queue) {
+                count += queue.size();
+            }
+        }
+        return count;
+    }
+
+    public int getPendingRoomCount() {
+        Set<String> rooms = new HashSet<>(pendingMessages.keySet());
+        rooms.addAll(pendingPresence.keySet());
+        return rooms.size();
+    }
+
+    public boolean hasPending() {
+        return !pendingMessages.isEmpty() || !pendingPresence.isEmpty();
+    }
+}
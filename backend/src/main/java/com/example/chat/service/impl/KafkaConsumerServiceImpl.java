@@ -1,5 +1,6 @@
 package com.example.chat.service.impl;
 
+import com.example.chat.config.DataSourceBulkhead;
 import com.example.chat.config.KafkaConfig;
 import com.example.chat.dto.ChatEvent;
 import com.example.chat.dto.ChatMessage;
@@ -14,13 +15,18 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Kafka Consumer Service Implementation
  *
  * Consumes messages and events from Kafka topics:
- * - chat.message.v1: Process incoming chat messages (cache in Redis, persist to PostgreSQL)
+ * - chat.message.v1: Process incoming chat messages (cache in Redis; batch persist to PostgreSQL)
  * - chat.event.v1: Process user presence events (update presence)
- * - chat.reaction.v1: Process message reactions (cache in Redis, persist to PostgreSQL)
+ * - chat.reaction.v1: Process message reactions (batch persist to PostgreSQL, with reaction counts)
+ *
+ * All database work runs on the consumer-writes connection-pool bulkhead.
  */
 @Service
 @RequiredArgsConstructor
@@ -37,6 +43,8 @@ public class KafkaConsumerServiceImpl implements KafkaConsumerService {
      * - Cache in Redis
      * - Log message receipt
      *
+     * Persistence is handled separately by {@link #handleChatMessageBatch(List)}
+     *
      * @param messageJson JSON string of ChatMessage from Kafka
      */
     @KafkaListener(
@@ -54,16 +62,61 @@ public class KafkaConsumerServiceImpl implements KafkaConsumerService {
             // Cache the message in Redis for recent messages
             redisCacheService.cacheRecentMessage(message.getRoomId(), message);
 
-            // Persist the message to PostgreSQL
-            persistenceService.saveMessage(message);
-
-            log.debug("Cached and persisted message: roomId={}", message.getRoomId());
+            log.debug("Cached message: roomId={}", message.getRoomId());
         } catch (Exception e) {
             log.error("Error processing chat message: {}", e.getMessage(), e);
             // Don't throw exception - continue processing next message
         }
     }
 
+    /**
+     * Handle a batch of chat messages from Kafka
+     * - Deserialize each record (malformed records are logged and skipped)
+     * - Persist the batch with one COPY-based bulk write
+     * - On bulk failure, fall back to per-message saves to isolate bad records
+     *
+     * @param messageJsons JSON strings of ChatMessage from one Kafka poll
+     */
+    @KafkaListener(
+        topics = KafkaConfig.TOPIC_CHAT_MESSAGE,
+        groupId = KafkaConfig.GROUP_MESSAGE_PERSIST,
+        containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void handleChatMessageBatch(@Payload List<String> messageJsons) {
+        List<ChatMessage> messages = new ArrayList<>(messageJsons.size());
+        for (String messageJson : messageJsons) {
+            try {
+                messages.add(objectMapper.readValue(messageJson, ChatMessage.class));
+            } catch (Exception e) {
+                log.error("Error deserializing chat message: {}", e.getMessage(), e);
+            }
+        }
+
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        DataSourceBulkhead.CONSUMER_WRITES.run(() -> persistBatch(messages));
+    }
+
+    private void persistBatch(List<ChatMessage> messages) {
+        try {
+            int inserted = persistenceService.saveMessages(messages);
+            log.debug("Persisted message batch: received={}, inserted={}", messages.size(), inserted);
+        } catch (Exception e) {
+            log.warn("Bulk persist failed for {} messages, falling back to single inserts: {}",
+                messages.size(), e.getMessage());
+
+            for (ChatMessage message : messages) {
+                try {
+                    persistenceService.saveMessage(message);
+                } catch (Exception ex) {
+                    log.error("Error persisting chat message {}: {}", message.getMessageId(), ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
     /**
      * Handle incoming chat event from Kafka
      * - Deserialize JSON to ChatEvent
@@ -95,36 +148,55 @@ public class KafkaConsumerServiceImpl implements KafkaConsumerService {
     }
 
     /**
-     * Handle incoming message reaction from Kafka
-     * - Deserialize JSON to MessageReaction
-     * - Persist to PostgreSQL
-     * - Update Redis cache
+     * Handle a batch of message reactions from Kafka
+     * - Deserialize each record (malformed records are logged and skipped)
+     * - Apply all ADD/REMOVE events in one transaction, including the
+     *   reaction count deltas
+     * - On batch failure, fall back to per-reaction saves to isolate bad records
      *
-     * @param reactionJson JSON string of MessageReaction from Kafka
+     * @param reactionJsons JSON strings of MessageReaction from one Kafka poll
      */
     @KafkaListener(
         topics = KafkaConfig.TOPIC_CHAT_REACTION,
         groupId = KafkaConfig.GROUP_PERSIST_STORE,
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "batchKafkaListenerContainerFactory"
     )
-    public void handleMessageReaction(@Payload String reactionJson) {
-        try {
-            MessageReaction reaction = objectMapper.readValue(reactionJson, MessageReaction.class);
+    public void handleMessageReactionBatch(@Payload List<String> reactionJsons) {
+        List<MessageReaction> reactions = new ArrayList<>(reactionJsons.size());
+        for (String reactionJson : reactionJsons) {
+            try {
+                reactions.add(objectMapper.readValue(reactionJson, MessageReaction.class));
+            } catch (Exception e) {
+                log.error("Error deserializing message reaction: {}", e.getMessage(), e);
+            }
+        }
 
-            log.debug("Received reaction from Kafka: messageId={}, userId={}, emoji={}, action={}",
-                reaction.getMessageId(), reaction.getUserId(), reaction.getEmoji(), reaction.getAction());
+        if (reactions.isEmpty()) {
+            return;
+        }
 
-            // Persist based on action
-            if ("ADD".equals(reaction.getAction())) {
-                persistenceService.saveReaction(reaction);
-            } else if ("REMOVE".equals(reaction.getAction())) {
-                persistenceService.removeReaction(reaction);
-            }
+        DataSourceBulkhead.CONSUMER_WRITES.run(() -> persistReactions(reactions));
+    }
 
-            log.debug("Persisted reaction: action={}", reaction.getAction());
+    private void persistReactions(List<MessageReaction> reactions) {
+        try {
+            int changed = persistenceService.applyReactions(reactions);
+            log.debug("Persisted reaction batch: received={}, changed={}", reactions.size(), changed);
         } catch (Exception e) {
-            log.error("Error processing message reaction: {}", e.getMessage(), e);
-            // Don't throw exception - continue processing next message
+            log.warn("Batch persist failed for {} reactions, falling back to single updates: {}",
+                reactions.size(), e.getMessage());
+
+            for (MessageReaction reaction : reactions) {
+                try {
+                    if ("ADD".equals(reaction.getAction())) {
+                        persistenceService.saveReaction(reaction);
+                    } else if ("REMOVE".equals(reaction.getAction())) {
+                        persistenceService.removeReaction(reaction);
+                    }
+                } catch (Exception ex) {
+                    log.error("Error persisting reaction {}: {}", reaction.getReactionId(), ex.getMessage(), ex);
+                }
+            }
         }
     }
 
@@ -0,0 +1,83 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.config.RedisConfig;
+import com.example.chat.config.RedisKeySchema;
+import com.example.chat.config.RedisKeySchema.Version;
+import com.example.chat.config.RedisScriptRegistry;
+import com.example.chat.config.RedisScriptRegistry.Script;
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.RecentMessagePage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recent messages as a capped Redis List
+ *
+ * - room:{roomId}:recent, newest at the tail, max 50 entries, TTL 600s
+ * - RPUSH + LTRIM + EXPIRE in one script call
+ * - Only the newest page can be served; history paging falls through to PostgreSQL
+ * - Written to / read from the key versions of the {@link RedisKeySchema} mode
+ *   (the v2 list is seeded from v1 on its first write, see {@link RedisKeySeeder})
+ */
+@Component
+@ConditionalOnProperty(name = "chat.redis.recent-messages.backend", havingValue = "list", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ListRecentMessageStore implements RecentMessageStore {
+
+    private static final int MAX_LENGTH = 50;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final RedisKeySchema keySchema;
+    private final RedisKeySeeder keySeeder;
+
+    @Override
+    public void append(String roomId, ChatMessage message) {
+        keySeeder.seed(version -> List.of(keySchema.recentMessages(version, roomId)));
+        for (Version version : keySchema.writeVersions()) {
+            scriptRegistry.execute(Script.CACHE_RECENT_MESSAGE, List.of(keySchema.recentMessages(version, roomId)),
+                message, MAX_LENGTH, RedisConfig.TTL_RECENT_MESSAGES);
+        }
+    }
+
+    @Override
+    public RecentMessagePage readBefore(String roomId, String beforeEntryId, int limit) {
+        if (beforeEntryId != null) {
+            return RecentMessagePage.empty();
+        }
+
+        List<Object> cachedMessages = null;
+        for (Version version : keySchema.readVersions()) {
+            cachedMessages = redisTemplate.opsForList().range(keySchema.recentMessages(version, roomId), -limit, -1);
+            if (cachedMessages != null && !cachedMessages.isEmpty()) {
+                break;
+            }
+        }
+        if (cachedMessages == null || cachedMessages.isEmpty()) {
+            return RecentMessagePage.empty();
+        }
+
+        List<ChatMessage> messages = new ArrayList<>(cachedMessages.size());
+        for (Object cached : cachedMessages) {
+            if (cached instanceof ChatMessage message) {
+                messages.add(message);
+            }
+        }
+        Collections.reverse(messages);
+        return new RecentMessagePage(messages, null);
+    }
+
+    @Override
+    public void clear(String roomId) {
+        for (Version version : keySchema.writeVersions()) {
+            redisTemplate.delete(keySchema.recentMessages(version, roomId));
+        }
+        keySeeder.forget(version -> List.of(keySchema.recentMessages(version, roomId)));
+    }
+}
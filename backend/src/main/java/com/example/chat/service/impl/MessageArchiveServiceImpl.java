@@ -0,0 +1,207 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.config.DataSourceBulkhead;
+import com.example.chat.dto.MessageHistoryRow;
+import com.example.chat.repository.ChatMessageBulkRepository;
+import com.example.chat.repository.ChatMessageHistoryRepository;
+import com.example.chat.repository.ChatMessageHistoryRepository.RoomDay;
+import com.example.chat.repository.MessageArchiveRepository;
+import com.example.chat.service.MessageArchiveService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Message Archive Service Implementation
+ *
+ * Each run walks cold room-days oldest first. Per room-day:
+ * 1. Read all rows of the day from PostgreSQL
+ * 2. Write (merge) the room-day segment file and fsync it
+ * 3. Delete exactly the archived rows by primary key in one transaction
+ *
+ * A crash between 2 and 3 leaves rows in both places; the next run re-archives
+ * them and the segment merge collapses duplicates by message ID.
+ *
+ * Only whole days before the cutoff are archived, so for every room the archive
+ * holds strictly older messages than PostgreSQL and history can continue from
+ * the database into the archive with the same keyset cursor. This relies on message
+ * timestamps being assigned by the server at ingest, never taken from clients.
+ *
+ * Deployment:
+ * - chat.archive.directory must be storage shared by all nodes (e.g. one network volume
+ *   mounted everywhere): any node serves history reads from it
+ * - One writer at a time: a run first takes a PostgreSQL session advisory lock and is
+ *   skipped on every other node while it is held
+ * - Segments expire with chat.retention.message-days (RetentionService deletes whole
+ *   room-day segments older than the message retention)
+ *
+ * Metrics:
+ * - chat.archive.rows.archived (counter)
+ * - chat.archive.disk.bytes (gauge)
+ *
+ * @see MessageArchiveService
+ */
+@Service
+@Slf4j
+public class MessageArchiveServiceImpl implements MessageArchiveService {
+
+    private final ChatMessageHistoryRepository chatMessageHistoryRepository;
+    private final ChatMessageBulkRepository chatMessageBulkRepository;
+    private final MessageArchiveRepository messageArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter archivedRows;
+
+    private static final String ARCHIVE_LOCK_NAME = "chat.archive";
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(hashtext(?))";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(hashtext(?))";
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${chat.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.archive.cold-after-days:21}")
+    private int coldAfterDays;
+
+    @Value("${chat.archive.room-days-per-run:1000}")
+    private int roomDaysPerRun;
+
+    public MessageArchiveServiceImpl(
+        ChatMessageHistoryRepository chatMessageHistoryRepository,
+        ChatMessageBulkRepository chatMessageBulkRepository,
+        MessageArchiveRepository messageArchiveRepository,
+        TransactionTemplate transactionTemplate,
+        JdbcTemplate jdbcTemplate,
+        MeterRegistry meterRegistry
+    ) {
+        this.chatMessageHistoryRepository = chatMessageHistoryRepository;
+        this.chatMessageBulkRepository = chatMessageBulkRepository;
+        this.messageArchiveRepository = messageArchiveRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.archivedRows = meterRegistry.counter("chat.archive.rows.archived");
+
+        meterRegistry.gauge("chat.archive.disk.bytes", messageArchiveRepository,
+            MessageArchiveRepository::diskUsageBytes);
+    }
+
+    /**
+     * Scheduled archive run (default: daily at 04:15, after retention)
+     * - Runs on the consumer-writes connection-pool bulkhead
+     */
+    @Scheduled(cron = "${chat.archive.cron:0 15 4 * * *}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        DataSourceBulkhead.CONSUMER_WRITES.run(this::archiveColdHistory);
+    }
+
+    @Override
+    public int archiveColdHistory() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Archive run already in progress, skipping");
+            return 0;
+        }
+
+        try {
+            // Session-level lock: held on this connection for the whole run, released in finally
+            Integer archived = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                if (!advisoryLock(connection, TRY_LOCK_SQL)) {
+                    log.info("Archive run in progress on another node, skipping");
+                    return 0;
+                }
+                try {
+                    return archiveLocked();
+                } finally {
+                    advisoryLock(connection, UNLOCK_SQL);
+                }
+            });
+            return archived != null ? archived : 0;
+        } catch (Exception e) {
+            log.error("Archive run failed: {}", e.getMessage(), e);
+            return 0;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public int deleteArchivedBefore(LocalDateTime cutoff) {
+        int deleted = messageArchiveRepository.deleteSegmentsBefore(cutoff.toLocalDate());
+        if (deleted > 0) {
+            log.info("Deleted {} archive segments before {}", deleted, cutoff.toLocalDate());
+        }
+        return deleted;
+    }
+
+    private int archiveLocked() {
+        int total = 0;
+        try {
+            LocalDateTime cutoff = LocalDate.now().minusDays(coldAfterDays).atStartOfDay();
+            List<RoomDay> roomDays = chatMessageHistoryRepository.findRoomDaysBefore(cutoff, roomDaysPerRun);
+
+            for (RoomDay roomDay : roomDays) {
+                total += archiveRoomDay(roomDay);
+            }
+            log.info("Archived {} messages from {} room-days older than {}", total, roomDays.size(), cutoff);
+        } catch (Exception e) {
+            log.error("Archive run failed after {} messages: {}", total, e.getMessage(), e);
+        }
+        return total;
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, ARCHIVE_LOCK_NAME);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private int archiveRoomDay(RoomDay roomDay) {
+        List<MessageHistoryRow> rows = chatMessageHistoryRepository.findRoomDay(roomDay.roomId(), roomDay.day());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        messageArchiveRepository.writeSegment(roomDay.roomId(), roomDay.day(), rows);
+
+        Integer deleted = transactionTemplate.execute(status -> chatMessageBulkRepository.deleteByKeys(rows));
+        int count = deleted != null ? deleted : 0;
+        archivedRows.increment(count);
+
+        log.debug("Archived {} messages of room {} on {}", count, roomDay.roomId(), roomDay.day());
+        return count;
+    }
+
+    @Override
+    public List<MessageHistoryRow> getArchivedHistoryBefore(
+        String roomId, LocalDateTime before, UUID beforeMessageId, int limit
+    ) {
+        try {
+            return messageArchiveRepository.readBefore(roomId, before, beforeMessageId, limit);
+        } catch (Exception e) {
+            log.error("Failed to read archived history for room {}: {}", roomId, e.getMessage());
+            return List.of();
+        }
+    }
+}
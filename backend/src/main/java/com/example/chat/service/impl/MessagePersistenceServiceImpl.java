@@ -1,23 +1,37 @@
 package com.example.chat.service.impl;
 
 import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.MessageHistoryRow;
 import com.example.chat.dto.MessageReaction;
+import com.example.chat.dto.MessageSearchHit;
+import com.example.chat.dto.SearchCursor;
 import com.example.chat.entity.ChatMessageEntity;
-import com.example.chat.entity.ChatRoomEntity;
-import com.example.chat.entity.MessageReactionEntity;
+import com.example.chat.repository.ChatMessageBulkRepository;
+import com.example.chat.repository.ChatMessageHistoryRepository;
 import com.example.chat.repository.ChatMessageRepository;
+import com.example.chat.repository.ChatMessageSearchRepository;
 import com.example.chat.repository.ChatRoomRepository;
-import com.example.chat.repository.MessageReactionRepository;
+import com.example.chat.repository.MessageReactionCountRepository;
+import com.example.chat.repository.MessageReactionBulkRepository;
+import com.example.chat.repository.RoomStatsRepository;
+import com.example.chat.service.MessageArchiveService;
 import com.example.chat.service.MessagePersistenceService;
+import com.example.chat.service.PartitionManagementService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
@@ -25,8 +39,17 @@ import java.util.List;
 public class MessagePersistenceServiceImpl implements MessagePersistenceService {
 
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessageBulkRepository chatMessageBulkRepository;
+    private final ChatMessageHistoryRepository chatMessageHistoryRepository;
+    private final ChatMessageSearchRepository chatMessageSearchRepository;
     private final ChatRoomRepository chatRoomRepository;
-    private final MessageReactionRepository messageReactionRepository;
+    private final MessageReactionBulkRepository messageReactionBulkRepository;
+    private final MessageReactionCountRepository messageReactionCountRepository;
+    private final RoomStatsRepository roomStatsRepository;
+    private final RoomExistenceCache roomExistenceCache;
+    private final PartitionManagementService partitionManagementService;
+    private final MessageArchiveService messageArchiveService;
+    private final PlatformTransactionManager transactionManager;
 
     @Override
     @Transactional
@@ -34,6 +57,12 @@ public class MessagePersistenceServiceImpl implements MessagePersistenceService
         try {
             ensureRoomExists(message.getRoomId());
 
+            // Redelivered message: already persisted and counted in room_stats
+            if (chatMessageRepository.existsById(message.getMessageId())) {
+                log.debug("Message already persisted: {}", message.getMessageId());
+                return;
+            }
+
             ChatMessageEntity entity = ChatMessageEntity.builder()
                 .messageId(message.getMessageId())
                 .roomId(message.getRoomId())
@@ -41,9 +70,11 @@ public class MessagePersistenceServiceImpl implements MessagePersistenceService
                 .username(message.getUsername())
                 .content(message.getContent())
                 .timestamp(message.getTimestamp())
+                .seq(message.getSeq())
                 .build();
 
             chatMessageRepository.save(entity);
+            roomStatsRepository.applyMessage(message);
             log.debug("Saved message to database: {}", message.getMessageId());
         } catch (Exception e) {
             log.error("Failed to save message: {}", message.getMessageId(), e);
@@ -53,33 +84,29 @@ public class MessagePersistenceServiceImpl implements MessagePersistenceService
 
     @Override
     @Transactional
-    public void saveReaction(MessageReaction reaction) {
-        try {
-            // Check if reaction already exists
-            var existing = messageReactionRepository.findByMessageIdAndUserIdAndEmoji(
-                reaction.getMessageId(),
-                reaction.getUserId(),
-                reaction.getEmoji()
-            );
-
-            if (existing.isPresent()) {
-                log.debug("Reaction already exists: {} by {} on {}",
-                    reaction.getEmoji(), reaction.getUserId(), reaction.getMessageId());
-                return;
-            }
+    public int saveMessages(List<ChatMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return 0;
+        }
 
-            MessageReactionEntity entity = MessageReactionEntity.builder()
-                .reactionId(reaction.getReactionId())
-                .messageId(reaction.getMessageId())
-                .roomId(reaction.getRoomId())
-                .userId(reaction.getUserId())
-                .username(reaction.getUsername())
-                .emoji(reaction.getEmoji())
-                .timestamp(reaction.getTimestamp())
-                .build();
+        messages.stream()
+            .map(ChatMessage::getRoomId)
+            .distinct()
+            .forEach(this::ensureRoomExists);
+
+        int inserted = chatMessageBulkRepository.copyInsert(messages);
+        if (inserted > 0) {
+            roomStatsRepository.applyInsertedBatch();
+        }
+        log.debug("Saved {} messages to database (batch of {})", inserted, messages.size());
+        return inserted;
+    }
 
-            messageReactionRepository.save(entity);
-            log.debug("Saved reaction to database: {} on {}", reaction.getEmoji(), reaction.getMessageId());
+    @Override
+    @Transactional
+    public void saveReaction(MessageReaction reaction) {
+        try {
+            applyChanges(List.of(reaction), List.of());
         } catch (Exception e) {
             log.error("Failed to save reaction: {}", reaction.getReactionId(), e);
             // Don't throw - reactions are non-critical
@@ -90,53 +117,166 @@ public class MessagePersistenceServiceImpl implements MessagePersistenceService
     @Transactional
     public void removeReaction(MessageReaction reaction) {
         try {
-            messageReactionRepository.deleteByMessageIdAndUserIdAndEmoji(
-                reaction.getMessageId(),
-                reaction.getUserId(),
-                reaction.getEmoji()
-            );
-            log.debug("Removed reaction from database: {} by {} on {}",
-                reaction.getEmoji(), reaction.getUserId(), reaction.getMessageId());
+            applyChanges(List.of(), List.of(reaction));
         } catch (Exception e) {
             log.error("Failed to remove reaction: {}", reaction.getReactionId(), e);
             // Don't throw - reactions are non-critical
         }
     }
 
+    /**
+     * Apply a batch of reaction ADD/REMOVE events
+     * - Only the last event per (message, user, emoji) decides its final state, so the
+     *   batch collapses to one insert-if-absent and one delete-if-present statement
+     * - Count deltas come from the rows those statements actually changed
+     */
+    @Override
+    @Transactional
+    public int applyReactions(List<MessageReaction> reactions) {
+        if (reactions == null || reactions.isEmpty()) {
+            return 0;
+        }
+
+        Map<ReactionKey, MessageReaction> latest = new LinkedHashMap<>();
+        for (MessageReaction reaction : reactions) {
+            if ("ADD".equals(reaction.getAction()) || "REMOVE".equals(reaction.getAction())) {
+                latest.put(new ReactionKey(reaction.getMessageId(), reaction.getUserId(), reaction.getEmoji()), reaction);
+            }
+        }
+
+        List<MessageReaction> adds = new ArrayList<>();
+        List<MessageReaction> removes = new ArrayList<>();
+        latest.values().forEach(reaction -> ("ADD".equals(reaction.getAction()) ? adds : removes).add(reaction));
+
+        int changed = applyChanges(adds, removes);
+        log.debug("Applied {} of {} reaction changes", changed, reactions.size());
+        return changed;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, Map<String, Integer>> getReactionCounts(List<UUID> messageIds) {
+        return messageReactionCountRepository.findByMessageIds(messageIds);
+    }
+
+    /**
+     * Insert absent reactions, delete present ones and apply the resulting count deltas
+     *
+     * @return Number of reactions that changed state
+     */
+    private int applyChanges(List<MessageReaction> adds, List<MessageReaction> removes) {
+        Map<UUID, Map<String, Integer>> deltas = messageReactionBulkRepository.insertIfAbsent(adds);
+        messageReactionBulkRepository.deleteIfPresent(removes).forEach((messageId, byEmoji) ->
+            byEmoji.forEach((emoji, count) -> deltas.computeIfAbsent(messageId, id -> new HashMap<>())
+                .merge(emoji, -count, Integer::sum)));
+
+        int changed = deltas.values().stream()
+            .flatMap(byEmoji -> byEmoji.values().stream())
+            .mapToInt(Math::abs)
+            .sum();
+        messageReactionCountRepository.applyDeltas(deltas);
+        return changed;
+    }
+
+    private record ReactionKey(UUID messageId, String userId, String emoji) {
+    }
+
+    /**
+     * History reads: only the database query runs in a read-only transaction (READS
+     * bulkhead, replica), so the archive part (segment file reads) holds no pooled connection
+     */
+    @Override
+    public List<MessageHistoryRow> getMessageHistory(String roomId, int limit) {
+        return withArchive(roomId, readOnly(() -> chatMessageHistoryRepository.findLatest(roomId, limit)),
+            null, null, limit);
+    }
+
+    @Override
+    public List<MessageHistoryRow> getMessageHistoryBefore(String roomId, LocalDateTime before, int limit) {
+        return withArchive(roomId, readOnly(() -> chatMessageHistoryRepository.findBefore(roomId, before, limit)),
+            before, null, limit);
+    }
+
+    @Override
+    public List<MessageHistoryRow> getMessageHistoryBefore(
+        String roomId, LocalDateTime before, UUID beforeMessageId, int limit
+    ) {
+        return withArchive(roomId,
+            readOnly(() -> chatMessageHistoryRepository.findBefore(roomId, before, beforeMessageId, limit)),
+            before, beforeMessageId, limit);
+    }
+
     @Override
     @Transactional(readOnly = true)
-    public List<ChatMessageEntity> getMessageHistory(String roomId, int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return chatMessageRepository.findByRoomIdOrderByTimestampDesc(roomId, pageable);
+    public List<MessageHistoryRow> getMessagesAfterSeq(String roomId, long afterSeq, int limit) {
+        return chatMessageHistoryRepository.findAfterSeq(roomId, afterSeq, limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ChatMessageEntity> getMessageHistoryBefore(String roomId, LocalDateTime before, int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return chatMessageRepository.findByRoomIdAndTimestampBeforeOrderByTimestampDesc(
-            roomId, before, pageable
-        );
+    public List<MessageSearchHit> searchMessages(String roomId, String query, SearchCursor after, int limit) {
+        return chatMessageSearchRepository.search(roomId, query, after, limit);
+    }
+
+    /**
+     * Run a query in a read-only transaction (routed to the READS bulkhead)
+     */
+    private <T> T readOnly(Supplier<T> query) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(status -> query.get());
+    }
+
+    /**
+     * Continue a short database page into the cold-history archive
+     * - Archived messages are always older than those left in PostgreSQL,
+     *   so the page resumes after its last row (or at the original cursor)
+     */
+    private List<MessageHistoryRow> withArchive(
+        String roomId, List<MessageHistoryRow> rows, LocalDateTime before, UUID beforeMessageId, int limit
+    ) {
+        if (rows.size() >= limit) {
+            return rows;
+        }
+
+        if (!rows.isEmpty()) {
+            MessageHistoryRow last = rows.get(rows.size() - 1);
+            before = last.timestamp();
+            beforeMessageId = last.messageId();
+        }
+
+        List<MessageHistoryRow> archived =
+            messageArchiveService.getArchivedHistoryBefore(roomId, before, beforeMessageId, limit - rows.size());
+        if (archived.isEmpty()) {
+            return rows;
+        }
+
+        List<MessageHistoryRow> page = new ArrayList<>(rows);
+        page.addAll(archived);
+        return page;
     }
 
     @Override
     @Transactional
     public void ensureRoomExists(String roomId) {
-        if (!chatRoomRepository.existsById(roomId)) {
-            ChatRoomEntity room = ChatRoomEntity.builder()
-                .roomId(roomId)
-                .build();
-            chatRoomRepository.save(room);
+        // Known rooms cost no database round trip
+        if (roomExistenceCache.contains(roomId)) {
+            return;
+        }
+
+        // Conflict-tolerant insert: concurrent consumers may create the same room
+        if (chatRoomRepository.insertIfAbsent(roomId) > 0) {
             log.info("Created new chat room in database: {}", roomId);
         }
+        roomExistenceCache.markExists(roomId);
     }
 
     @Override
-    @Transactional
     public void deleteOldMessages(LocalDateTime before) {
         try {
-            chatMessageRepository.deleteByTimestampBefore(before);
-            log.info("Deleted messages older than: {}", before);
+            // Whole months only: drops chat_messages partitions that end on or before the cutoff
+            int dropped = partitionManagementService.dropPartitionsBefore("chat_messages", before);
+            log.info("Deleted messages older than: {} ({} partitions dropped)", before, dropped);
         } catch (Exception e) {
             log.error("Failed to delete old messages", e);
         }
@@ -0,0 +1,144 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.service.PartitionManagementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Partition Management Service Implementation
+ *
+ * Keeps monthly partitions (created by V4 migration) rolling:
+ * - On startup and daily (chat.partitions.maintenance-cron), creates partitions
+ *   for the current month plus chat.partitions.premake-months ahead
+ * - Expiry is not scheduled here: RetentionService (chat.retention.*) drops expired
+ *   partitions through dropPartitionsBefore() and chunk-deletes the remainder
+ *
+ * Partition creation goes through the create_monthly_partition() SQL function,
+ * which also moves any rows of that month out of the default partition.
+ *
+ * @see PartitionManagementService
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PartitionManagementServiceImpl implements PartitionManagementService {
+
+    // Managed table -> partition column
+    static final Map<String, String> PARTITIONED_TABLES = new LinkedHashMap<>();
+
+    static {
+        PARTITIONED_TABLES.put("chat_messages", "timestamp");
+        PARTITIONED_TABLES.put("message_reactions", "timestamp");
+        PARTITIONED_TABLES.put("message_read_status", "read_at");
+    }
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^([a-z_]+)_p(\\d{4})_(\\d{2})$");
+
+    private static final String LIST_PARTITIONS_SQL =
+        "SELECT c.relname FROM pg_inherits i " +
+        "JOIN pg_class c ON c.oid = i.inhrelid " +
+        "JOIN pg_class p ON p.oid = i.inhparent " +
+        "WHERE p.relname = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${chat.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    /**
+     * Make sure upcoming partitions exist before the first message is consumed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            runMaintenance();
+        } catch (Exception e) {
+            log.error("Partition maintenance on startup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Scheduled maintenance (default: daily at 03:15)
+     */
+    @Scheduled(cron = "${chat.partitions.maintenance-cron:0 15 3 * * *}")
+    public void scheduledMaintenance() {
+        try {
+            runMaintenance();
+        } catch (Exception e) {
+            log.error("Scheduled partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void runMaintenance() {
+        int created = createPartitionsThrough(LocalDate.now().plusMonths(premakeMonths));
+        log.info("Partition maintenance complete: created={}", created);
+    }
+
+    @Override
+    public int createPartitionsThrough(LocalDate lastMonth) {
+        YearMonth last = YearMonth.from(lastMonth);
+        int created = 0;
+
+        for (YearMonth month = YearMonth.now(); !month.isAfter(last); month = month.plusMonths(1)) {
+            for (Map.Entry<String, String> entry : PARTITIONED_TABLES.entrySet()) {
+                Boolean result = jdbcTemplate.queryForObject(
+                    "SELECT create_monthly_partition(?, ?, ?)",
+                    Boolean.class,
+                    entry.getKey(), entry.getValue(), Date.valueOf(month.atDay(1))
+                );
+                if (Boolean.TRUE.equals(result)) {
+                    created++;
+                    log.info("Created partition {}_p{}", entry.getKey(), month.toString().replace('-', '_'));
+                }
+            }
+        }
+
+        return created;
+    }
+
+    @Override
+    public int dropPartitionsBefore(String table, LocalDateTime cutoff) {
+        if (!PARTITIONED_TABLES.containsKey(table)) {
+            throw new IllegalArgumentException("Not a partitioned table: " + table);
+        }
+
+        List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class, table);
+        int dropped = 0;
+
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches() || !matcher.group(1).equals(table)) {
+                continue;
+            }
+
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+            LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+
+            if (!monthEnd.isAfter(cutoff)) {
+                // Name is taken from the catalog and validated by PARTITION_NAME
+                jdbcTemplate.execute("DROP TABLE IF EXISTS \"" + partition + "\"");
+                dropped++;
+                log.info("Dropped expired partition {}", partition);
+            }
+        }
+
+        return dropped;
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.chat.service.impl;
 
 import com.example.chat.dto.ReadReceiptDTO;
-import com.example.chat.entity.MessageReadStatus;
-import com.example.chat.repository.MessageReadStatusRepository;
+import com.example.chat.repository.ChatMessageHistoryRepository;
+import com.example.chat.repository.ReadWatermarkRepository;
 import com.example.chat.service.ReadReceiptService;
+import com.example.chat.service.RoomSequenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -20,9 +21,13 @@ import java.util.stream.Collectors;
  *
  * Manages message read status with PostgreSQL persistence and Redis caching.
  *
+ * Storage: one watermark per (room, user) holding the highest read per-room seq
+ * (room_read_watermarks, {@link ReadWatermarkRepository}); table size is bounded by
+ * room members instead of messages x readers. "Read by" is derived from the watermarks.
+ *
  * Performance Optimization:
  * - Redis cache for last read position (TTL 1 hour)
- * - Duplicate prevention via unique constraint
+ * - Duplicate and stale receipts rejected by the monotonic upsert (no existence check)
  * - Batch query support for message history
  *
  * @see ReadReceiptService
@@ -32,30 +37,45 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ReadReceiptServiceImpl implements ReadReceiptService {
 
-    private final MessageReadStatusRepository readStatusRepository;
+    private final ReadWatermarkRepository watermarkRepository;
+    private final ChatMessageHistoryRepository historyRepository;
+    private final RoomSequenceService roomSequenceService;
     private final RedisTemplate<String, String> redisTemplate;
 
     private static final String LAST_READ_KEY_PREFIX = "room:%s:lastRead:%s"; // room:{roomId}:lastRead:{userId}
     private static final long CACHE_TTL_SECONDS = 3600; // 1 hour
 
+    /**
+     * Mark a message as read by a user
+     * - Sequence number looked up from chat_messages (see {@link #markAsRead(String, String, UUID, Long)})
+     */
+    @Override
+    @Transactional
+    public ReadReceiptDTO markAsRead(String roomId, String userId, UUID messageId) {
+        return markAsRead(roomId, userId, messageId, null);
+    }
+
     /**
      * Mark a message as read by a user
      *
      * Process:
      * 1. Check Redis cache for duplicate (same messageId)
-     * 2. Save to PostgreSQL (unique constraint prevents duplicates)
-     * 3. Update Redis cache with new messageId
-     * 4. Return DTO for broadcasting
+     * 2. Resolve the message's seq on the server (see {@link #resolveSeq})
+     * 3. Advance the watermark in PostgreSQL (no-op if already at or past seq)
+     * 4. Update Redis cache with new messageId
+     * 5. Return DTO for broadcasting
      *
      * @param roomId Room ID
      * @param userId User ID who read the message
      * @param messageId Message ID that was read
-     * @return ReadReceiptDTO for broadcasting, or null if duplicate
+     * @param seq Per-room sequence number claimed by the client, or null
+     * @return ReadReceiptDTO for broadcasting, or null if duplicate, stale, unknown or invalid
      */
     @Override
     @Transactional
-    public ReadReceiptDTO markAsRead(String roomId, String userId, UUID messageId) {
-        log.debug("[ReadReceipt] markAsRead - roomId: {}, userId: {}, messageId: {}", roomId, userId, messageId);
+    public ReadReceiptDTO markAsRead(String roomId, String userId, UUID messageId, Long seq) {
+        log.debug("[ReadReceipt] markAsRead - roomId: {}, userId: {}, messageId: {}, seq: {}",
+                roomId, userId, messageId, seq);
 
         try {
             // 1. Check Redis cache for duplicate
@@ -67,25 +87,22 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
                 return null;
             }
 
-            // 2. Check if already read in database (additional safety check)
-            if (readStatusRepository.existsByMessageIdAndUserId(messageId, userId)) {
-                log.debug("[ReadReceipt] Message already marked as read in DB - messageId: {}, userId: {}", messageId, userId);
-                // Update cache anyway
-                redisTemplate.opsForValue().set(cacheKey, messageId.toString(), CACHE_TTL_SECONDS, TimeUnit.SECONDS);
+            // 2. Resolve sequence number on the server; the client's seq is only a hint
+            Long readSeq = resolveSeq(roomId, messageId, seq);
+            if (readSeq == null) {
+                log.warn("[ReadReceipt] No valid sequence number for message, skipping - messageId: {}, roomId: {}, seq: {}",
+                        messageId, roomId, seq);
                 return null;
             }
 
-            // 3. Save to PostgreSQL
+            // 3. Advance watermark (monotonic)
             LocalDateTime now = LocalDateTime.now();
-            MessageReadStatus readStatus = MessageReadStatus.builder()
-                    .messageId(messageId)
-                    .roomId(roomId)
-                    .userId(userId)
-                    .readAt(now)
-                    .build();
-
-            readStatusRepository.save(readStatus);
-            log.info("[ReadReceipt] Saved read status - messageId: {}, userId: {}", messageId, userId);
+            if (!watermarkRepository.advance(roomId, userId, readSeq, messageId, now)) {
+                log.debug("[ReadReceipt] Watermark already at or past seq {} - roomId: {}, userId: {}",
+                        readSeq, roomId, userId);
+                return null;
+            }
+            log.info("[ReadReceipt] Advanced read watermark - roomId: {}, userId: {}, seq: {}", roomId, userId, readSeq);
 
             // 4. Update Redis cache
             redisTemplate.opsForValue().set(cacheKey, messageId.toString(), CACHE_TTL_SECONDS, TimeUnit.SECONDS);
@@ -96,6 +113,7 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
                     .roomId(roomId)
                     .userId(userId)
                     .messageId(messageId)
+                    .seq(readSeq)
                     .timestamp(now)
                     .build();
 
@@ -105,8 +123,41 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
         }
     }
 
+    /**
+     * Sequence number a read receipt may advance the watermark to
+     * - Persisted message: its seq in chat_messages; a different client seq is rejected
+     * - Not persisted yet (still in Kafka): the client seq, only if it is within the
+     *   numbers already issued for the room, so a client cannot push its watermark
+     *   past messages that do not exist
+     *
+     * @return Sequence number, or null if it cannot be resolved or does not match
+     */
+    private Long resolveSeq(String roomId, UUID messageId, Long clientSeq) {
+        Optional<Long> persisted = historyRepository.findSeq(messageId, roomId);
+        if (persisted.isPresent()) {
+            if (clientSeq != null && !clientSeq.equals(persisted.get())) {
+                log.warn("[ReadReceipt] Client seq {} does not match persisted seq {} - messageId: {}",
+                        clientSeq, persisted.get(), messageId);
+                return null;
+            }
+            return persisted.get();
+        }
+
+        if (clientSeq == null || clientSeq <= 0) {
+            return null;
+        }
+        Long issued = roomSequenceService.current(roomId);
+        if (issued == null || clientSeq > issued) {
+            log.warn("[ReadReceipt] Client seq {} beyond issued seq {} - roomId: {}, messageId: {}",
+                    clientSeq, issued, roomId, messageId);
+            return null;
+        }
+        return clientSeq;
+    }
+
     /**
      * Get list of users who read a specific message
+     * - Users whose watermark in the message's room is at or past its seq
      *
      * @param messageId Message ID
      * @return Set of user IDs who read the message
@@ -117,10 +168,8 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
         log.debug("[ReadReceipt] getUsersWhoRead - messageId: {}", messageId);
 
         try {
-            List<MessageReadStatus> readStatuses = readStatusRepository.findByMessageId(messageId);
-            Set<String> userIds = readStatuses.stream()
-                    .map(MessageReadStatus::getUserId)
-                    .collect(Collectors.toSet());
+            Set<String> userIds = watermarkRepository.findReadersByMessageIds(List.of(messageId))
+                    .getOrDefault(messageId, Collections.emptySet());
 
             log.debug("[ReadReceipt] Found {} users who read message {}", userIds.size(), messageId);
             return userIds;
@@ -134,6 +183,7 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
     /**
      * Get read status for multiple messages (batch operation)
      * Used when loading message history
+     * - One query joining the messages with their rooms' watermarks
      *
      * @param messageIds List of message IDs
      * @return Map of messageId -> Set of userIds who read it
@@ -141,21 +191,13 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
     @Override
     @Transactional(readOnly = true)
     public Map<UUID, Set<String>> getReadStatusForMessages(List<UUID> messageIds) {
-        log.debug("[ReadReceipt] getReadStatusForMessages - count: {}", messageIds.size());
-
         if (messageIds == null || messageIds.isEmpty()) {
             return Collections.emptyMap();
         }
+        log.debug("[ReadReceipt] getReadStatusForMessages - count: {}", messageIds.size());
 
         try {
-            List<MessageReadStatus> readStatuses = readStatusRepository.findByMessageIdIn(messageIds);
-
-            // Group by messageId -> Set of userIds
-            Map<UUID, Set<String>> result = readStatuses.stream()
-                    .collect(Collectors.groupingBy(
-                            MessageReadStatus::getMessageId,
-                            Collectors.mapping(MessageReadStatus::getUserId, Collectors.toSet())
-                    ));
+            Map<UUID, Set<String>> result = watermarkRepository.findReadersByMessageIds(messageIds);
 
             log.debug("[ReadReceipt] Retrieved read status for {} messages", result.size());
             return result;
@@ -166,6 +208,54 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
         }
     }
 
+    /**
+     * Get read status for messages of one room whose sequence numbers are known
+     * - One range scan over the room's watermarks at or past the lowest seq,
+     *   matched against each message in memory
+     * - Messages without seq are absent from the result
+     *
+     * @param roomId Room ID
+     * @param seqByMessageId Message ID -> per-room sequence number
+     * @return Map of messageId -> Set of userIds who read it
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, Set<String>> getReadStatusForRoomMessages(String roomId, Map<UUID, Long> seqByMessageId) {
+        Map<UUID, Long> sequenced = new HashMap<>();
+        seqByMessageId.forEach((messageId, seq) -> {
+            if (seq != null) {
+                sequenced.put(messageId, seq);
+            }
+        });
+        if (sequenced.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            long minSeq = Collections.min(sequenced.values());
+            Map<String, Long> watermarks = watermarkRepository.findRoomWatermarks(roomId, minSeq);
+
+            Map<UUID, Set<String>> result = new HashMap<>();
+            sequenced.forEach((messageId, seq) -> {
+                Set<String> readers = watermarks.entrySet().stream()
+                        .filter(watermark -> watermark.getValue() >= seq)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toSet());
+                if (!readers.isEmpty()) {
+                    result.put(messageId, readers);
+                }
+            });
+
+            log.debug("[ReadReceipt] Retrieved read status for {} messages of room {} ({} watermarks)",
+                    result.size(), roomId, watermarks.size());
+            return result;
+
+        } catch (Exception e) {
+            log.error("[ReadReceipt] Error getting read status for messages of room: {}", roomId, e);
+            return Collections.emptyMap();
+        }
+    }
+
     /**
      * Get the last message ID read by a user in a room
      * Used to determine read/unread status
@@ -190,10 +280,10 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
             }
 
             // 2. Cache miss - query database
-            Optional<MessageReadStatus> lastRead = readStatusRepository.findLastReadByRoomAndUser(roomId, userId);
+            Optional<UUID> lastRead = watermarkRepository.findLastReadMessageId(roomId, userId);
 
             if (lastRead.isPresent()) {
-                UUID messageId = lastRead.get().getMessageId();
+                UUID messageId = lastRead.get();
                 log.debug("[ReadReceipt] DB hit - lastReadMessageId: {}", messageId);
 
                 // Update cache
@@ -223,7 +313,7 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
         log.debug("[ReadReceipt] getReadCount - messageId: {}", messageId);
 
         try {
-            long count = readStatusRepository.countByMessageId(messageId);
+            long count = watermarkRepository.countReaders(messageId);
             log.debug("[ReadReceipt] Read count: {} for messageId: {}", count, messageId);
             return count;
 
@@ -246,7 +336,7 @@ public class ReadReceiptServiceImpl implements ReadReceiptService {
         log.debug("[ReadReceipt] hasUserRead - messageId: {}, userId: {}", messageId, userId);
 
         try {
-            boolean hasRead = readStatusRepository.existsByMessageIdAndUserId(messageId, userId);
+            boolean hasRead = watermarkRepository.hasRead(messageId, userId);
             log.debug("[ReadReceipt] User {} has read message {}: {}", userId, messageId, hasRead);
             return hasRead;
 
@@ -0,0 +1,39 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.RecentMessagePage;
+
+/**
+ * Redis storage backend for a room's recent messages
+ *
+ * Selected with chat.redis.recent-messages.backend:
+ * - list (default): {@link ListRecentMessageStore}, capped List, read whole
+ * - stream: {@link StreamRecentMessageStore}, Redis Stream with ID-based paging
+ */
+public interface RecentMessageStore {
+
+    /**
+     * Append a message to the room's recent messages
+     *
+     * @param roomId Room ID
+     * @param message Message to append
+     */
+    void append(String roomId, ChatMessage message);
+
+    /**
+     * Read a page of messages, newest first
+     *
+     * @param roomId Room ID
+     * @param beforeEntryId Exclusive upper bound from a previous page (null = newest)
+     * @param limit Maximum number of messages
+     * @return Page of messages (empty if the backend cannot serve the position)
+     */
+    RecentMessagePage readBefore(String roomId, String beforeEntryId, int limit);
+
+    /**
+     * Delete the room's recent messages (before rebuilding them from a replay)
+     *
+     * @param roomId Room ID
+     */
+    void clear(String roomId);
+}
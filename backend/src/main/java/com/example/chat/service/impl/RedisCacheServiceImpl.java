@@ -1,32 +1,63 @@
 package com.example.chat.service.impl;
 
 import com.example.chat.config.RedisConfig;
+import com.example.chat.config.RedisKeySchema;
+import com.example.chat.config.RedisKeySchema.Version;
+import com.example.chat.config.RedisScriptRegistry;
+import com.example.chat.config.RedisScriptRegistry.Script;
 import com.example.chat.dto.ChatMessage;
 import com.example.chat.dto.ReactionSummary;
+import com.example.chat.dto.RedisBreakerStatus;
+import com.example.chat.dto.RecentMessagePage;
 import com.example.chat.service.RedisCacheService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Redis Cache Service Implementation
  *
  * Manages:
- * - Recent messages cache (FIFO, max 50, TTL 600s)
- * - Room user presence (Set)
- * - Message reactions (Hash per message)
+ * - Recent messages cache (List: FIFO, max 50, TTL 600s; or Stream: MAXLEN ~, paged reads)
+ * - Room user presence (Sorted Set scored by last heartbeat, per-user expiry)
+ * - Message reactions (Set per message and emoji, counter Hash per message)
  *
- * Redis Key Schema:
- * - room:{roomId}:recent - Recent messages (List)
- * - room:{roomId}:users - Active users (Set)
- * - message:{messageId}:reactions - Message reactions (Hash: emoji -> Set<userId>)
+ * Redis Key Schema ({@link RedisKeySchema}; v2 wraps roomId/messageId in a cluster hash tag,
+ * writes and reads follow chat.redis.key-schema.mode during the migration):
+ * - room:{roomId}:recent - Recent messages (List, default backend)
+ * - room:{roomId}:stream - Recent messages (Stream, chat.redis.recent-messages.backend=stream)
+ * - room:{roomId}:presence - Active users (Sorted Set: userId -> last heartbeat millis)
+ * - room:{roomId}:online:{window} - Users seen per presence window (HyperLogLog)
+ * - presence:rooms - Rooms with recent heartbeats (Sorted Set, swept periodically; not versioned)
+ * - message:{messageId}:reactions:{emoji} - Users who reacted with an emoji (Set)
+ * - message:{messageId}:reaction_counts - Reaction counts (Hash: emoji -> count)
+ *
+ * Reads of recent messages, room user counts and reaction summaries go through
+ * {@link RedisNearCache}; every write here invalidates the affected key on all nodes.
+ * Invalidation (a PUBLISH) runs after the breaker has recorded the write, so it is not
+ * timed as the guarded call, and only when the write reached Redis.
+ *
+ * Multi-step updates (recent-message append, presence heartbeat, typing add + TTL,
+ * reaction add/remove)
+ * run as Lua scripts via {@link RedisScriptRegistry}: one round trip each.
+ *
+ * All Redis access goes through {@link RedisCircuitBreaker}. While it is open, recent
+ * messages, presence and typing are served from {@link DegradedRoomState} (this node's view),
+ * reactions read as empty, and queued writes are replayed once Redis is healthy again.
  *
  * TDD Phase 1 & Phase 3.2: Implementation to make tests GREEN
  */
@@ -35,14 +66,37 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RedisCacheServiceImpl implements RedisCacheService {
 
+    private static final int MAX_RECENT_MESSAGES = 50;
+    private static final int TTL_TYPING_SECONDS = 5;
+    private static final int TTL_REACTIONS_SECONDS = 86400;
+
+    // Supported reaction emojis (as validated by MessageReaction / ReactionRequest)
+    private static final List<String> REACTION_EMOJIS = List.of("HEART", "LAUGH", "WOW", "SAD", "THUMBS_UP", "FIRE");
+
     private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final RedisScriptRegistry scriptRegistry;
+    private final RedisNearCache nearCache;
+    private final RecentMessageStore recentMessageStore;
+    private final RedisKeySchema keySchema;
+    private final RedisKeySeeder keySeeder;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final DegradedRoomState degradedState;
+
+    // roomId -> last time this node wrote the room to presence:rooms (epoch millis)
+    private final Cache<String, Long> indexedRooms = Caffeine.newBuilder().maximumSize(100_000).build();
+
+    @Value("${chat.presence.timeout:60s}")
+    private Duration presenceTimeout;
+
+    @Value("${chat.presence.max-tracked-members:10000}")
+    private int maxTrackedMembers;
 
     /**
      * Cache a recent message for a room
-     * - Stores in Redis List
-     * - FIFO: Max 50 messages
-     * - TTL: 600 seconds
+     * - Stored by the configured {@link RecentMessageStore}
+     *   (List: max 50, TTL 600s; Stream: MAXLEN ~ 5000, TTL 24h)
+     * - Append + trim + TTL in one script call
+     * - Breaker open, or older messages of the room still queued: queued for replay
      *
      * @param roomId Room ID
      * @param message ChatMessage to cache
@@ -50,19 +104,22 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public void cacheRecentMessage(String roomId, ChatMessage message) {
         try {
-            String key = buildRecentMessagesKey(roomId);
-
-            // Add message to list (right push - append to end)
-            redisTemplate.opsForList().rightPush(key, message);
-
-            // Keep only last 50 messages (FIFO - remove oldest)
-            Long listSize = redisTemplate.opsForList().size(key);
-            if (listSize != null && listSize > 50) {
-                redisTemplate.opsForList().trim(key, listSize - 50, -1);
+            degradedState.appendRecent(roomId, message);
+            if (degradedState.hasPendingMessages(roomId)) {
+                // Keep arrival order until the queued messages have been replayed
+                degradedState.queueMessage(roomId, message);
+                return;
+            }
+            AtomicBoolean degraded = new AtomicBoolean();
+            circuitBreaker.run("cacheRecentMessage",
+                () -> recentMessageStore.append(roomId, message),
+                () -> {
+                    degraded.set(true);
+                    degradedState.queueMessage(roomId, message);
+                });
+            if (!degraded.get()) {
+                nearCache.invalidate(writtenKeys(version -> keySchema.recentMessages(version, roomId)));
             }
-
-            // Set TTL for the key
-            redisTemplate.expire(key, RedisConfig.TTL_RECENT_MESSAGES, TimeUnit.SECONDS);
 
             log.debug("Cached message for room {}: {}", roomId, message.getMessageId());
         } catch (Exception e) {
@@ -72,33 +129,59 @@ public class RedisCacheServiceImpl implements RedisCacheService {
 
     /**
      * Get recent messages for a room
+     * - Served from the near cache when present
+     * - Breaker open: node-local copy (fallback results are not near-cached)
      *
      * @param roomId Room ID
-     * @return List of recent messages (max 50)
+     * @return List of recent messages, oldest first (max 50, unmodifiable)
      */
     @Override
     public List<ChatMessage> getRecentMessages(String roomId) {
         try {
-            String key = buildRecentMessagesKey(roomId);
-
-            // Get all messages from the list
-            List<Object> cachedMessages = redisTemplate.opsForList().range(key, 0, -1);
-
-            if (cachedMessages == null || cachedMessages.isEmpty()) {
-                return Collections.emptyList();
-            }
-
-            // Convert Objects to ChatMessage
-            return cachedMessages.stream()
-                .filter(msg -> msg instanceof ChatMessage)
-                .map(msg -> (ChatMessage) msg)
-                .collect(Collectors.toList());
+            List<ChatMessage> cached = nearCache.get(keySchema.recentMessages(keySchema.primary(), roomId),
+                () -> circuitBreaker.execute("getRecentMessages", () -> {
+                    List<ChatMessage> messages = new ArrayList<>(
+                        recentMessageStore.readBefore(roomId, null, MAX_RECENT_MESSAGES).messages());
+                    Collections.reverse(messages);
+                    return List.copyOf(messages);
+                }, () -> null));
+            return cached != null ? cached : degradedState.getRecentMessages(roomId, MAX_RECENT_MESSAGES);
         } catch (Exception e) {
             log.error("Error retrieving recent messages for room {}: {}", roomId, e.getMessage(), e);
             return Collections.emptyList();
         }
     }
 
+    /**
+     * Get a page of recent messages, newest first
+     * - Stream backend: XREVRANGE bounded by the previous page's oldest entry ID
+     * - List backend: newest page only
+     * - Breaker open: newest page from the node-local copy, without entry IDs
+     *
+     * @param roomId Room ID
+     * @param beforeEntryId Oldest entry ID of the previous page (null = newest)
+     * @param limit Maximum number of messages
+     * @return Page of messages (empty on error)
+     */
+    @Override
+    public RecentMessagePage getRecentMessagesBefore(String roomId, String beforeEntryId, int limit) {
+        try {
+            return circuitBreaker.execute("getRecentMessagesBefore",
+                () -> recentMessageStore.readBefore(roomId, beforeEntryId, limit),
+                () -> {
+                    if (beforeEntryId != null) {
+                        return RecentMessagePage.empty();
+                    }
+                    List<ChatMessage> messages = new ArrayList<>(degradedState.getRecentMessages(roomId, limit));
+                    Collections.reverse(messages);
+                    return new RecentMessagePage(messages, null);
+                });
+        } catch (Exception e) {
+            log.error("Error retrieving recent message page for room {}: {}", roomId, e.getMessage(), e);
+            return RecentMessagePage.empty();
+        }
+    }
+
     /**
      * Add a user to a room
      *
@@ -107,23 +190,107 @@ public class RedisCacheServiceImpl implements RedisCacheService {
      */
     @Override
     public void addUserToRoom(String roomId, String userId) {
-        try {
-            String key = buildRoomUsersKey(roomId);
-
-            // Add user to set
-            redisTemplate.opsForSet().add(key, userId);
+        addUserToRoomAndCount(roomId, userId);
+    }
 
-            // Set TTL for the key
-            redisTemplate.expire(key, RedisConfig.TTL_ROOM_USERS, TimeUnit.SECONDS);
+    /**
+     * Add a user to a room and return the resulting user count
+     * - Records a presence heartbeat (see {@link #refreshPresence(String, String)})
+     * - Breaker open: node-local presence, queued for reconciliation
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     * @return Number of users in the room (0 on error)
+     */
+    @Override
+    public long addUserToRoomAndCount(String roomId, String userId) {
+        try {
+            degradedState.heartbeat(roomId, userId);
+            AtomicBoolean degraded = new AtomicBoolean();
+            Long count = circuitBreaker.execute("addUserToRoom", () -> heartbeat(roomId, userId), () -> {
+                degraded.set(true);
+                degradedState.queuePresence(roomId, userId);
+                return (long) degradedState.getRoomUsers(roomId).size();
+            });
+            if (!degraded.get()) {
+                nearCache.invalidate(writtenKeys(version -> keySchema.presence(version, roomId)));
+            }
 
             log.debug("Added user {} to room {}", userId, roomId);
+            return count != null ? count : 0L;
         } catch (Exception e) {
             log.error("Error adding user to room {}: {}", roomId, e.getMessage(), e);
+            return 0L;
+        }
+    }
+
+    /**
+     * Record a presence heartbeat
+     * - ZADD with the current time as score, drop members past the timeout,
+     *   PFADD into the current HyperLogLog window, all in one script call
+     * - Rooms at max-tracked-members stop admitting new members to the sorted set;
+     *   their count comes from the HyperLogLog windows instead
+     * - Does not invalidate near-cached counts (expiry-only changes are covered by the near-cache TTL)
+     *
+     * @param roomId Room ID
+     * @param userId User ID
+     */
+    @Override
+    public void refreshPresence(String roomId, String userId) {
+        try {
+            degradedState.heartbeat(roomId, userId);
+            circuitBreaker.run("refreshPresence",
+                () -> heartbeat(roomId, userId),
+                () -> degradedState.queuePresence(roomId, userId));
+        } catch (Exception e) {
+            log.error("Error refreshing presence of user {} in room {}: {}", userId, roomId, e.getMessage(), e);
+        }
+    }
+
+    private Long heartbeat(String roomId, String userId) {
+        long now = System.currentTimeMillis();
+        long timeoutMillis = presenceTimeout.toMillis();
+        long window = now / timeoutMillis;
+
+        Long count = null;
+        for (Version version : keySchema.writeVersions()) {
+            Long result = scriptRegistry.execute(Script.PRESENCE_HEARTBEAT,
+                List.of(keySchema.presence(version, roomId), keySchema.online(version, roomId, window),
+                    keySchema.online(version, roomId, window - 1)),
+                userId, now, timeoutMillis, maxTrackedMembers);
+            if (version == keySchema.primary()) {
+                count = result;
+            }
+        }
+        indexPresenceRoom(roomId, now, timeoutMillis);
+        return count;
+    }
+
+    /**
+     * Record a room in presence:rooms for the sweeper
+     * - Outside the heartbeat script: the index is a global key in another cluster slot
+     * - At most once per timeout/3 per room and node; the sweeper only needs rooms
+     *   with a heartbeat within the timeout
+     */
+    private void indexPresenceRoom(String roomId, long now, long timeoutMillis) {
+        Long indexedAt = indexedRooms.getIfPresent(roomId);
+        if (indexedAt != null && now - indexedAt < timeoutMillis / 3) {
+            return;
+        }
+        redisTemplate.opsForZSet().add(RedisConfig.PRESENCE_ROOMS, roomId, now);
+        indexedRooms.put(roomId, now);
+    }
+
+    private void removePresence(String roomId, String userId) {
+        for (Version version : keySchema.writeVersions()) {
+            redisTemplate.opsForZSet().remove(keySchema.presence(version, roomId), userId);
         }
     }
 
     /**
      * Remove a user from a room
+     * - The HyperLogLog windows cannot forget a user; approximate counts drop
+     *   once the windows the user was seen in roll over
      *
      * @param roomId Room ID
      * @param userId User ID
@@ -131,10 +298,17 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public void removeUserFromRoom(String roomId, String userId) {
         try {
-            String key = buildRoomUsersKey(roomId);
-
-            // Remove user from set
-            redisTemplate.opsForSet().remove(key, userId);
+            degradedState.removeUser(roomId, userId);
+            AtomicBoolean degraded = new AtomicBoolean();
+            circuitBreaker.run("removeUserFromRoom",
+                () -> removePresence(roomId, userId),
+                () -> {
+                    degraded.set(true);
+                    degradedState.queuePresence(roomId, userId);
+                });
+            if (!degraded.get()) {
+                nearCache.invalidate(writtenKeys(version -> keySchema.presence(version, roomId)));
+            }
 
             log.debug("Removed user {} from room {}", userId, roomId);
         } catch (Exception e) {
@@ -144,6 +318,9 @@ public class RedisCacheServiceImpl implements RedisCacheService {
 
     /**
      * Get all users in a room
+     * - Only members whose last heartbeat is within the presence timeout
+     *   (capped at max-tracked-members for very large rooms)
+     * - Breaker open: users connected to this node
      *
      * @param roomId Room ID
      * @return Set of user IDs
@@ -151,20 +328,22 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public Set<String> getRoomUsers(String roomId) {
         try {
-            String key = buildRoomUsersKey(roomId);
-
-            // Get all members from set
-            Set<Object> members = redisTemplate.opsForSet().members(key);
+            return circuitBreaker.execute("getRoomUsers", () -> {
+                // Get live members from sorted set
+                double cutoff = presenceCutoff();
+                Set<Object> members = readFirst(version -> redisTemplate.opsForZSet()
+                    .rangeByScore(keySchema.presence(version, roomId), cutoff, Double.POSITIVE_INFINITY));
 
-            if (members == null || members.isEmpty()) {
-                return Collections.emptySet();
-            }
+                if (members == null || members.isEmpty()) {
+                    return Collections.<String>emptySet();
+                }
 
-            // Convert Objects to Strings
-            return members.stream()
-                .filter(member -> member instanceof String)
-                .map(member -> (String) member)
-                .collect(Collectors.toSet());
+                // Convert Objects to Strings
+                return members.stream()
+                    .filter(member -> member instanceof String)
+                    .map(member -> (String) member)
+                    .collect(Collectors.toSet());
+            }, () -> degradedState.getRoomUsers(roomId));
         } catch (Exception e) {
             log.error("Error retrieving room users for room {}: {}", roomId, e.getMessage(), e);
             return Collections.emptySet();
@@ -172,24 +351,88 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     }
 
     /**
-     * Build Redis key for recent messages
+     * Remove expired presence members from all recently active rooms
+     * - ZREMRANGEBYSCORE per room (pipelined), then drop idle rooms from presence:rooms
+     * - Rooms idle for longer than the timeout need no sweep: their sorted set has expired
+     * - Also drops expired members of the node-local presence
+     *
+     * @return Number of members removed
      */
-    private String buildRecentMessagesKey(String roomId) {
-        return RedisConfig.CACHE_RECENT_MESSAGES + roomId + RedisConfig.RECENT_MESSAGES_SUFFIX;
+    @Override
+    @Scheduled(fixedDelayString = "${chat.presence.sweep-interval-ms:15000}")
+    public long sweepExpiredPresence() {
+        try {
+            degradedState.sweepPresence();
+            return circuitBreaker.execute("sweepExpiredPresence", this::sweepRedisPresence, () -> 0L);
+        } catch (Exception e) {
+            log.error("Error sweeping expired presence: {}", e.getMessage(), e);
+            return 0L;
+        }
+    }
+
+    private long sweepRedisPresence() {
+        double cutoff = presenceCutoff();
+        Set<Object> rooms = redisTemplate.opsForZSet()
+            .rangeByScore(RedisConfig.PRESENCE_ROOMS, cutoff, Double.POSITIVE_INFINITY);
+
+        long removed = 0;
+        if (rooms != null && !rooms.isEmpty()) {
+            List<Object> results = redisTemplate.executePipelined(pipelined(operations -> {
+                for (Object roomId : rooms) {
+                    for (Version version : keySchema.writeVersions()) {
+                        operations.opsForZSet().removeRangeByScore(
+                            keySchema.presence(version, (String) roomId), Double.NEGATIVE_INFINITY, cutoff);
+                    }
+                }
+            }));
+            for (Object result : results) {
+                removed += result instanceof Number count ? count.longValue() : 0L;
+            }
+        }
+        redisTemplate.opsForZSet().removeRangeByScore(RedisConfig.PRESENCE_ROOMS, Double.NEGATIVE_INFINITY, cutoff);
+
+        if (removed > 0) {
+            log.debug("Presence sweep removed {} expired members across {} rooms", removed, rooms.size());
+        }
+        return removed;
     }
 
     /**
-     * Build Redis key for room users
+     * Keys of every written schema version, for near-cache invalidation
+     * (nodes still on the previous migration step cache the other version's key)
      */
-    private String buildRoomUsersKey(String roomId) {
-        return RedisConfig.CACHE_ROOM_USERS + roomId + RedisConfig.ROOM_USERS_SUFFIX;
+    private String[] writtenKeys(Function<Version, String> key) {
+        return keySchema.writeVersions().stream().map(key).toArray(String[]::new);
+    }
+
+    /**
+     * Read the schema versions in order of preference, return the first non-empty result
+     */
+    private <T extends Collection<?>> T readFirst(Function<Version, T> read) {
+        T result = null;
+        for (Version version : keySchema.readVersions()) {
+            result = read.apply(version);
+            if (result != null && !result.isEmpty()) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    private double presenceCutoff() {
+        return System.currentTimeMillis() - presenceTimeout.toMillis();
     }
 
     /**
      * Add a reaction to a message
-     * - Stores in Redis Hash: message:{messageId}:reactions
-     * - Field: emoji, Value: Set of user IDs (JSON)
-     * - TTL: 86400 seconds (24 hours)
+     * - Set per emoji: message:{messageId}:reactions:{emoji} -> userIds
+     * - Counter hash: message:{messageId}:reaction_counts -> emoji -> count
+     * - SADD + HINCRBY (only if newly added) + TTL refresh in one script call,
+     *   so concurrent reactions are never lost
+     * - TTL: 86400 seconds (24 hours), shared by all keys of the message; every emoji set
+     *   is passed as a declared key, so the script touches no key it was not given
+     * - While both key schemas are written, the message's v1 keys are copied to v2 before
+     *   its first v2 write (also on removal), so v2 counts never start from zero
      *
      * @param messageId Message ID
      * @param emoji Emoji type (HEART, LAUGH, WOW, SAD, THUMBS_UP, FIRE)
@@ -198,22 +441,30 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public void addReaction(UUID messageId, String emoji, String userId) {
         try {
-            String key = buildReactionKey(messageId);
-
-            // Get existing reactions for this emoji
-            Set<String> users = getReactionUsersForEmoji(key, emoji);
-
-            // Add user to the set
-            users.add(userId);
-
-            // Store back to Redis as JSON
-            String usersJson = objectMapper.writeValueAsString(users);
-            redisTemplate.opsForHash().put(key, emoji, usersJson);
-
-            // Set TTL for the key (24 hours)
-            redisTemplate.expire(key, 86400, TimeUnit.SECONDS);
+            AtomicBoolean degraded = new AtomicBoolean();
+            Long added = circuitBreaker.execute("addReaction", () -> {
+                keySeeder.seed(version -> reactionKeys(version, messageId));
+                Long primaryResult = null;
+                for (Version version : keySchema.writeVersions()) {
+                    List<String> keys = new ArrayList<>(2 + REACTION_EMOJIS.size());
+                    keys.add(keySchema.reactionUsers(version, messageId, emoji));
+                    keys.add(keySchema.reactionCounts(version, messageId));
+                    REACTION_EMOJIS.forEach(each -> keys.add(keySchema.reactionUsers(version, messageId, each)));
+                    Long result = scriptRegistry.execute(Script.ADD_REACTION, keys, userId, emoji, TTL_REACTIONS_SECONDS);
+                    if (version == keySchema.primary()) {
+                        primaryResult = result;
+                    }
+                }
+                return primaryResult;
+            }, () -> {
+                degraded.set(true);
+                return null;
+            });
+            if (!degraded.get()) {
+                nearCache.invalidate(writtenKeys(version -> keySchema.reactionCounts(version, messageId)));
+            }
 
-            log.debug("Added reaction {} from user {} to message {}", emoji, userId, messageId);
+            log.debug("Added reaction {} from user {} to message {} (new={})", emoji, userId, messageId, added);
         } catch (Exception e) {
             log.error("Error adding reaction to message {}: {}", messageId, e.getMessage(), e);
         }
@@ -221,6 +472,8 @@ public class RedisCacheServiceImpl implements RedisCacheService {
 
     /**
      * Remove a reaction from a message
+     * - SREM + HINCRBY -1 (only if it existed) in one script call;
+     *   the emoji's counter field is deleted when it reaches zero
      *
      * @param messageId Message ID
      * @param emoji Emoji type
@@ -229,31 +482,48 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public void removeReaction(UUID messageId, String emoji, String userId) {
         try {
-            String key = buildReactionKey(messageId);
-
-            // Get existing reactions for this emoji
-            Set<String> users = getReactionUsersForEmoji(key, emoji);
-
-            // Remove user from the set
-            users.remove(userId);
-
-            if (users.isEmpty()) {
-                // If no more users for this emoji, remove the field
-                redisTemplate.opsForHash().delete(key, emoji);
-            } else {
-                // Store back to Redis as JSON
-                String usersJson = objectMapper.writeValueAsString(users);
-                redisTemplate.opsForHash().put(key, emoji, usersJson);
+            AtomicBoolean degraded = new AtomicBoolean();
+            Long removed = circuitBreaker.execute("removeReaction", () -> {
+                keySeeder.seed(version -> reactionKeys(version, messageId));
+                Long primaryResult = null;
+                for (Version version : keySchema.writeVersions()) {
+                    Long result = scriptRegistry.execute(Script.REMOVE_REACTION,
+                        List.of(keySchema.reactionUsers(version, messageId, emoji), keySchema.reactionCounts(version, messageId)),
+                        userId, emoji);
+                    if (version == keySchema.primary()) {
+                        primaryResult = result;
+                    }
+                }
+                return primaryResult;
+            }, () -> {
+                degraded.set(true);
+                return null;
+            });
+            if (!degraded.get()) {
+                nearCache.invalidate(writtenKeys(version -> keySchema.reactionCounts(version, messageId)));
             }
 
-            log.debug("Removed reaction {} from user {} on message {}", emoji, userId, messageId);
+            log.debug("Removed reaction {} from user {} on message {} (existed={})", emoji, userId, messageId, removed);
         } catch (Exception e) {
             log.error("Error removing reaction from message {}: {}", messageId, e.getMessage(), e);
         }
     }
 
+    /**
+     * All reaction keys of a message, counter hash first (the seeding anchor)
+     */
+    private List<String> reactionKeys(Version version, UUID messageId) {
+        List<String> keys = new ArrayList<>(1 + REACTION_EMOJIS.size());
+        keys.add(keySchema.reactionCounts(version, messageId));
+        REACTION_EMOJIS.forEach(emoji -> keys.add(keySchema.reactionUsers(version, messageId, emoji)));
+        return keys;
+    }
+
     /**
      * Get all reactions for a message
+     * - Emojis come from the counter hash; one SMEMBERS per emoji with reactions
+     * - Served from the near cache when present (keyed by the counter hash)
+     * - Breaker open: empty (reactions are not kept node-locally)
      *
      * @param messageId Message ID
      * @return ReactionSummary containing all reactions
@@ -261,41 +531,88 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public ReactionSummary getReactions(UUID messageId) {
         try {
-            String key = buildReactionKey(messageId);
-
-            Map<Object, Object> reactionsMap = redisTemplate.opsForHash().entries(key);
-
-            if (reactionsMap == null || reactionsMap.isEmpty()) {
-                return new ReactionSummary();
-            }
+            ReactionSummary cached = nearCache.get(keySchema.reactionCounts(keySchema.primary(), messageId),
+                () -> circuitBreaker.execute("getReactions", () -> {
+                    ReactionSummary summary = new ReactionSummary();
 
-            ReactionSummary summary = new ReactionSummary();
+                    for (Version version : keySchema.readVersions()) {
+                        Map<String, Long> counts = readReactionCounts(version, messageId);
+                        if (counts.isEmpty()) {
+                            continue;
+                        }
+                        for (String emoji : counts.keySet()) {
+                            Set<Object> members = redisTemplate.opsForSet()
+                                .members(keySchema.reactionUsers(version, messageId, emoji));
+                            if (members == null || members.isEmpty()) {
+                                continue;
+                            }
+                            summary.getReactions().put(emoji, members.stream()
+                                .filter(member -> member instanceof String)
+                                .map(member -> (String) member)
+                                .collect(Collectors.toSet()));
+                        }
+                        break;
+                    }
 
-            for (Map.Entry<Object, Object> entry : reactionsMap.entrySet()) {
-                String emoji = (String) entry.getKey();
-                String usersJson = (String) entry.getValue();
-
-                try {
-                    Set<String> users = objectMapper.readValue(usersJson, new TypeReference<Set<String>>() {});
-                    summary.getReactions().put(emoji, users);
-                } catch (Exception e) {
-                    log.error("Error parsing reaction users for emoji {}: {}", emoji, e.getMessage());
-                }
-            }
-
-            return summary;
+                    return summary;
+                }, () -> null));
+            return cached != null ? cached : new ReactionSummary();
         } catch (Exception e) {
             log.error("Error retrieving reactions for message {}: {}", messageId, e.getMessage(), e);
             return new ReactionSummary();
         }
     }
 
+    /**
+     * Get reaction counts for a message without loading the reactor sets
+     *
+     * @param messageId Message ID
+     * @return Map of emoji -> count (only emojis with at least one reaction)
+     */
+    @Override
+    public Map<String, Long> getReactionCounts(UUID messageId) {
+        try {
+            return circuitBreaker.execute("getReactionCounts", () -> {
+                Map<String, Long> result = new HashMap<>();
+                for (Version version : keySchema.readVersions()) {
+                    result = readReactionCounts(version, messageId);
+                    if (!result.isEmpty()) {
+                        break;
+                    }
+                }
+                return result;
+            }, Collections::emptyMap);
+        } catch (Exception e) {
+            log.error("Error retrieving reaction counts for message {}: {}", messageId, e.getMessage(), e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<String, Long> readReactionCounts(Version version, UUID messageId) {
+        Map<Object, Object> counts = redisTemplate.opsForHash().entries(keySchema.reactionCounts(version, messageId));
+
+        Map<String, Long> result = new HashMap<>();
+        counts.forEach((emoji, count) -> {
+            long value = count instanceof Number number ? number.longValue() : Long.parseLong(count.toString());
+            if (value > 0) {
+                result.put((String) emoji, value);
+            }
+        });
+        return result;
+    }
+
     /**
      * Get reactions for multiple messages
      * Useful for batch loading reactions when fetching recent messages
+     * - Near-cache hits are served locally; for the rest, two pipelined round trips
+     *   regardless of the number of messages:
+     *   1. HGETALL message:{id}:reaction_counts for every message
+     *   2. SMEMBERS message:{id}:reactions:{emoji} for every emoji found
+     * - Loaded summaries (including empty ones) are put into the near cache
+     * - Breaker open: near-cached summaries only
      *
      * @param messageIds List of message IDs
-     * @return Map of messageId -> ReactionSummary
+     * @return Map of messageId -> ReactionSummary (messages without reactions are omitted)
      */
     @Override
     public Map<UUID, ReactionSummary> getReactionsForMessages(List<UUID> messageIds) {
@@ -305,40 +622,117 @@ public class RedisCacheServiceImpl implements RedisCacheService {
             return result;
         }
 
-        for (UUID messageId : messageIds) {
-            ReactionSummary summary = getReactions(messageId);
-            if (summary.getTotalReactionCount() > 0) {
-                result.put(messageId, summary);
+        try {
+            List<UUID> ids = new ArrayList<>();
+            for (UUID messageId : new LinkedHashSet<>(messageIds)) {
+                ReactionSummary cached = nearCache.getIfPresent(keySchema.reactionCounts(keySchema.primary(), messageId));
+                if (cached == null) {
+                    ids.add(messageId);
+                } else if (cached.getTotalReactionCount() > 0) {
+                    result.put(messageId, cached);
+                }
             }
-        }
 
-        return result;
-    }
+            if (ids.isEmpty()) {
+                return result;
+            }
 
-    /**
-     * Build Redis key for message reactions
-     */
-    private String buildReactionKey(UUID messageId) {
-        return "message:" + messageId + ":reactions";
+            Map<UUID, ReactionSummary> loaded = circuitBreaker.execute("getReactionsForMessages",
+                () -> loadReactions(ids), () -> null);
+            if (loaded == null) {
+                // Breaker open: near-cached summaries only
+                return result;
+            }
+
+            for (UUID messageId : ids) {
+                ReactionSummary summary = loaded.getOrDefault(messageId, new ReactionSummary());
+                nearCache.put(keySchema.reactionCounts(keySchema.primary(), messageId), summary);
+                if (summary.getTotalReactionCount() > 0) {
+                    result.put(messageId, summary);
+                }
+            }
+
+            return result;
+        } catch (Exception e) {
+            log.error("Error retrieving reactions for {} messages: {}", messageIds.size(), e.getMessage(), e);
+            return new HashMap<>();
+        }
     }
 
     /**
-     * Get the set of users who reacted with a specific emoji
+     * Load reaction summaries from Redis (two pipelined round trips, see above)
+     *
+     * @return Map of messageId -> ReactionSummary (messages without reactions are omitted)
      */
-    private Set<String> getReactionUsersForEmoji(String key, String emoji) {
-        try {
-            Object usersObj = redisTemplate.opsForHash().get(key, emoji);
+    private Map<UUID, ReactionSummary> loadReactions(List<UUID> ids) {
+        Map<UUID, ReactionSummary> loaded = new HashMap<>();
+        List<UUID> setOwners = new ArrayList<>();
+        List<String> setEmojis = new ArrayList<>();
+        List<Version> setVersions = new ArrayList<>();
 
-            if (usersObj == null) {
-                return new HashSet<>();
+        // One pipelined round trip per read version; the dual-read fallback only covers misses
+        List<UUID> pending = ids;
+        for (Version version : keySchema.readVersions()) {
+            if (pending.isEmpty()) {
+                break;
             }
+            List<UUID> batch = pending;
+            List<Object> counts = redisTemplate.executePipelined(pipelined(operations -> {
+                for (UUID messageId : batch) {
+                    operations.opsForHash().entries(keySchema.reactionCounts(version, messageId));
+                }
+            }));
 
-            String usersJson = (String) usersObj;
-            return objectMapper.readValue(usersJson, new TypeReference<Set<String>>() {});
-        } catch (Exception e) {
-            log.error("Error retrieving users for emoji {}: {}", emoji, e.getMessage());
-            return new HashSet<>();
+            pending = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (!(counts.get(i) instanceof Map<?, ?> emojiCounts) || emojiCounts.isEmpty()) {
+                    pending.add(batch.get(i));
+                    continue;
+                }
+                for (Object emoji : emojiCounts.keySet()) {
+                    setOwners.add(batch.get(i));
+                    setEmojis.add((String) emoji);
+                    setVersions.add(version);
+                }
+            }
+        }
+
+        if (!setOwners.isEmpty()) {
+            List<Object> members = redisTemplate.executePipelined(pipelined(operations -> {
+                for (int i = 0; i < setOwners.size(); i++) {
+                    operations.opsForSet().members(
+                        keySchema.reactionUsers(setVersions.get(i), setOwners.get(i), setEmojis.get(i)));
+                }
+            }));
+
+            for (int i = 0; i < setOwners.size(); i++) {
+                if (!(members.get(i) instanceof Set<?> users) || users.isEmpty()) {
+                    continue;
+                }
+                ReactionSummary summary = loaded.computeIfAbsent(setOwners.get(i), id -> new ReactionSummary());
+                for (Object user : users) {
+                    if (user instanceof String userId) {
+                        summary.addReaction(setEmojis.get(i), userId);
+                    }
+                }
+            }
         }
+
+        return loaded;
+    }
+
+    /**
+     * Adapt a block of commands to a pipelined SessionCallback on this service's template types
+     */
+    private SessionCallback<Object> pipelined(Consumer<RedisOperations<String, Object>> commands) {
+        return new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        };
     }
 
     /**
@@ -350,11 +744,14 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public void addTypingUser(String roomId, String userId) {
         try {
-            String key = buildTypingKey(roomId);
-            redisTemplate.opsForSet().add(key, userId);
-
-            // Set TTL to 5 seconds (auto-cleanup)
-            redisTemplate.expire(key, 5, TimeUnit.SECONDS);
+            degradedState.addTypingUser(roomId, userId, TTL_TYPING_SECONDS * 1000L);
+            // SADD + EXPIRE (5 seconds, auto-cleanup) in one script call
+            circuitBreaker.run("addTypingUser", () -> {
+                for (Version version : keySchema.writeVersions()) {
+                    scriptRegistry.execute(Script.ADD_TYPING_USER, List.of(keySchema.typing(version, roomId)),
+                        userId, TTL_TYPING_SECONDS);
+                }
+            }, () -> { });
 
             log.debug("Added typing user {} to room {}", userId, roomId);
         } catch (Exception e) {
@@ -371,8 +768,12 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public void removeTypingUser(String roomId, String userId) {
         try {
-            String key = buildTypingKey(roomId);
-            redisTemplate.opsForSet().remove(key, userId);
+            degradedState.removeTypingUser(roomId, userId);
+            circuitBreaker.run("removeTypingUser", () -> {
+                for (Version version : keySchema.writeVersions()) {
+                    redisTemplate.opsForSet().remove(keySchema.typing(version, roomId), userId);
+                }
+            }, () -> { });
 
             log.debug("Removed typing user {} from room {}", userId, roomId);
         } catch (Exception e) {
@@ -384,23 +785,24 @@ public class RedisCacheServiceImpl implements RedisCacheService {
      * Get all typing users in a room
      *
      * @param roomId Room ID
-     * @return Set of user IDs who are currently typing
+     * @return Set of user IDs who are currently typing (this node's view while the breaker is open)
      */
     @Override
     public Set<String> getTypingUsers(String roomId) {
         try {
-            String key = buildTypingKey(roomId);
-            Set<Object> members = redisTemplate.opsForSet().members(key);
+            return circuitBreaker.execute("getTypingUsers", () -> {
+                Set<Object> members = readFirst(version -> redisTemplate.opsForSet().members(keySchema.typing(version, roomId)));
 
-            if (members == null || members.isEmpty()) {
-                return new HashSet<>();
-            }
+                if (members == null || members.isEmpty()) {
+                    return new HashSet<String>();
+                }
 
-            // Convert Objects to Strings
-            return members.stream()
-                .filter(member -> member instanceof String)
-                .map(member -> (String) member)
-                .collect(Collectors.toSet());
+                // Convert Objects to Strings
+                return members.stream()
+                    .filter(member -> member instanceof String)
+                    .map(member -> (String) member)
+                    .collect(Collectors.toSet());
+            }, () -> degradedState.getTypingUsers(roomId));
         } catch (Exception e) {
             log.error("Error retrieving typing users for room {}: {}", roomId, e.getMessage(), e);
             return new HashSet<>();
@@ -409,6 +811,11 @@ public class RedisCacheServiceImpl implements RedisCacheService {
 
     /**
      * Get count of users in a room
+     * - Exact count of live members (heartbeat within the timeout)
+     * - Rooms at max-tracked-members: HyperLogLog estimate of users seen in the
+     *   current and previous presence windows
+     * - Served from the near cache when present
+     * - Breaker open: users connected to this node
      *
      * @param roomId Room ID
      * @return Number of users in the room
@@ -416,9 +823,18 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     @Override
     public long getRoomUserCount(String roomId) {
         try {
-            String key = buildRoomUsersKey(roomId);
-            Long count = redisTemplate.opsForSet().size(key);
-            return count != null ? count : 0L;
+            Long count = nearCache.get(keySchema.presence(keySchema.primary(), roomId),
+                () -> circuitBreaker.execute("getRoomUserCount", () -> {
+                    long users = 0L;
+                    for (Version version : keySchema.readVersions()) {
+                        users = countRoomUsers(version, roomId);
+                        if (users > 0) {
+                            break;
+                        }
+                    }
+                    return users;
+                }, () -> null));
+            return count != null ? count : degradedState.getRoomUsers(roomId).size();
         } catch (Exception e) {
             log.error("Error retrieving user count for room {}: {}", roomId, e.getMessage(), e);
             return 0L;
@@ -426,9 +842,184 @@ public class RedisCacheServiceImpl implements RedisCacheService {
     }
 
     /**
-     * Build Redis key for typing users
+     * Get user counts of multiple rooms (room lists)
+     * - Near-cache hits are served locally; the rest share one pipelined ZCOUNT round
+     *   trip per read version (the dual-read fallback only covers empty rooms)
+     * - Rooms at max-tracked-members: HyperLogLog estimate, as in getRoomUserCount
+     * - Breaker open: users connected to this node
+     *
+     * @param roomIds Room IDs
+     * @return Map of roomId -> number of users in the room
+     */
+    @Override
+    public Map<String, Long> getRoomUserCounts(List<String> roomIds) {
+        Map<String, Long> result = new HashMap<>();
+
+        if (roomIds == null || roomIds.isEmpty()) {
+            return result;
+        }
+
+        try {
+            List<String> ids = new ArrayList<>();
+            for (String roomId : new LinkedHashSet<>(roomIds)) {
+                Long cached = nearCache.getIfPresent(keySchema.presence(keySchema.primary(), roomId));
+                if (cached == null) {
+                    ids.add(roomId);
+                } else {
+                    result.put(roomId, cached);
+                }
+            }
+
+            if (ids.isEmpty()) {
+                return result;
+            }
+
+            Map<String, Long> loaded = circuitBreaker.execute("getRoomUserCounts",
+                () -> loadRoomUserCounts(ids), () -> null);
+            for (String roomId : ids) {
+                if (loaded == null) {
+                    result.put(roomId, (long) degradedState.getRoomUsers(roomId).size());
+                    continue;
+                }
+                long users = loaded.getOrDefault(roomId, 0L);
+                nearCache.put(keySchema.presence(keySchema.primary(), roomId), users);
+                result.put(roomId, users);
+            }
+
+            return result;
+        } catch (Exception e) {
+            log.error("Error retrieving user counts for {} rooms: {}", roomIds.size(), e.getMessage(), e);
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Load room user counts from Redis (one pipelined round trip per read version)
+     *
+     * @return Map of roomId -> number of users (empty rooms are omitted)
      */
-    private String buildTypingKey(String roomId) {
-        return "room:" + roomId + ":typing";
+    private Map<String, Long> loadRoomUserCounts(List<String> ids) {
+        Map<String, Long> loaded = new HashMap<>();
+        double cutoff = presenceCutoff();
+
+        List<String> pending = ids;
+        for (Version version : keySchema.readVersions()) {
+            if (pending.isEmpty()) {
+                break;
+            }
+            List<String> batch = pending;
+            List<Object> counts = redisTemplate.executePipelined(pipelined(operations -> {
+                for (String roomId : batch) {
+                    operations.opsForZSet().count(keySchema.presence(version, roomId), cutoff, Double.POSITIVE_INFINITY);
+                }
+            }));
+
+            pending = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                long live = counts.get(i) instanceof Number number ? number.longValue() : 0L;
+                if (live == 0L) {
+                    pending.add(batch.get(i));
+                } else if (live < maxTrackedMembers) {
+                    loaded.put(batch.get(i), live);
+                } else {
+                    // Very large rooms are rare; estimate them one by one
+                    loaded.put(batch.get(i), countRoomUsers(version, batch.get(i)));
+                }
+            }
+        }
+
+        return loaded;
+    }
+
+    private long countRoomUsers(Version version, String roomId) {
+        Long live = redisTemplate.opsForZSet()
+            .count(keySchema.presence(version, roomId), presenceCutoff(), Double.POSITIVE_INFINITY);
+        if (live == null || live < maxTrackedMembers) {
+            return live != null ? live : 0L;
+        }
+        // Very large room: estimate from the current and previous HyperLogLog windows
+        // (both keys share the room's hash tag in the v2 schema, so PFCOUNT is single-slot)
+        long window = System.currentTimeMillis() / presenceTimeout.toMillis();
+        Long estimate = redisTemplate.opsForHyperLogLog()
+            .size(keySchema.online(version, roomId, window), keySchema.online(version, roomId, window - 1));
+        return estimate != null ? Math.max(estimate, live) : live;
+    }
+
+    /**
+     * Replay writes queued while the Redis circuit breaker was open
+     * - Only while the breaker is closed. The replay bypasses the breaker: a large
+     *   backlog is slow by design and must not count as slow calls that reopen it
+     * - Messages: appended in arrival order and acknowledged one by one, so a failure
+     *   leaves exactly the messages not yet appended queued. Messages dropped by a queue
+     *   overflow are only missing from the Redis copy; the shared key is never cleared,
+     *   so messages other nodes wrote meanwhile are kept
+     * - Presence: users still live on this node are re-sent as heartbeats, others removed;
+     *   on failure the user and the rest of the room are queued again
+     * - The first failure stops the run; the next run continues from there
+     *
+     * @return Number of replayed messages and presence updates
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${chat.redis.breaker.reconcile-interval-ms:1000}")
+    public int reconcileDegradedState() {
+        if (circuitBreaker.getState() != RedisCircuitBreaker.State.CLOSED || !degradedState.hasPending()) {
+            return 0;
+        }
+
+        int replayed = 0;
+        try {
+            for (String roomId : degradedState.getPendingMessageRooms()) {
+                for (ChatMessage message : degradedState.peekMessages(roomId)) {
+                    recentMessageStore.append(roomId, message);
+                    degradedState.ackMessage(roomId, message);
+                    replayed++;
+                }
+                nearCache.invalidate(writtenKeys(version -> keySchema.recentMessages(version, roomId)));
+            }
+
+            for (String roomId : degradedState.getPendingPresenceRooms()) {
+                Set<String> live = degradedState.getRoomUsers(roomId);
+                List<String> users = new ArrayList<>(degradedState.takePendingPresence(roomId));
+                for (int i = 0; i < users.size(); i++) {
+                    String userId = users.get(i);
+                    try {
+                        if (live.contains(userId)) {
+                            heartbeat(roomId, userId);
+                        } else {
+                            removePresence(roomId, userId);
+                        }
+                    } catch (RuntimeException e) {
+                        users.subList(i, users.size()).forEach(user -> degradedState.queuePresence(roomId, user));
+                        throw e;
+                    }
+                    replayed++;
+                }
+                nearCache.invalidate(writtenKeys(version -> keySchema.presence(version, roomId)));
+            }
+        } catch (Exception e) {
+            log.warn("Reconciliation stopped after {} writes, the rest stays queued: {}", replayed, e.getMessage());
+        }
+
+        if (replayed > 0) {
+            log.info("Reconciled {} writes queued while the Redis circuit breaker was open", replayed);
+        }
+        return replayed;
+    }
+
+    /**
+     * Redis circuit breaker state and pending reconciliation of this node
+     *
+     * @return Status snapshot
+     */
+    @Override
+    public RedisBreakerStatus getBreakerStatus() {
+        return RedisBreakerStatus.builder()
+            .state(circuitBreaker.getState().name())
+            .stateChangedAt(circuitBreaker.getStateChangedAt())
+            .failureRate(circuitBreaker.getFailureRate())
+            .fallbacks(circuitBreaker.getFallbackCount())
+            .pendingMessages(degradedState.getPendingMessageCount())
+            .pendingRooms(degradedState.getPendingRoomCount())
+            .build();
     }
 }
@@ -0,0 +1,285 @@
+package com.example.chat.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Latency-aware circuit breaker around Redis commands
+ *
+ * - Count-based sliding window over the last window-size calls; a call is bad when it
+ *   throws or takes longer than slow-call-threshold
+ * - CLOSED -> OPEN once minimum-calls are recorded and the bad-call rate reaches
+ *   failure-rate-threshold; calls then go straight to the fallback without touching Redis
+ * - OPEN -> HALF_OPEN after open-duration; up to probe-calls calls are let through,
+ *   that many good probes close the breaker, a single bad probe reopens it
+ * - The Lettuce command timeout (spring.data.redis.timeout) bounds what one call against
+ *   a hung Redis costs; the breaker bounds how many calls pay it
+ * - Disabled (chat.redis.breaker.enabled=false): calls run directly, exceptions propagate
+ *
+ * Metrics:
+ * - chat.redis.breaker.state (gauge: 0 closed, 1 open, 2 half-open)
+ * - chat.redis.breaker.calls{outcome=success|slow|error}
+ * - chat.redis.breaker.fallbacks{operation, reason=open|error}
+ * - chat.redis.breaker.transitions{state}
+ */
+@Component
+@Slf4j
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int probeCalls;
+    private final MeterRegistry meterRegistry;
+
+    // Outcomes of the last window.length calls while closed (true = bad)
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int badCalls;
+
+    private volatile State state = State.CLOSED;
+    private volatile LocalDateTime stateChangedAt = LocalDateTime.now();
+    private long openedAtNanos;
+    private int probesInFlight;
+    private int goodProbes;
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public RedisCircuitBreaker(
+        MeterRegistry meterRegistry,
+        @Value("${chat.redis.breaker.enabled:true}") boolean enabled,
+        @Value("${chat.redis.breaker.slow-call-threshold:100ms}") Duration slowCallThreshold,
+        @Value("${chat.redis.breaker.window-size:50}") int windowSize,
+        @Value("${chat.redis.breaker.minimum-calls:20}") int minimumCalls,
+        @Value("${chat.redis.breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+        @Value("${chat.redis.breaker.open-duration:5s}") Duration openDuration,
+        @Value("${chat.redis.breaker.probe-calls:3}") int probeCalls
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.probeCalls = probeCalls;
+
+        meterRegistry.gauge("chat.redis.breaker.state", this, breaker -> breaker.state.ordinal());
+    }
+
+    /**
+     * Run a Redis call through the breaker
+     *
+     * @param operation Operation name (metric tag, log)
+     * @param call Redis call
+     * @param fallback Result when the breaker is open or the call fails
+     * @return Result of the call, or of the fallback
+     */
+    public <T> T execute(String operation, Supplier<T> call, Supplier<T> fallback) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        State permission = acquirePermission();
+        if (permission == State.OPEN) {
+            countFallback(operation, "open");
+            return fallback.get();
+        }
+
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            record(permission, System.nanoTime() - start, true);
+            log.warn("Redis {} failed, serving fallback: {}", operation, e.getMessage());
+            countFallback(operation, "error");
+            return fallback.get();
+        }
+        record(permission, System.nanoTime() - start, false);
+        return result;
+    }
+
+    /**
+     * Run an asynchronous Redis call through the breaker
+     * - The call is timed until its future completes; outcome and fallback are
+     *   applied on the thread completing it (a Lettuce I/O thread), so the fallback
+     *   must not block
+     *
+     * @param operation Operation name (metric tag, log)
+     * @param call Redis call returning a pending result
+     * @param fallback Result when the breaker is open or the call fails
+     * @return Future of the call's result, or of the fallback
+     */
+    public <T> CompletableFuture<T> executeAsync(String operation, Supplier<? extends CompletionStage<T>> call,
+                                                 Supplier<T> fallback) {
+        if (!enabled) {
+            return call.get().toCompletableFuture();
+        }
+
+        State permission = acquirePermission();
+        if (permission == State.OPEN) {
+            countFallback(operation, "open");
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+
+        long start = System.nanoTime();
+        CompletionStage<T> pending;
+        try {
+            pending = call.get();
+        } catch (RuntimeException e) {
+            pending = CompletableFuture.failedFuture(e);
+        }
+        return pending.toCompletableFuture().handle((result, error) -> {
+            record(permission, System.nanoTime() - start, error != null);
+            if (error == null) {
+                return result;
+            }
+            log.warn("Redis {} failed, serving fallback: {}", operation, error.getMessage());
+            countFallback(operation, "error");
+            return fallback.get();
+        });
+    }
+
+    /**
+     * Run a Redis command without result through the breaker
+     */
+    public void run(String operation, Runnable call, Runnable fallback) {
+        execute(operation, () -> {
+            call.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public LocalDateTime getStateChangedAt() {
+        return stateChangedAt;
+    }
+
+    /**
+     * Bad-call rate of the current window (0 while open or half-open)
+     */
+    public synchronized double getFailureRate() {
+        return windowCalls == 0 ? 0.0 : (double) badCalls / windowCalls;
+    }
+
+    /**
+     * Calls served by a fallback since startup
+     */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    /**
+     * @return CLOSED or HALF_OPEN (probe) if the call may proceed, OPEN if not
+     */
+    private synchronized State acquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                return State.OPEN;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= probeCalls) {
+                return State.OPEN;
+            }
+            probesInFlight++;
+            return State.HALF_OPEN;
+        }
+        return State.CLOSED;
+    }
+
+    private void record(State permission, long nanos, boolean failed) {
+        boolean slow = !failed && nanos > slowCallNanos;
+        meterRegistry.counter("chat.redis.breaker.calls",
+            "outcome", failed ? "error" : slow ? "slow" : "success").increment();
+
+        synchronized (this) {
+            boolean bad = failed || slow;
+            if (permission == State.HALF_OPEN) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                probesInFlight--;
+                if (bad) {
+                    transition(State.OPEN);
+                } else if (++goodProbes >= probeCalls) {
+                    transition(State.CLOSED);
+                }
+                return;
+            }
+            if (state != State.CLOSED) {
+                return;
+            }
+
+            if (windowCalls == window.length) {
+                if (window[windowIndex]) {
+                    badCalls--;
+                }
+            } else {
+                windowCalls++;
+            }
+            window[windowIndex] = bad;
+            if (bad) {
+                badCalls++;
+            }
+            windowIndex = (windowIndex + 1) % window.length;
+
+            if (windowCalls >= minimumCalls && badCalls >= failureRateThreshold * windowCalls) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    // Called with the monitor held
+    private void transition(State next) {
+        State previous = state;
+        state = next;
+        stateChangedAt = LocalDateTime.now();
+        meterRegistry.counter("chat.redis.breaker.transitions", "state", next.name()).increment();
+
+        switch (next) {
+            case OPEN -> {
+                openedAtNanos = System.nanoTime();
+                log.warn("Redis circuit breaker OPEN (was {}, bad-call rate {}/{}), serving node-local state",
+                    previous, badCalls, windowCalls);
+            }
+            case HALF_OPEN -> {
+                probesInFlight = 0;
+                goodProbes = 0;
+                log.info("Redis circuit breaker HALF_OPEN, probing with up to {} calls", probeCalls);
+            }
+            case CLOSED -> log.info("Redis circuit breaker CLOSED, Redis healthy again");
+        }
+        windowIndex = 0;
+        windowCalls = 0;
+        badCalls = 0;
+    }
+
+    private void countFallback(String operation, String reason) {
+        fallbacks.incrementAndGet();
+        meterRegistry.counter("chat.redis.breaker.fallbacks", "operation", operation, "reason", reason).increment();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.config.RedisKeySchema;
+import com.example.chat.config.RedisKeySchema.Version;
+import com.example.chat.config.RedisScriptRegistry;
+import com.example.chat.config.RedisScriptRegistry.Script;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Copy-on-first-write for the v1 -> v2 key schema migration
+ *
+ * While both schemas are written ({@link RedisKeySchema#seeding()}), writers call
+ * {@link #seed(Function)} before writing a key group (a room's recent messages, a
+ * message's reaction keys). The seed_keys script copies the v1 keys to v2 if the v2
+ * anchor key does not exist yet, so the first v2 write extends the full v1 data instead
+ * of starting an empty key that the dual-read would then prefer over v1.
+ *
+ * - One script call per group, then remembered on this node for 10 minutes
+ *   (the script is idempotent; the memo only saves round trips)
+ * - No-op in the v1 and v2 modes
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisKeySeeder {
+
+    private final RedisScriptRegistry scriptRegistry;
+    private final RedisKeySchema keySchema;
+
+    // v2 anchor key -> seeded by this node
+    private final Cache<String, Boolean> seeded = Caffeine.newBuilder()
+        .maximumSize(100_000)
+        .expireAfterWrite(Duration.ofMinutes(10))
+        .build();
+
+    /**
+     * Copy a key group to v2 unless its v2 anchor key already exists
+     *
+     * @param keys Keys of the group for a schema version; the first is the anchor
+     */
+    public void seed(Function<Version, List<String>> keys) {
+        if (!keySchema.seeding()) {
+            return;
+        }
+        List<String> targets = keys.apply(Version.V2);
+        if (seeded.getIfPresent(targets.get(0)) != null) {
+            return;
+        }
+
+        List<String> sources = keys.apply(Version.V1);
+        List<String> pairs = new ArrayList<>(sources.size() * 2);
+        for (int i = 0; i < sources.size(); i++) {
+            pairs.add(sources.get(i));
+            pairs.add(targets.get(i));
+        }
+        scriptRegistry.execute(Script.SEED_KEYS, pairs);
+        seeded.put(targets.get(0), Boolean.TRUE);
+    }
+
+    /**
+     * Forget a seeded group after its keys were deleted in both schemas
+     *
+     * @param keys Keys of the group for a schema version; the first is the anchor
+     */
+    public void forget(Function<Version, List<String>> keys) {
+        if (keySchema.seeding()) {
+            seeded.invalidate(keys.apply(Version.V2).get(0));
+        }
+    }
+}
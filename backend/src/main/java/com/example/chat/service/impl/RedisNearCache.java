@@ -0,0 +1,149 @@
+package com.example.chat.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Node-local L1 cache in front of Redis for hot reads
+ * (recent messages, room user counts, reaction summaries)
+ *
+ * - Entries are keyed by the Redis key they mirror
+ * - Size-bounded with W-TinyLFU eviction (Caffeine); a short expire-after-write
+ *   bounds staleness if an invalidation is ever lost
+ * - Coherence: every write through {@link RedisCacheServiceImpl} invalidates the key
+ *   locally and publishes it on {@link #INVALIDATION_CHANNEL}; other nodes evict
+ *   the key when the message arrives (own messages are ignored)
+ *
+ * Metrics:
+ * - cache.gets{cache=redis-near, result=hit|miss}, cache.evictions, cache.size
+ * - chat.redis.near.load: latency of the Redis read behind a miss
+ * - chat.redis.near.invalidations{source=local|remote}
+ */
+@Component
+@Slf4j
+public class RedisNearCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidate";
+
+    private static final String CACHE_NAME = "redis-near";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final Cache<String, Object> cache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Timer loadTimer;
+    private final MeterRegistry meterRegistry;
+
+    public RedisNearCache(
+        StringRedisTemplate stringRedisTemplate,
+        RedisMessageListenerContainer listenerContainer,
+        MeterRegistry meterRegistry,
+        @Value("${chat.redis.near-cache.enabled:true}") boolean enabled,
+        @Value("${chat.redis.near-cache.max-size:10000}") long maxSize,
+        @Value("${chat.redis.near-cache.expire-after-write:5s}") Duration expireAfterWrite
+    ) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+        this.loadTimer = Timer.builder("chat.redis.near.load")
+            .description("Latency of Redis reads behind near-cache misses")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+        }
+    }
+
+    /**
+     * Read through the near cache
+     * - Hit: returns the cached value without touching Redis
+     * - Miss: loads from Redis (timed) and caches the result
+     *
+     * @param key Redis key the value mirrors
+     * @param loader Redis read
+     * @return Cached or freshly loaded value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return (T) cache.get(key, k -> loadTimer.record(loader));
+    }
+
+    /**
+     * Cached value if present (does not load)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(String key) {
+        return enabled ? (T) cache.getIfPresent(key) : null;
+    }
+
+    /**
+     * Cache a value loaded outside {@link #get(String, Supplier)} (e.g. a pipelined batch)
+     */
+    public void put(String key, Object value) {
+        if (enabled && value != null) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Evict keys on this node and broadcast the eviction to all other nodes
+     * Call after the Redis write has completed.
+     *
+     * @param keys Redis keys that were modified
+     */
+    public void invalidate(String... keys) {
+        if (!enabled) {
+            return;
+        }
+        for (String key : keys) {
+            cache.invalidate(key);
+            meterRegistry.counter("chat.redis.near.invalidations", "source", "local").increment();
+            try {
+                stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + "|" + key);
+            } catch (Exception e) {
+                // Other nodes fall back to expire-after-write
+                log.warn("Failed to publish near-cache invalidation for key {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Invalidation published by any node
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.startsWith(nodeId + "|")) {
+            return;
+        }
+        cache.invalidate(body.substring(separator + 1));
+        meterRegistry.counter("chat.redis.near.invalidations", "source", "remote").increment();
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.config.DataSourceBulkhead;
+import com.example.chat.dto.RetentionStatus;
+import com.example.chat.service.MessageArchiveService;
+import com.example.chat.service.PartitionManagementService;
+import com.example.chat.service.RetentionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Retention Service Implementation
+ *
+ * Sole owner of row expiry (partition maintenance only creates partitions).
+ * Per table, a retention pass:
+ * 1. Drops whole expired monthly partitions (metadata only)
+ * 2. Deletes the remaining expired rows in chunks of chat.retention.chunk-size;
+ *    each chunk is one auto-committed statement, so no transaction is held across chunks
+ *    - chat_messages, message_read_status: walk the primary key in ascending order
+ *    - message_reactions: only its default partition can still hold expired rows
+ *      (every other expired month was dropped); chunks are picked by ctid
+ *    - Cold-history archive: segments of days before the message cutoff are deleted
+ * 3. Sleeps between chunks to stay under chat.retention.max-rows-per-second,
+ *    and backs off while replica replay lag exceeds
+ *    chat.retention.max-replication-lag-seconds
+ *
+ * Replication lag comes from pg_stat_replication, whose replay_lag is only visible to
+ * superusers and members of pg_monitor. Without that grant the lag reads as 0 and the
+ * back-off never engages; each pass checks the grant and logs a warning if it is missing.
+ *
+ * Metrics:
+ * - chat.retention.rows.deleted{table} (counter)
+ * - chat.retention.chunk{table} (timer)
+ * - chat.retention.running / chat.retention.paused (gauges)
+ *
+ * @see RetentionService
+ */
+@Service
+@Slf4j
+public class RetentionServiceImpl implements RetentionService {
+
+    private static final String MESSAGES_TABLE = "chat_messages";
+    private static final String READ_STATUS_TABLE = "message_read_status";
+    private static final String REACTIONS_TABLE = "message_reactions";
+
+    // Each chunk returns (rows deleted, last primary key visited)
+    private static final String DELETE_MESSAGES_CHUNK_SQL =
+        "WITH expired AS (" +
+        "  SELECT message_id, timestamp FROM chat_messages" +
+        "  WHERE message_id > ? AND timestamp < ?" +
+        "  ORDER BY message_id LIMIT ?" +
+        "), deleted AS (" +
+        "  DELETE FROM chat_messages m USING expired e" +
+        "  WHERE m.message_id = e.message_id AND m.timestamp = e.timestamp" +
+        "  RETURNING 1" +
+        ") " +
+        "SELECT (SELECT COUNT(*) FROM deleted), " +
+        "       (SELECT message_id FROM expired ORDER BY message_id DESC LIMIT 1)";
+
+    private static final String DELETE_READ_STATUS_CHUNK_SQL =
+        "WITH expired AS (" +
+        "  SELECT id, read_at FROM message_read_status" +
+        "  WHERE id > ? AND read_at < ?" +
+        "  ORDER BY id LIMIT ?" +
+        "), deleted AS (" +
+        "  DELETE FROM message_read_status r USING expired e" +
+        "  WHERE r.id = e.id AND r.read_at = e.read_at" +
+        "  RETURNING 1" +
+        ") " +
+        "SELECT (SELECT COUNT(*) FROM deleted), (SELECT MAX(id) FROM expired)";
+
+    private static final String DELETE_REACTIONS_DEFAULT_CHUNK_SQL =
+        "DELETE FROM message_reactions_default WHERE ctid = ANY(ARRAY(" +
+        "  SELECT ctid FROM message_reactions_default WHERE timestamp < ? LIMIT ?" +
+        "))";
+
+    private static final String REPLICATION_MONITOR_SQL =
+        "SELECT pg_has_role(current_user, 'pg_monitor', 'USAGE')";
+
+    private static final String REPLICATION_LAG_SQL =
+        "SELECT COALESCE(EXTRACT(EPOCH FROM MAX(replay_lag)), 0) FROM pg_stat_replication";
+
+    private static final long PAUSE_POLL_MILLIS = 1000;
+    private static final long LAG_BACKOFF_MILLIS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionManagementService partitionManagementService;
+    private final MessageArchiveService messageArchiveService;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean paused = new AtomicBoolean(false);
+    private final Map<String, Long> rowsDeleted = new ConcurrentHashMap<>();
+    private volatile String currentTable;
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile LocalDateTime lastRunFinishedAt;
+
+    @Value("${chat.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.retention.message-days:0}")
+    private int messageRetentionDays;
+
+    @Value("${chat.retention.read-receipt-days:0}")
+    private int readReceiptRetentionDays;
+
+    @Value("${chat.retention.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${chat.retention.max-rows-per-second:20000}")
+    private int maxRowsPerSecond;
+
+    @Value("${chat.retention.max-replication-lag-seconds:10}")
+    private double maxReplicationLagSeconds;
+
+    public RetentionServiceImpl(
+        JdbcTemplate jdbcTemplate,
+        PartitionManagementService partitionManagementService,
+        MessageArchiveService messageArchiveService,
+        MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionManagementService = partitionManagementService;
+        this.messageArchiveService = messageArchiveService;
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge("chat.retention.running", running, flag -> flag.get() ? 1 : 0);
+        meterRegistry.gauge("chat.retention.paused", paused, flag -> flag.get() ? 1 : 0);
+    }
+
+    /**
+     * Scheduled retention pass (default: daily at 03:45, after partition maintenance)
+     * - Runs on the consumer-writes connection-pool bulkhead
+     */
+    @Scheduled(cron = "${chat.retention.cron:0 45 3 * * *}")
+    public void scheduledRetention() {
+        if (!enabled) {
+            return;
+        }
+        DataSourceBulkhead.CONSUMER_WRITES.run(this::runRetention);
+    }
+
+    @Override
+    public void runRetention() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Retention pass already running, skipping");
+            return;
+        }
+
+        lastRunStartedAt = LocalDateTime.now();
+        rowsDeleted.clear();
+
+        try {
+            checkReplicationMonitorGrant();
+            if (messageRetentionDays > 0) {
+                LocalDateTime messageCutoff = lastRunStartedAt.minusDays(messageRetentionDays);
+                purge(MESSAGES_TABLE, DELETE_MESSAGES_CHUNK_SQL, new UUID(0L, 0L), messageCutoff);
+                purgeReactions(messageCutoff);
+                messageArchiveService.deleteArchivedBefore(messageCutoff);
+            }
+            if (readReceiptRetentionDays > 0) {
+                purge(READ_STATUS_TABLE, DELETE_READ_STATUS_CHUNK_SQL, 0L,
+                    lastRunStartedAt.minusDays(readReceiptRetentionDays));
+            }
+            lastRunFinishedAt = LocalDateTime.now();
+            log.info("Retention pass complete: {}", rowsDeleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Retention pass interrupted: {}", rowsDeleted);
+        } catch (Exception e) {
+            log.error("Retention pass failed: {}", e.getMessage(), e);
+        } finally {
+            currentTable = null;
+            running.set(false);
+        }
+    }
+
+    @Override
+    public void pause() {
+        paused.set(true);
+        log.info("Retention paused");
+    }
+
+    @Override
+    public void resume() {
+        paused.set(false);
+        log.info("Retention resumed");
+    }
+
+    @Override
+    public RetentionStatus getStatus() {
+        return RetentionStatus.builder()
+            .running(running.get())
+            .paused(paused.get())
+            .currentTable(currentTable)
+            .rowsDeleted(Map.copyOf(rowsDeleted))
+            .lastRunStartedAt(lastRunStartedAt)
+            .lastRunFinishedAt(lastRunFinishedAt)
+            .build();
+    }
+
+    /**
+     * Purge one table: drop expired partitions, then chunk-delete the remainder
+     */
+    private void purge(String table, String chunkSql, Object initialKey, LocalDateTime cutoff)
+        throws InterruptedException {
+        currentTable = table;
+        rowsDeleted.put(table, 0L);
+
+        int droppedPartitions = partitionManagementService.dropPartitionsBefore(table, cutoff);
+        log.info("Retention {}: cutoff={}, dropped {} partitions", table, cutoff, droppedPartitions);
+
+        Counter deletedCounter = meterRegistry.counter("chat.retention.rows.deleted", "table", table);
+        Timer chunkTimer = meterRegistry.timer("chat.retention.chunk", "table", table);
+        Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+        Object lastKey = initialKey;
+
+        while (lastKey != null) {
+            awaitResumeAndReplicas();
+
+            long started = System.nanoTime();
+            Object fromKey = lastKey;
+            List<Object[]> result = jdbcTemplate.query(chunkSql,
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getObject(2)},
+                fromKey, cutoffTimestamp, chunkSize);
+            long elapsedNanos = System.nanoTime() - started;
+            chunkTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+            long deleted = (Long) result.get(0)[0];
+            lastKey = result.get(0)[1];
+
+            deletedCounter.increment(deleted);
+            rowsDeleted.merge(table, deleted, Long::sum);
+
+            throttle(deleted, elapsedNanos);
+        }
+
+        log.info("Retention {}: deleted {} rows in chunks", table, rowsDeleted.get(table));
+    }
+
+    /**
+     * Purge message_reactions: drop expired partitions, then chunk-delete its default partition
+     */
+    private void purgeReactions(LocalDateTime cutoff) throws InterruptedException {
+        currentTable = REACTIONS_TABLE;
+        rowsDeleted.put(REACTIONS_TABLE, 0L);
+
+        int droppedPartitions = partitionManagementService.dropPartitionsBefore(REACTIONS_TABLE, cutoff);
+        log.info("Retention {}: cutoff={}, dropped {} partitions", REACTIONS_TABLE, cutoff, droppedPartitions);
+
+        Counter deletedCounter = meterRegistry.counter("chat.retention.rows.deleted", "table", REACTIONS_TABLE);
+        Timer chunkTimer = meterRegistry.timer("chat.retention.chunk", "table", REACTIONS_TABLE);
+        Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+        long deleted;
+
+        do {
+            awaitResumeAndReplicas();
+
+            long started = System.nanoTime();
+            deleted = jdbcTemplate.update(DELETE_REACTIONS_DEFAULT_CHUNK_SQL, cutoffTimestamp, chunkSize);
+            long elapsedNanos = System.nanoTime() - started;
+            chunkTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+            deletedCounter.increment(deleted);
+            rowsDeleted.merge(REACTIONS_TABLE, deleted, Long::sum);
+
+            throttle(deleted, elapsedNanos);
+        } while (deleted > 0);
+
+        log.info("Retention {}: deleted {} rows in chunks", REACTIONS_TABLE, rowsDeleted.get(REACTIONS_TABLE));
+    }
+
+    /**
+     * Warn if replica lag cannot be observed (see class comment)
+     */
+    private void checkReplicationMonitorGrant() {
+        try {
+            Boolean granted = jdbcTemplate.queryForObject(REPLICATION_MONITOR_SQL, Boolean.class);
+            if (!Boolean.TRUE.equals(granted)) {
+                log.warn("Retention: database user is not a member of pg_monitor; replication lag is not " +
+                    "visible and chat.retention.max-replication-lag-seconds has no effect");
+            }
+        } catch (Exception e) {
+            log.warn("Retention: could not check pg_monitor membership: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Block while paused or while replicas are lagging behind
+     */
+    private void awaitResumeAndReplicas() throws InterruptedException {
+        while (paused.get()) {
+            Thread.sleep(PAUSE_POLL_MILLIS);
+        }
+
+        while (true) {
+            Double lag = jdbcTemplate.queryForObject(REPLICATION_LAG_SQL, Double.class);
+            if (lag == null || lag <= maxReplicationLagSeconds) {
+                return;
+            }
+            log.debug("Retention backing off: replication lag {}s", lag);
+            Thread.sleep(LAG_BACKOFF_MILLIS);
+        }
+    }
+
+    /**
+     * Sleep long enough that this chunk does not exceed the configured row rate
+     */
+    private void throttle(long deletedRows, long elapsedNanos) throws InterruptedException {
+        if (maxRowsPerSecond <= 0 || deletedRows == 0) {
+            return;
+        }
+        long budgetMillis = deletedRows * 1000 / maxRowsPerSecond;
+        long sleepMillis = budgetMillis - elapsedNanos / 1_000_000;
+        if (sleepMillis > 0) {
+            Thread.sleep(sleepMillis);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.chat.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Node-local cache of room IDs known to exist in chat_rooms
+ *
+ * - Lock-free reads (ConcurrentHashMap key set)
+ * - Bounded: oldest inserted room IDs are evicted first (FIFO)
+ * - Rooms are only cached after the creating transaction commits,
+ *   so a rolled-back room insert never leaves a stale entry behind
+ *
+ * Rooms are never deleted, so an entry can only become stale through eviction
+ * (which just costs one extra conflict-tolerant INSERT).
+ */
+@Component
+@Slf4j
+public class RoomExistenceCache {
+
+    private final Map<String, Boolean> rooms = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxSize;
+
+    public RoomExistenceCache(@Value("${chat.persistence.room-cache.max-size:100000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Check whether a room is known to exist
+     */
+    public boolean contains(String roomId) {
+        return rooms.containsKey(roomId);
+    }
+
+    /**
+     * Record a room as existing
+     * - Inside a transaction: deferred until after commit
+     * - Outside a transaction: recorded immediately
+     */
+    public void markExists(String roomId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(roomId);
+                }
+            });
+        } else {
+            add(roomId);
+        }
+    }
+
+    /**
+     * Current number of cached room IDs
+     */
+    public int size() {
+        return rooms.size();
+    }
+
+    private void add(String roomId) {
+        if (rooms.putIfAbsent(roomId, Boolean.TRUE) != null) {
+            return;
+        }
+        insertionOrder.offer(roomId);
+
+        while (rooms.size() > maxSize) {
+            String eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            rooms.remove(eldest);
+            log.debug("Evicted room from existence cache: {}", eldest);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.repository.RoomSequenceRepository;
+import com.example.chat.service.RoomSequenceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Room Sequence Service Implementation
+ *
+ * Range leasing:
+ * - room:{roomId}:seq in Redis holds the highest sequence number handed out to any node
+ * - A node leases chat.sequence.lease-size numbers at once with a single INCRBY
+ *   and serves them from memory; only an exhausted lease costs a round trip
+ * - Before a range is used, its highest number is recorded in room_sequences
+ *   (RoomSequenceRepository), so PostgreSQL always holds a durable high-water mark
+ * - If the counter is missing (first message, or Redis data loss) it is seeded with
+ *   SET NX from that high-water mark. Numbers issued before the loss are never issued
+ *   again, including those still in Kafka, unused leases, and rooms whose rows were
+ *   archived or dropped by retention
+ * - Redis calls go through the circuit breaker (the room_sequences write is not timed
+ *   by it). When no range can be leased, next() returns null and the send is rejected
+ *
+ * Ordering guarantees:
+ * - Within one node, numbers increase in send order
+ * - Across nodes, leases interleave: a later message on one node can get a lower number
+ *   than an earlier one on another. A lease left unused at shutdown leaves a gap
+ * - lease-size 1 keeps numbers in the order messages reached Redis, but costs a Redis
+ *   round trip and a database write per message
+ *
+ * Metrics:
+ * - chat.sequence.leases (counter)
+ * - chat.sequence.lease.failures (counter)
+ *
+ * @see RoomSequenceService
+ */
+@Service
+@Slf4j
+public class RoomSequenceServiceImpl implements RoomSequenceService {
+
+    private static final String SEQ_KEY = "room:%s:seq"; // room:{roomId}:seq
+
+    private final StringRedisTemplate redisTemplate;
+    private final RoomSequenceRepository roomSequenceRepository;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final int leaseSize;
+    private final Counter leases;
+    private final Counter leaseFailures;
+
+    // One lease per room; entries are a few longs each
+    private final Map<String, Lease> roomLeases = new ConcurrentHashMap<>();
+
+    public RoomSequenceServiceImpl(
+        StringRedisTemplate redisTemplate,
+        RoomSequenceRepository roomSequenceRepository,
+        RedisCircuitBreaker circuitBreaker,
+        MeterRegistry meterRegistry,
+        @Value("${chat.sequence.lease-size:100}") int leaseSize
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.roomSequenceRepository = roomSequenceRepository;
+        this.circuitBreaker = circuitBreaker;
+        this.leaseSize = Math.max(leaseSize, 1);
+        this.leases = meterRegistry.counter("chat.sequence.leases");
+        this.leaseFailures = meterRegistry.counter("chat.sequence.lease.failures");
+    }
+
+    @Override
+    public Long next(String roomId) {
+        Lease lease = roomLeases.computeIfAbsent(roomId, id -> new Lease());
+
+        synchronized (lease) {
+            if (lease.next > lease.last) {
+                try {
+                    long last = leaseRange(roomId);
+                    lease.next = last - leaseSize + 1;
+                    lease.last = last;
+                } catch (Exception e) {
+                    leaseFailures.increment();
+                    log.warn("Failed to lease sequence range for room {}: {}", roomId, e.getMessage());
+                    return null;
+                }
+            }
+            return lease.next++;
+        }
+    }
+
+    @Override
+    public Long current(String roomId) {
+        try {
+            String key = String.format(SEQ_KEY, roomId);
+            Optional<String> value = circuitBreaker.execute("currentSequence",
+                () -> Optional.ofNullable(redisTemplate.opsForValue().get(key)), () -> null);
+            if (value == null) {
+                return null;
+            }
+            // Counter not seeded yet (or lost): nothing above the high-water mark was issued
+            return value.isPresent() ? Long.parseLong(value.get()) : roomSequenceRepository.findLeasedSeq(roomId);
+        } catch (Exception e) {
+            log.warn("Failed to read sequence counter for room {}: {}", roomId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lease the next range of a room
+     *
+     * @return Highest number of the leased range
+     */
+    private long leaseRange(String roomId) {
+        String key = String.format(SEQ_KEY, roomId);
+
+        Boolean exists = circuitBreaker.execute("leaseSequence", () -> redisTemplate.hasKey(key), () -> null);
+        if (exists == null) {
+            throw new IllegalStateException("Redis unavailable");
+        }
+        Long seed = exists ? null : roomSequenceRepository.findLeasedSeq(roomId);
+
+        Long last = circuitBreaker.execute("leaseSequence", () -> {
+            if (seed != null) {
+                redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(seed));
+            }
+            return redisTemplate.opsForValue().increment(key, leaseSize);
+        }, () -> null);
+        if (last == null) {
+            throw new IllegalStateException("Redis unavailable");
+        }
+
+        // Durable before any number of the range is handed out
+        roomSequenceRepository.advance(roomId, last);
+
+        leases.increment();
+        log.debug("Leased sequence range ({}, {}] for room {}", last - leaseSize, last, roomId);
+        return last;
+    }
+
+    /**
+     * Remaining numbers of the current lease: [next, last]
+     */
+    private static final class Lease {
+        private long next = 1;
+        private long last = 0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.dto.RoomInfo;
+import com.example.chat.dto.RoomStats;
+import com.example.chat.repository.RoomStatsRepository;
+import com.example.chat.service.RedisCacheService;
+import com.example.chat.service.RoomService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Room Service Implementation
+ *
+ * - Room info combines room_stats (persisted statistics) with Redis presence
+ * - Room lists fetch every room's user count in one pipelined call
+ *
+ * @see RoomService
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomServiceImpl implements RoomService {
+
+    private final RedisCacheService redisCacheService;
+    private final RoomStatsRepository roomStatsRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public RoomInfo getRoomInfo(String roomId) {
+        RoomStats stats = roomStatsRepository.findByRoomId(roomId)
+            .orElseThrow(() -> new IllegalArgumentException("Room not found: " + roomId));
+        return toRoomInfo(stats, redisCacheService.getRoomUserCount(roomId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RoomInfo> getActiveRooms(int limit) {
+        List<RoomStats> rooms = roomStatsRepository.findMostRecentlyActive(limit);
+        Map<String, Long> userCounts = redisCacheService.getRoomUserCounts(
+            rooms.stream().map(RoomStats::roomId).collect(Collectors.toList()));
+        return rooms.stream()
+            .map(stats -> toRoomInfo(stats, userCounts.getOrDefault(stats.roomId(), 0L)))
+            .collect(Collectors.toList());
+    }
+
+    private RoomInfo toRoomInfo(RoomStats stats, long userCount) {
+        return RoomInfo.builder()
+            .roomId(stats.roomId())
+            .name(stats.roomId())
+            .userCount((int) userCount)
+            .createdAt(stats.createdAt())
+            .messageCount(stats.messageCount())
+            .uniqueSenders(stats.uniqueSenders())
+            .lastMessageId(stats.lastMessageId())
+            .lastMessageAt(stats.lastMessageAt())
+            .lastSenderId(stats.lastSenderId())
+            .lastMessagePreview(stats.lastMessagePreview())
+            .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.chat.service.impl;
+
+import com.example.chat.config.RedisKeySchema;
+import com.example.chat.config.RedisKeySchema.Version;
+import com.example.chat.config.RedisScriptRegistry;
+import com.example.chat.config.RedisScriptRegistry.Script;
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.RecentMessagePage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recent messages as a Redis Stream
+ *
+ * - room:{roomId}:stream, one entry per message (field "m"), auto-generated IDs
+ *   in arrival order (the fan-out consumer reads each room's partition in order)
+ * - XADD MAXLEN ~ max-length + EXPIRE in one script call; approximate trimming
+ *   keeps XADD O(1) amortized
+ * - Pages are read with XREVRANGE COUNT limit, bounded by the oldest entry ID of the
+ *   previous page (exclusive), so deep scroll-back costs O(log N + limit) per page
+ * - Written to / read from the key versions of the {@link RedisKeySchema} mode. The v2
+ *   stream is seeded from v1 on its first write ({@link RedisKeySeeder}; COPY keeps the
+ *   entry IDs); later entry IDs differ between the two streams, but both are
+ *   millisecond-time based, so a cursor from one still bounds the other in the fallback
+ */
+@Component
+@ConditionalOnProperty(name = "chat.redis.recent-messages.backend", havingValue = "stream")
+public class StreamRecentMessageStore implements RecentMessageStore {
+
+    private static final String MESSAGE_FIELD = "m";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final RedisKeySchema keySchema;
+    private final RedisKeySeeder keySeeder;
+    private final int maxLength;
+    private final long ttlSeconds;
+
+    public StreamRecentMessageStore(
+        RedisTemplate<String, Object> redisTemplate,
+        RedisScriptRegistry scriptRegistry,
+        RedisKeySchema keySchema,
+        RedisKeySeeder keySeeder,
+        @Value("${chat.redis.recent-messages.stream.max-length:5000}") int maxLength,
+        @Value("${chat.redis.recent-messages.stream.ttl:24h}") Duration ttl
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.keySchema = keySchema;
+        this.keySeeder = keySeeder;
+        this.maxLength = maxLength;
+        this.ttlSeconds = ttl.toSeconds();
+    }
+
+    @Override
+    public void append(String roomId, ChatMessage message) {
+        keySeeder.seed(version -> List.of(keySchema.recentStream(version, roomId)));
+        for (Version version : keySchema.writeVersions()) {
+            scriptRegistry.execute(Script.APPEND_RECENT_STREAM, List.of(keySchema.recentStream(version, roomId)),
+                message, maxLength, ttlSeconds);
+        }
+    }
+
+    @Override
+    public RecentMessagePage readBefore(String roomId, String beforeEntryId, int limit) {
+        Range<String> range = beforeEntryId == null
+            ? Range.unbounded()
+            : Range.of(Range.Bound.unbounded(), Range.Bound.exclusive(beforeEntryId));
+
+        List<MapRecord<String, Object, Object>> records = null;
+        for (Version version : keySchema.readVersions()) {
+            records = redisTemplate.opsForStream()
+                .reverseRange(keySchema.recentStream(version, roomId), range, Limit.limit().count(limit));
+            if (records != null && !records.isEmpty()) {
+                break;
+            }
+        }
+        if (records == null || records.isEmpty()) {
+            return RecentMessagePage.empty();
+        }
+
+        List<ChatMessage> messages = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            if (record.getValue().get(MESSAGE_FIELD) instanceof ChatMessage message) {
+                messages.add(message);
+            }
+        }
+        return new RecentMessagePage(messages, records.get(records.size() - 1).getId().getValue());
+    }
+
+    @Override
+    public void clear(String roomId) {
+        for (Version version : keySchema.writeVersions()) {
+            redisTemplate.delete(keySchema.recentStream(version, roomId));
+        }
+        keySeeder.forget(version -> List.of(keySchema.recentStream(version, roomId)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.chat.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUID generator (UUIDv7, RFC 9562)
+ *
+ * Layout:
+ * - 48 bits: Unix timestamp in milliseconds
+ * - 4 bits: version (7)
+ * - 12 bits: per-millisecond counter (monotonic within this JVM)
+ * - 2 bits: variant (10)
+ * - 62 bits: random
+ *
+ * IDs generated in the same process are strictly increasing, and IDs from different
+ * nodes are ordered by millisecond. New rows therefore land on the right-hand edge of
+ * the primary-key B-tree instead of random pages, and the ID can break ties between
+ * rows that share a timestamp.
+ *
+ * Generation is lock-free (single CAS on an AtomicLong).
+ */
+public final class TimeOrderedUuid {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long VERSION_BITS = 0x7000L;
+    private static final long VARIANT_BITS = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    // (timestamp millis << 12) | counter of the last generated ID
+    private static final AtomicLong LAST_STATE = new AtomicLong();
+
+    private TimeOrderedUuid() {
+    }
+
+    /**
+     * Generate a new UUIDv7
+     */
+    public static UUID next() {
+        long state = nextState(System.currentTimeMillis());
+        long timestamp = state >>> COUNTER_BITS;
+        long counter = state & COUNTER_MASK;
+
+        long msb = (timestamp << 16) | VERSION_BITS | counter;
+        long lsb = (ThreadLocalRandom.current().nextLong() & RANDOM_MASK) | VARIANT_BITS;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Extract the embedded Unix timestamp (milliseconds) of a UUIDv7
+     *
+     * @throws IllegalArgumentException if the UUID is not version 7
+     */
+    public static long timestampMillis(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Not a UUIDv7: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Advance the (timestamp, counter) state.
+     * If the clock has not moved (or moved backwards), the counter is incremented;
+     * a counter overflow carries into the timestamp, keeping IDs monotonic.
+     */
+    private static long nextState(long nowMillis) {
+        while (true) {
+            long last = LAST_STATE.get();
+            long candidate = nowMillis << COUNTER_BITS;
+            long next = candidate > last ? candidate : last + 1;
+            if (LAST_STATE.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+-- Durable per-room sequence high-water marks
+--
+-- The Redis counter room:{roomId}:seq hands out sequence numbers (V6) in leased
+-- ranges. Before a node uses a range, it records the range's highest number here
+-- (see RoomSequenceRepository). This is monotonic: the update is guarded by
+-- leased_seq < EXCLUDED.leased_seq.
+-- If the Redis counter is lost, it is re-seeded from leased_seq. This covers
+-- numbers that chat_messages does not show:
+-- - messages still queued in Kafka
+-- - unused leases
+-- - rooms whose rows were archived or dropped by retention
+--
+-- Backfill: the highest persisted seq per room. Numbers issued before this migration
+-- are still covered by the live Redis counters; the first lease after deploy moves
+-- leased_seq past them.
+
+CREATE TABLE room_sequences (
+    room_id VARCHAR(255) PRIMARY KEY,
+    leased_seq BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+INSERT INTO room_sequences (room_id, leased_seq, updated_at)
+SELECT room_id, MAX(seq), LOCALTIMESTAMP
+FROM chat_messages
+WHERE seq IS NOT NULL
+GROUP BY room_id;
+
+COMMENT ON TABLE room_sequences IS 'Per-room highest leased sequence number (seed for the Redis counter)';
@@ -0,0 +1,9 @@
+-- Keyset pagination for message history
+-- History pages are ordered by (timestamp DESC, message_id DESC) and continued with
+-- a row-value comparison: (timestamp, message_id) < (:cursorTimestamp, :cursorMessageId).
+-- Including message_id in the index lets every page, however deep, be served by a
+-- single index range scan without a sort step, and makes ties on timestamp deterministic.
+
+DROP INDEX IF EXISTS idx_messages_room_timestamp;
+
+CREATE INDEX idx_messages_room_timestamp ON chat_messages(room_id, timestamp DESC, message_id DESC);
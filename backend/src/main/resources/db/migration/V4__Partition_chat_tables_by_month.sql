@@ -0,0 +1,219 @@
+-- Monthly range partitioning for chat_messages, message_reactions and message_read_status
+--
+-- Retention becomes a metadata operation: expired months are removed with DROP TABLE
+-- on the partition instead of row-by-row DELETE. Partitions are pre-created ahead of
+-- time by PartitionManagementService; the DEFAULT partition only catches outliers
+-- (e.g. client timestamps far in the past or future).
+--
+-- PostgreSQL requires primary keys and unique constraints of a partitioned table to
+-- include the partition key:
+-- - chat_messages:        PRIMARY KEY (message_id, timestamp)
+-- - message_reactions:    PRIMARY KEY (reaction_id, timestamp)
+-- - message_read_status:  PRIMARY KEY (id, read_at)
+-- A unique constraint that includes the partition key does not make (message_id,
+-- user_id, emoji) unique (two reactions differ in timestamp), so unique_reaction moves
+-- to a non-partitioned table:
+-- - message_reaction_keys: PRIMARY KEY (message_id, user_id, emoji), one row per
+--   current reaction. Writers insert the key first (ON CONFLICT DO NOTHING) and only
+--   insert the reaction row for keys they created; removals delete the key first.
+--   Like the reaction counts, keys outlive reaction partitions.
+-- - uk_message_user (read receipts) is not replaced: a duplicate receipt row only
+--   repeats the same (message, user) fact and feeds no counter.
+--
+-- fk_message (message_reactions -> chat_messages) is dropped because:
+-- - the referenced key becomes (message_id, timestamp) and reactions do not carry
+--   the message timestamp
+-- - messages now expire by dropping whole partitions, which a referencing foreign key
+--   would block (or turn into a row-by-row ON DELETE CASCADE); reactions expire through
+--   their own partitions instead, and orphans of dropped messages are never read
+
+-- ---------------------------------------------------------------------------
+-- Partition helper
+-- Creates {parent}_pYYYY_MM for the month containing month_start.
+-- Rows of that month that already landed in {parent}_default are moved into the
+-- new partition (PostgreSQL refuses to create it otherwise): the partition is built
+-- as a plain table, filled with one DELETE ... RETURNING / INSERT statement and then
+-- attached. No temporary table, so repeated calls in one session cannot collide and
+-- a failed call leaves nothing behind (the whole call rolls back).
+-- Returns TRUE if the partition was created, FALSE if it already existed.
+-- ---------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION create_monthly_partition(parent_table TEXT, partition_column TEXT, month_start DATE)
+RETURNS BOOLEAN AS $$
+DECLARE
+    range_start TIMESTAMP := date_trunc('month', month_start);
+    range_end TIMESTAMP := date_trunc('month', month_start) + INTERVAL '1 month';
+    partition_name TEXT := parent_table || '_p' || to_char(month_start, 'YYYY_MM');
+    default_name TEXT := parent_table || '_default';
+    has_spill BOOLEAN;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE %I >= %L AND %I < %L)',
+                   default_name, partition_column, range_start, partition_column, range_end)
+        INTO has_spill;
+
+    IF NOT has_spill THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, parent_table, range_start, range_end);
+        RETURN TRUE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                   partition_name, parent_table);
+    EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved',
+                   default_name, partition_column, range_start, partition_column, range_end,
+                   partition_name);
+    -- Parent indexes and the primary key are created on the partition when it is attached
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent_table, partition_name, range_start, range_end);
+
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- ---------------------------------------------------------------------------
+-- Move existing tables aside
+-- ---------------------------------------------------------------------------
+ALTER TABLE message_reactions DROP CONSTRAINT fk_message;
+
+ALTER TABLE chat_messages RENAME TO chat_messages_legacy;
+ALTER TABLE chat_messages_legacy RENAME CONSTRAINT chat_messages_pkey TO chat_messages_legacy_pkey;
+ALTER INDEX idx_messages_room_timestamp RENAME TO idx_messages_room_timestamp_legacy;
+ALTER INDEX idx_messages_user RENAME TO idx_messages_user_legacy;
+
+ALTER TABLE message_reactions RENAME TO message_reactions_legacy;
+ALTER TABLE message_reactions_legacy RENAME CONSTRAINT message_reactions_pkey TO message_reactions_legacy_pkey;
+ALTER TABLE message_reactions_legacy RENAME CONSTRAINT unique_reaction TO unique_reaction_legacy;
+ALTER INDEX idx_reactions_message RENAME TO idx_reactions_message_legacy;
+ALTER INDEX idx_reactions_user RENAME TO idx_reactions_user_legacy;
+
+ALTER TABLE message_read_status RENAME TO message_read_status_legacy;
+ALTER TABLE message_read_status_legacy RENAME CONSTRAINT message_read_status_pkey TO message_read_status_legacy_pkey;
+ALTER TABLE message_read_status_legacy RENAME CONSTRAINT uk_message_user TO uk_message_user_legacy;
+ALTER INDEX idx_message_read_room_user RENAME TO idx_message_read_room_user_legacy;
+ALTER INDEX idx_message_read_message RENAME TO idx_message_read_message_legacy;
+ALTER INDEX idx_message_read_timestamp RENAME TO idx_message_read_timestamp_legacy;
+
+-- ---------------------------------------------------------------------------
+-- Partitioned tables
+-- ---------------------------------------------------------------------------
+CREATE TABLE chat_messages (
+    message_id UUID NOT NULL,
+    room_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    content TEXT NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT chat_messages_pkey PRIMARY KEY (message_id, timestamp),
+    CONSTRAINT fk_room FOREIGN KEY (room_id) REFERENCES chat_rooms(room_id) ON DELETE CASCADE
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE message_reactions (
+    reaction_id UUID NOT NULL,
+    message_id UUID NOT NULL,
+    room_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    emoji VARCHAR(20) NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT message_reactions_pkey PRIMARY KEY (reaction_id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE message_reaction_keys (
+    message_id UUID NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    emoji VARCHAR(20) NOT NULL,
+    CONSTRAINT message_reaction_keys_pkey PRIMARY KEY (message_id, user_id, emoji)
+);
+
+CREATE TABLE message_read_status (
+    id BIGSERIAL NOT NULL,
+    message_id UUID NOT NULL,
+    room_id VARCHAR(100) NOT NULL,
+    user_id VARCHAR(100) NOT NULL,
+    read_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT message_read_status_pkey PRIMARY KEY (id, read_at)
+) PARTITION BY RANGE (read_at);
+
+CREATE TABLE chat_messages_default PARTITION OF chat_messages DEFAULT;
+CREATE TABLE message_reactions_default PARTITION OF message_reactions DEFAULT;
+CREATE TABLE message_read_status_default PARTITION OF message_read_status DEFAULT;
+
+-- Indexes are declared on the parent and inherited by every partition
+CREATE INDEX idx_messages_room_timestamp ON chat_messages(room_id, timestamp DESC, message_id DESC);
+CREATE INDEX idx_messages_user ON chat_messages(user_id);
+CREATE INDEX idx_reactions_message ON message_reactions(message_id, user_id, emoji);
+CREATE INDEX idx_reactions_user ON message_reactions(user_id);
+CREATE INDEX idx_message_read_room_user ON message_read_status(room_id, user_id);
+CREATE INDEX idx_message_read_message ON message_read_status(message_id, user_id);
+CREATE INDEX idx_message_read_timestamp ON message_read_status(read_at);
+
+-- ---------------------------------------------------------------------------
+-- Initial partitions: from the oldest existing row (at most 24 months back)
+-- up to 3 months ahead. Older rows stay in the DEFAULT partition.
+-- ---------------------------------------------------------------------------
+DO $$
+DECLARE
+    oldest TIMESTAMP;
+    month_cursor DATE;
+    last_month DATE := (date_trunc('month', LOCALTIMESTAMP) + INTERVAL '3 months')::DATE;
+    floor_month DATE := (date_trunc('month', LOCALTIMESTAMP) - INTERVAL '24 months')::DATE;
+BEGIN
+    SELECT LEAST(
+        (SELECT MIN(timestamp) FROM chat_messages_legacy),
+        (SELECT MIN(timestamp) FROM message_reactions_legacy),
+        (SELECT MIN(read_at) FROM message_read_status_legacy)
+    ) INTO oldest;
+
+    month_cursor := GREATEST(
+        date_trunc('month', COALESCE(oldest, LOCALTIMESTAMP))::DATE,
+        floor_month
+    );
+
+    WHILE month_cursor <= last_month LOOP
+        PERFORM create_monthly_partition('chat_messages', 'timestamp', month_cursor);
+        PERFORM create_monthly_partition('message_reactions', 'timestamp', month_cursor);
+        PERFORM create_monthly_partition('message_read_status', 'read_at', month_cursor);
+        month_cursor := (month_cursor + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+-- ---------------------------------------------------------------------------
+-- Copy data and drop the legacy tables
+-- ---------------------------------------------------------------------------
+INSERT INTO chat_messages (message_id, room_id, user_id, username, content, timestamp, created_at)
+SELECT message_id, room_id, user_id, username, content, timestamp, created_at
+FROM chat_messages_legacy;
+
+INSERT INTO message_reactions (reaction_id, message_id, room_id, user_id, username, emoji, timestamp, created_at)
+SELECT reaction_id, message_id, room_id, user_id, username, emoji, timestamp, created_at
+FROM message_reactions_legacy;
+
+INSERT INTO message_reaction_keys (message_id, user_id, emoji)
+SELECT message_id, user_id, emoji
+FROM message_reactions_legacy;
+
+INSERT INTO message_read_status (id, message_id, room_id, user_id, read_at, created_at)
+SELECT id, message_id, room_id, user_id, read_at, created_at
+FROM message_read_status_legacy;
+
+SELECT setval(
+    pg_get_serial_sequence('message_read_status', 'id'),
+    COALESCE((SELECT MAX(id) FROM message_read_status_legacy), 0) + 1,
+    false
+);
+
+DROP TABLE message_reactions_legacy;
+DROP TABLE message_read_status_legacy;
+DROP TABLE chat_messages_legacy;
+
+COMMENT ON TABLE message_read_status IS 'Tracks read receipts for messages - which users have read which messages (partitioned monthly by read_at)';
+COMMENT ON TABLE chat_messages IS 'Chat messages (partitioned monthly by timestamp)';
+COMMENT ON TABLE message_reactions IS 'Message reactions (partitioned monthly by timestamp)';
+COMMENT ON TABLE message_reaction_keys IS 'Current reactions, one row per (message, user, emoji) - uniqueness guard for message_reactions';
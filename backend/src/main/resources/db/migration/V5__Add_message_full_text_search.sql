@@ -0,0 +1,20 @@
+-- Full-text search over message content
+--
+-- content_tsv is a stored generated column, so every insert path (JPA, COPY bulk
+-- insert) keeps it in sync without application code. The 'simple' configuration
+-- lowercases and splits on word boundaries without language-specific stemming or
+-- stop words, since rooms are not tied to a single language.
+--
+-- Searches are always scoped to one room. btree_gin lets room_id and the tsvector
+-- share one GIN index, so a query only touches posting lists of that room instead
+-- of filtering every matching row of every room.
+--
+-- Declared on the partitioned parent: the column and index are created on every
+-- existing and future partition.
+
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+ALTER TABLE chat_messages
+    ADD COLUMN content_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('simple', content)) STORED;
+
+CREATE INDEX idx_messages_room_content_tsv ON chat_messages USING GIN (room_id, content_tsv);
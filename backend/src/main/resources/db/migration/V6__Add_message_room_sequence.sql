@@ -0,0 +1,21 @@
+-- Per-room message sequence numbers
+--
+-- seq is assigned by the server at ingest (leased in ranges from Redis, see
+-- RoomSequenceServiceImpl) and lets clients detect gaps and fetch
+-- "everything after seq N" with one index range scan on (room_id, seq).
+--
+-- Existing messages are numbered per room in (timestamp, message_id) order so
+-- that new numbers, seeded from MAX(seq), continue after them.
+
+ALTER TABLE chat_messages ADD COLUMN seq BIGINT;
+
+UPDATE chat_messages m
+SET seq = numbered.seq
+FROM (
+    SELECT message_id, timestamp,
+           ROW_NUMBER() OVER (PARTITION BY room_id ORDER BY timestamp, message_id) AS seq
+    FROM chat_messages
+) numbered
+WHERE m.message_id = numbered.message_id AND m.timestamp = numbered.timestamp;
+
+CREATE INDEX idx_messages_room_seq ON chat_messages(room_id, seq);
@@ -0,0 +1,61 @@
+-- Incrementally maintained per-room statistics
+--
+-- room_stats is updated in the same transaction as every persisted message batch
+-- (see RoomStatsRepository), from the rows that were actually inserted, so
+-- redelivered Kafka records are never counted twice. Reading a room's stats is a
+-- single primary-key lookup instead of COUNT(*) over chat_messages.
+--
+-- message_count is the lifetime number of persisted messages: retention, archive
+-- and partition drops do not decrement it.
+--
+-- room_senders records each (room, user) pair once; its inserts drive the
+-- unique_senders counter.
+
+CREATE TABLE room_stats (
+    room_id VARCHAR(255) PRIMARY KEY,
+    message_count BIGINT NOT NULL DEFAULT 0,
+    unique_senders BIGINT NOT NULL DEFAULT 0,
+    last_message_id UUID,
+    last_message_at TIMESTAMP,
+    last_sender_id VARCHAR(255),
+    last_message_preview VARCHAR(200),
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_room_stats_room FOREIGN KEY (room_id) REFERENCES chat_rooms(room_id) ON DELETE CASCADE
+);
+
+CREATE TABLE room_senders (
+    room_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    first_message_at TIMESTAMP NOT NULL,
+    CONSTRAINT room_senders_pkey PRIMARY KEY (room_id, user_id),
+    CONSTRAINT fk_room_senders_room FOREIGN KEY (room_id) REFERENCES chat_rooms(room_id) ON DELETE CASCADE
+);
+
+-- Room lists ordered by recent activity
+CREATE INDEX idx_room_stats_last_message_at ON room_stats(last_message_at DESC);
+
+-- Backfill from existing messages
+INSERT INTO room_senders (room_id, user_id, first_message_at)
+SELECT room_id, user_id, MIN(timestamp)
+FROM chat_messages
+GROUP BY room_id, user_id;
+
+INSERT INTO room_stats (room_id, message_count, unique_senders, last_message_id, last_message_at,
+                        last_sender_id, last_message_preview, updated_at)
+SELECT r.room_id,
+       COALESCE(c.message_count, 0),
+       COALESCE(s.unique_senders, 0),
+       l.message_id,
+       l.timestamp,
+       l.user_id,
+       LEFT(l.content, 200),
+       LOCALTIMESTAMP
+FROM chat_rooms r
+LEFT JOIN (SELECT room_id, COUNT(*) AS message_count FROM chat_messages GROUP BY room_id) c
+       ON c.room_id = r.room_id
+LEFT JOIN (SELECT room_id, COUNT(*) AS unique_senders FROM room_senders GROUP BY room_id) s
+       ON s.room_id = r.room_id
+LEFT JOIN (SELECT DISTINCT ON (room_id) room_id, message_id, timestamp, user_id, content
+           FROM chat_messages
+           ORDER BY room_id, timestamp DESC, message_id DESC) l
+       ON l.room_id = r.room_id;
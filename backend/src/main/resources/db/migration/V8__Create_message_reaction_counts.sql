@@ -0,0 +1,24 @@
+-- Materialized per-message reaction counts
+--
+-- Maintained by the reaction consumer with batched delta upserts in the same
+-- transaction as the message_reactions insert/delete that caused them (see
+-- MessageReactionCountRepository). History reads fetch counts for a page with one
+-- primary-key lookup instead of scanning message_reactions or relying on the
+-- 24h Redis reaction cache.
+--
+-- Not partitioned and not tied to message retention: counts outlive reaction
+-- partitions, so archived messages keep their counts.
+
+CREATE TABLE message_reaction_counts (
+    message_id UUID NOT NULL,
+    emoji VARCHAR(20) NOT NULL,
+    count INTEGER NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT message_reaction_counts_pkey PRIMARY KEY (message_id, emoji),
+    CONSTRAINT ck_reaction_count_non_negative CHECK (count >= 0)
+);
+
+INSERT INTO message_reaction_counts (message_id, emoji, count, updated_at)
+SELECT message_id, emoji, COUNT(*), LOCALTIMESTAMP
+FROM message_reactions
+GROUP BY message_id, emoji;
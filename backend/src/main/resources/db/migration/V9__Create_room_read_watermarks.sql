@@ -0,0 +1,36 @@
+-- Watermark-based read receipts
+--
+-- message_read_status stores one row per (message, user), so it grows with
+-- messages x readers. room_read_watermarks keeps one row per (room, user) with the
+-- highest per-room sequence number (V6) the user has read; it only ever moves
+-- forward (see ReadWatermarkRepository). "Read by" for a message is derived:
+-- every user of the room whose watermark is >= the message's seq.
+--
+-- Semantics change: reading a message implies having read everything before it
+-- in the room. Messages without seq are never reported as read.
+--
+-- Backfill: per (room, user), the read receipt with the highest seq becomes the
+-- watermark. message_read_status is kept but no longer written; its rows expire
+-- through retention / partition drops and the table is dropped in a later migration.
+
+CREATE TABLE room_read_watermarks (
+    room_id VARCHAR(100) NOT NULL,
+    user_id VARCHAR(100) NOT NULL,
+    last_read_seq BIGINT NOT NULL,
+    last_read_message_id UUID NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT room_read_watermarks_pkey PRIMARY KEY (room_id, user_id)
+);
+
+-- Readers of a message: WHERE room_id = ? AND last_read_seq >= ?
+CREATE INDEX idx_read_watermarks_room_seq ON room_read_watermarks(room_id, last_read_seq);
+
+INSERT INTO room_read_watermarks (room_id, user_id, last_read_seq, last_read_message_id, updated_at)
+SELECT DISTINCT ON (r.room_id, r.user_id) r.room_id, r.user_id, m.seq, m.message_id, r.read_at
+FROM message_read_status r
+JOIN chat_messages m ON m.message_id = r.message_id AND m.room_id = r.room_id
+WHERE m.seq IS NOT NULL
+ORDER BY r.room_id, r.user_id, m.seq DESC;
+
+COMMENT ON TABLE room_read_watermarks IS 'Per (room, user) read position - highest read per-room sequence number';
+COMMENT ON TABLE message_read_status IS 'Legacy per-message read receipts (superseded by room_read_watermarks, no longer written)';
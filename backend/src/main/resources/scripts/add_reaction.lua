@@ -0,0 +1,18 @@
+-- Add a user's reaction to a message
+-- KEYS[1]: message:{messageId}:reactions:{emoji} (Set of user IDs)
+-- KEYS[2]: message:{messageId}:reaction_counts (Hash: emoji -> count)
+-- KEYS[3..n]: reaction sets of every supported emoji of the message
+-- ARGV[1]: serialized user ID
+-- ARGV[2]: emoji
+-- ARGV[3]: TTL in seconds
+-- Returns: 1 if the reaction was added, 0 if it already existed
+local added = redis.call('SADD', KEYS[1], ARGV[1])
+if added == 1 then
+    redis.call('HINCRBY', KEYS[2], ARGV[2], 1)
+end
+
+-- All sets of the message share the counter hash's TTL (EXPIRE on a missing set is a no-op)
+for i = 1, #KEYS do
+    redis.call('EXPIRE', KEYS[i], ARGV[3])
+end
+return added
@@ -0,0 +1,8 @@
+-- Add a user to a room's typing set and (re)arm its short TTL
+-- KEYS[1]: room:{roomId}:typing
+-- ARGV[1]: serialized user ID
+-- ARGV[2]: TTL in seconds
+-- Returns: number of typing users
+redis.call('SADD', KEYS[1], ARGV[1])
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return redis.call('SCARD', KEYS[1])
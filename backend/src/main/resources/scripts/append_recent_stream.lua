@@ -0,0 +1,9 @@
+-- Append a message to a room's recent-message stream with approximate trimming
+-- KEYS[1]: room:{roomId}:stream
+-- ARGV[1]: serialized message
+-- ARGV[2]: approximate max length (MAXLEN ~)
+-- ARGV[3]: idle TTL in seconds
+-- Returns: stream length after the append
+redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[2], '*', 'm', ARGV[1])
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+return redis.call('XLEN', KEYS[1])
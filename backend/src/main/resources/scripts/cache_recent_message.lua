@@ -0,0 +1,10 @@
+-- Append a message to a room's recent-message list, keep the newest N, refresh TTL
+-- KEYS[1]: room:{roomId}:recent
+-- ARGV[1]: serialized message
+-- ARGV[2]: maximum list length
+-- ARGV[3]: TTL in seconds
+-- Returns: list length after trimming
+redis.call('RPUSH', KEYS[1], ARGV[1])
+redis.call('LTRIM', KEYS[1], -tonumber(ARGV[2]), -1)
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+return redis.call('LLEN', KEYS[1])
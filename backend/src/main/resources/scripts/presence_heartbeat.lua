@@ -0,0 +1,34 @@
+-- Record a presence heartbeat for a user in a room, return the online count
+-- KEYS[1]: room:{roomId}:presence (Sorted Set: userId -> last heartbeat epoch millis)
+-- KEYS[2]: room:{roomId}:online:{window} (HyperLogLog of users seen in the current window)
+-- KEYS[3]: room:{roomId}:online:{window - 1} (HyperLogLog of the previous window)
+-- ARGV[1]: serialized user ID
+-- ARGV[2]: now (epoch millis)
+-- ARGV[3]: presence timeout (millis, also the HyperLogLog window length)
+-- ARGV[4]: max tracked members per room
+-- All keys share the room's hash tag (v2 schema), so the script is single-slot on Redis Cluster;
+-- the global presence:rooms index is updated by the caller
+-- Returns: exact number of live members, or the HyperLogLog estimate once the room
+--          has reached the max tracked members
+local now = tonumber(ARGV[2])
+local timeout = tonumber(ARGV[3])
+local max_members = tonumber(ARGV[4])
+
+-- Lazily drop members whose last heartbeat is older than the timeout
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. (now - timeout))
+
+local size = redis.call('ZCARD', KEYS[1])
+if size < max_members or redis.call('ZSCORE', KEYS[1], ARGV[1]) then
+    if redis.call('ZADD', KEYS[1], now, ARGV[1]) == 1 then
+        size = size + 1
+    end
+end
+redis.call('PEXPIRE', KEYS[1], timeout)
+
+redis.call('PFADD', KEYS[2], ARGV[1])
+redis.call('PEXPIRE', KEYS[2], timeout * 2)
+
+if size >= max_members then
+    return redis.call('PFCOUNT', KEYS[2], KEYS[3])
+end
+return size
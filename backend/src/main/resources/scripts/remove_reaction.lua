@@ -0,0 +1,13 @@
+-- Remove a user's reaction from a message
+-- KEYS[1]: message:{messageId}:reactions:{emoji} (Set of user IDs)
+-- KEYS[2]: message:{messageId}:reaction_counts (Hash: emoji -> count)
+-- ARGV[1]: serialized user ID
+-- ARGV[2]: emoji
+-- Returns: 1 if the reaction was removed, 0 if it did not exist
+local removed = redis.call('SREM', KEYS[1], ARGV[1])
+if removed == 1 then
+    if redis.call('HINCRBY', KEYS[2], ARGV[2], -1) <= 0 then
+        redis.call('HDEL', KEYS[2], ARGV[2])
+    end
+end
+return removed
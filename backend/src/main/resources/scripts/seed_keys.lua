@@ -0,0 +1,13 @@
+-- Copy a key group from the v1 to the v2 key schema on its first v2 write
+-- KEYS: (v1 key, v2 key) pairs; the first pair is the group's anchor key
+-- Returns: number of keys copied
+-- Only when the v2 anchor does not exist yet, so writes already made to v2 are never
+-- overwritten; COPY keeps each key's TTL
+if redis.call('EXISTS', KEYS[2]) == 1 or redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+local copied = 0
+for i = 1, #KEYS, 2 do
+    copied = copied + redis.call('COPY', KEYS[i], KEYS[i + 1])
+end
+return copied
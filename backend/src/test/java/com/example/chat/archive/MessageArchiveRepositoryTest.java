@@ -0,0 +1,261 @@
+package com.example.chat.archive;
+
+import com.example.chat.dto.MessageHistoryRow;
+import com.example.chat.repository.MessageArchiveRepository;
+import com.github.luben.zstd.Zstd;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MessageArchiveRepository Test
+ *
+ * Segment files of the cold-history archive: round trip across blocks, keyset cursor
+ * boundaries ((timestamp, messageId) with unsigned UUID order), version 1 segments,
+ * and merge-on-rewrite. Pure file I/O against a temp directory.
+ */
+class MessageArchiveRepositoryTest {
+
+    private static final String ROOM_ID = "room/1";
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 15);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test: 여러 블록에 걸친 세그먼트 왕복
+     *
+     * Given: 블록 크기(256)를 넘는 600개 메시지 (seq 있음/없음 혼합)
+     * When: 세그먼트 저장 후 커서 없이 전체 읽기
+     * Then: 최신순으로 모든 필드가 그대로 반환됨
+     */
+    @Test
+    void testWriteAndRead_RoundTripAcrossBlocks() {
+        // GIVEN
+        MessageArchiveRepository repository = repository();
+        List<MessageHistoryRow> rows = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            rows.add(row(new UUID(0L, i), DAY.atTime(10, 0).plusSeconds(i), i % 3 == 0 ? null : (long) i));
+        }
+
+        // WHEN
+        repository.writeSegment(ROOM_ID, DAY, rows);
+        List<MessageHistoryRow> read = repository.readBefore(ROOM_ID, null, null, 1000);
+
+        // THEN
+        List<MessageHistoryRow> expected = new ArrayList<>(rows);
+        Collections.reverse(expected);
+        assertThat(read).containsExactlyElementsOf(expected);
+        assertThat(read.get(0).roomId()).isEqualTo(ROOM_ID);
+    }
+
+    /**
+     * Test: 같은 timestamp의 커서 경계는 UUID 부호 없는 순서로 결정
+     *
+     * Given: 같은 timestamp에 최상위 비트만 다른 UUID 3개 (부호 있는 비교와 순서가 다름)
+     * When: 가운데 UUID를 커서로 읽기 / messageId 없이 같은 timestamp로 읽기
+     * Then: 부호 없는 순서로 더 작은 UUID만 반환 / 해당 timestamp 전체 제외
+     */
+    @Test
+    void testReadBefore_EqualTimestampsUseUnsignedUuidOrder() {
+        // GIVEN
+        MessageArchiveRepository repository = repository();
+        LocalDateTime timestamp = DAY.atTime(12, 0, 0, 123_456_000);
+        UUID low = new UUID(0x0000_0000_0000_0001L, 1L);
+        UUID middle = new UUID(0x7FFF_FFFF_FFFF_FFFFL, 1L);
+        UUID high = new UUID(0x8000_0000_0000_0000L, 1L); // negative as a signed long
+        MessageHistoryRow older = row(new UUID(0L, 9L), timestamp.minusNanos(1_000), 1L);
+        repository.writeSegment(ROOM_ID, DAY, List.of(
+            row(low, timestamp, 2L), row(middle, timestamp, 3L), row(high, timestamp, 4L), older));
+
+        // WHEN
+        List<MessageHistoryRow> afterMiddle = repository.readBefore(ROOM_ID, timestamp, middle, 10);
+        List<MessageHistoryRow> afterTimestamp = repository.readBefore(ROOM_ID, timestamp, null, 10);
+        List<MessageHistoryRow> all = repository.readBefore(ROOM_ID, null, null, 10);
+
+        // THEN
+        assertThat(all).extracting(MessageHistoryRow::messageId).containsExactly(high, middle, low, older.messageId());
+        assertThat(afterMiddle).extracting(MessageHistoryRow::messageId).containsExactly(low, older.messageId());
+        assertThat(afterTimestamp).extracting(MessageHistoryRow::messageId).containsExactly(older.messageId());
+    }
+
+    /**
+     * Test: 커서 페이지네이션은 블록/세그먼트 경계에서 누락·중복 없음
+     *
+     * Given: 이틀치 세그먼트, 같은 timestamp 묶음이 블록 경계에 걸침
+     * When: 마지막 행을 커서로 7개씩 페이지 읽기
+     * Then: 이어 붙인 결과가 전체 최신순 목록과 동일
+     */
+    @Test
+    void testReadBefore_KeysetPagingHasNoSkipsOrRepeats() {
+        // GIVEN
+        MessageArchiveRepository repository = repository();
+        List<MessageHistoryRow> dayOne = new ArrayList<>();
+        List<MessageHistoryRow> dayTwo = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            // Runs of 4 rows share a timestamp; random IDs exercise both UUID sign halves
+            dayOne.add(row(UUID.randomUUID(), DAY.atTime(8, 0).plusSeconds(i / 4), null));
+            dayTwo.add(row(UUID.randomUUID(), DAY.plusDays(1).atTime(8, 0).plusSeconds(i / 4), (long) i));
+        }
+        repository.writeSegment(ROOM_ID, DAY, dayOne);
+        repository.writeSegment(ROOM_ID, DAY.plusDays(1), dayTwo);
+        List<MessageHistoryRow> all = repository.readBefore(ROOM_ID, null, null, 1000);
+
+        // WHEN
+        List<MessageHistoryRow> paged = new ArrayList<>();
+        List<MessageHistoryRow> page = repository.readBefore(ROOM_ID, null, null, 7);
+        while (!page.isEmpty()) {
+            paged.addAll(page);
+            MessageHistoryRow last = page.get(page.size() - 1);
+            page = repository.readBefore(ROOM_ID, last.timestamp(), last.messageId(), 7);
+        }
+
+        // THEN
+        assertThat(all).hasSize(600);
+        assertThat(paged).containsExactlyElementsOf(all);
+    }
+
+    /**
+     * Test: 버전 1 세그먼트(seq 없음) 읽기
+     *
+     * Given: seq 필드가 없는 버전 1 형식으로 직접 기록한 세그먼트
+     * When: 읽기
+     * Then: 모든 행이 seq null로 반환됨
+     */
+    @Test
+    void testReadBefore_VersionOneSegment() throws IOException {
+        // GIVEN
+        MessageArchiveRepository repository = repository();
+        UUID newer = new UUID(0L, 2L);
+        UUID older = new UUID(0L, 1L);
+        LocalDateTime timestamp = DAY.atTime(9, 30);
+        writeVersionOneSegment(List.of(
+            row(newer, timestamp, null), row(older, timestamp.minusMinutes(1), null)));
+
+        // WHEN
+        List<MessageHistoryRow> read = repository.readBefore(ROOM_ID, null, null, 10);
+
+        // THEN
+        assertThat(read).extracting(MessageHistoryRow::messageId).containsExactly(newer, older);
+        assertThat(read).allMatch(row -> row.seq() == null);
+        assertThat(read.get(0).content()).isEqualTo("content-" + newer);
+        assertThat(read.get(1).timestamp()).isEqualTo(timestamp.minusMinutes(1));
+    }
+
+    /**
+     * Test: 같은 날 세그먼트 재작성 시 기존 행과 병합, messageId 중복 제거
+     *
+     * Given: 행 A, B가 저장된 세그먼트
+     * When: 수정된 B와 새 행 C로 다시 저장
+     * Then: A, 수정된 B, C가 한 번씩만 최신순으로 존재
+     */
+    @Test
+    void testWriteSegment_MergesAndDeduplicates() {
+        // GIVEN
+        MessageArchiveRepository repository = repository();
+        MessageHistoryRow a = row(new UUID(0L, 1L), DAY.atTime(1, 0), 1L);
+        MessageHistoryRow b = row(new UUID(0L, 2L), DAY.atTime(2, 0), 2L);
+        repository.writeSegment(ROOM_ID, DAY, List.of(a, b));
+
+        // WHEN
+        MessageHistoryRow rewrittenB = new MessageHistoryRow(b.messageId(), ROOM_ID, b.userId(), b.username(),
+            "edited", b.timestamp(), b.seq());
+        MessageHistoryRow c = row(new UUID(0L, 3L), DAY.atTime(3, 0), 3L);
+        repository.writeSegment(ROOM_ID, DAY, List.of(rewrittenB, c));
+
+        // THEN
+        assertThat(repository.readBefore(ROOM_ID, null, null, 10)).containsExactly(c, rewrittenB, a);
+        assertThat(directory.resolve(encodedRoom()).resolve(DAY + ".seg.tmp")).doesNotExist();
+    }
+
+    /**
+     * Test: 보존 기간이 지난 세그먼트 삭제
+     */
+    @Test
+    void testDeleteSegmentsBefore_RemovesOldDaysAndEmptyRooms() {
+        MessageArchiveRepository repository = repository();
+        repository.writeSegment(ROOM_ID, DAY, List.of(row(new UUID(0L, 1L), DAY.atTime(1, 0), 1L)));
+        repository.writeSegment(ROOM_ID, DAY.plusDays(1), List.of(row(new UUID(0L, 2L), DAY.plusDays(1).atTime(1, 0), 2L)));
+        repository.writeSegment("other", DAY, List.of(row(new UUID(0L, 3L), DAY.atTime(1, 0), 3L)));
+
+        int deleted = repository.deleteSegmentsBefore(DAY.plusDays(1));
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(repository.readBefore(ROOM_ID, null, null, 10)).extracting(MessageHistoryRow::seq).containsExactly(2L);
+        assertThat(repository.readBefore("other", null, null, 10)).isEmpty();
+    }
+
+    private MessageArchiveRepository repository() {
+        return new MessageArchiveRepository(directory.toString());
+    }
+
+    private static MessageHistoryRow row(UUID messageId, LocalDateTime timestamp, Long seq) {
+        return new MessageHistoryRow(messageId, ROOM_ID, "user-1", "User One", "content-" + messageId, timestamp, seq);
+    }
+
+    private static String encodedRoom() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(ROOM_ID.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Version 1 layout: one block, records without seq, rows given newest first
+     */
+    private void writeVersionOneSegment(List<MessageHistoryRow> rows) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(raw);
+        for (MessageHistoryRow row : rows) {
+            records.writeLong(row.messageId().getMostSignificantBits());
+            records.writeLong(row.messageId().getLeastSignificantBits());
+            records.writeLong(micros(row.timestamp()));
+            for (String value : List.of(row.userId(), row.username(), row.content())) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                records.writeInt(bytes.length);
+                records.write(bytes);
+            }
+        }
+        byte[] rawBytes = raw.toByteArray();
+        byte[] compressed = Zstd.compress(rawBytes, 3);
+        MessageHistoryRow oldest = rows.get(rows.size() - 1);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        out.write(compressed);
+        long indexOffset = file.size();
+        out.writeLong(0L);
+        out.writeInt(compressed.length);
+        out.writeInt(rawBytes.length);
+        out.writeInt(rows.size());
+        out.writeLong(micros(oldest.timestamp()));
+        out.writeLong(oldest.messageId().getMostSignificantBits());
+        out.writeLong(oldest.messageId().getLeastSignificantBits());
+        out.writeInt(0x43484152);
+        out.writeInt(1);
+        out.writeLong(indexOffset);
+        out.writeInt(1);
+        out.flush();
+
+        Path segment = directory.resolve(encodedRoom()).resolve(DAY + ".seg");
+        Files.createDirectories(segment.getParent());
+        Files.write(segment, file.toByteArray());
+    }
+
+    private static long micros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+}
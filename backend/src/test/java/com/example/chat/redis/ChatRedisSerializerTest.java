@@ -0,0 +1,149 @@
+package com.example.chat.redis;
+
+import com.example.chat.config.ChatRedisSerializer;
+import com.example.chat.dto.ChatMessage;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ChatRedisSerializer Test
+ *
+ * Compact Redis value format: plain strings, binary ChatMessage (zstd above threshold),
+ * and reads of values written by the previous JSON default-typing serializer
+ */
+class ChatRedisSerializerTest {
+
+    private final ObjectMapper legacyMapper = legacyMapper();
+    private final ChatRedisSerializer serializer = new ChatRedisSerializer(legacyMapper);
+
+    /**
+     * Test: ChatMessage 왕복 직렬화
+     *
+     * Given: 모든 필드(리액션 포함)가 채워진 ChatMessage
+     * When: serialize 후 deserialize
+     * Then: 원본과 동일하고, 기존 JSON 형식보다 작음
+     */
+    @Test
+    void testChatMessage_RoundTrip() throws Exception {
+        // GIVEN
+        ChatMessage message = message("Hello there, how is everyone doing today?");
+        message.getReactions().put("HEART", Set.of("user-2", "user-3"));
+
+        // WHEN
+        byte[] bytes = serializer.serialize(message);
+        Object decoded = serializer.deserialize(bytes);
+
+        // THEN
+        assertThat(decoded).isEqualTo(message);
+        assertThat(bytes.length).isLessThan(legacySerializer().serialize(message).length);
+    }
+
+    /**
+     * Test: 큰 메시지 압축 왕복
+     *
+     * Given: 임계값보다 큰 content
+     * When: serialize 후 deserialize
+     * Then: zstd 플래그가 설정되고, 코덱이 기록한 원본 레코드 길이보다 작으며, 원본과 동일하게 복원됨
+     */
+    @Test
+    void testLargeChatMessage_CompressedRoundTrip() {
+        // GIVEN
+        ChatMessage message = message("deploy failed on node ".repeat(45));
+
+        // WHEN
+        byte[] bytes = serializer.serialize(message);
+
+        // THEN: header is TAG, type | FLAG_ZSTD, then the uncompressed record length
+        assertThat(bytes[1] & 0x80).isNotZero();
+        assertThat(bytes.length).isLessThan(ByteBuffer.wrap(bytes, 2, 4).getInt());
+        assertThat(serializer.deserialize(bytes)).isEqualTo(message);
+    }
+
+    /**
+     * Test: 문자열/숫자는 평문 UTF-8
+     */
+    @Test
+    void testStringsAndNumbers_Plain() {
+        assertThat(serializer.serialize("user-1")).isEqualTo("user-1".getBytes(StandardCharsets.UTF_8));
+        assertThat(serializer.serialize(86400)).isEqualTo("86400".getBytes(StandardCharsets.UTF_8));
+        assertThat(serializer.deserialize("user-1".getBytes(StandardCharsets.UTF_8))).isEqualTo("user-1");
+    }
+
+    /**
+     * Test: 기존 JSON(default typing) 값 읽기
+     *
+     * Given: 이전 Jackson2JsonRedisSerializer로 쓰인 ChatMessage (타입 마커 포함)
+     * When: deserialize
+     * Then: 동일한 값으로 복원됨
+     */
+    @Test
+    void testLegacyJson_StillReadable() {
+        // GIVEN
+        Jackson2JsonRedisSerializer<Object> legacy = legacySerializer();
+        ChatMessage message = message("Written before the format switch");
+
+        // WHEN / THEN
+        assertThat(serializer.deserialize(legacy.serialize(message))).isEqualTo(message);
+    }
+
+    /**
+     * Test: JSON처럼 시작하는 평문 문자열
+     *
+     * Given: '"', '[', '{'로 시작하는 문자열과 숫자
+     * When: serialize 후 deserialize
+     * Then: 레거시 JSON으로 해석되지 않고 쓴 그대로의 문자열로 복원됨
+     */
+    @Test
+    void testJsonLikePlainStrings_NotDecodedAsLegacy() {
+        for (String value : new String[] {"\"quoted\"", "[1, 2]", "[\"a\", \"b\"]", "{\"a\": 1}"}) {
+            assertThat(serializer.deserialize(serializer.serialize(value))).isEqualTo(value);
+        }
+        assertThat(serializer.deserialize(serializer.serialize(86400L))).isEqualTo("86400");
+    }
+
+    private ChatMessage message(String content) {
+        Map<String, Set<String>> reactions = new HashMap<>();
+        return ChatMessage.builder()
+            .messageId(UUID.randomUUID())
+            .roomId("room-1")
+            .userId("user-1")
+            .username("alice")
+            .content(content)
+            .timestamp(LocalDateTime.of(2026, 10, 19, 12, 30, 5))
+            .seq(42L)
+            .type("TEXT")
+            .reactions(reactions)
+            .build();
+    }
+
+    private Jackson2JsonRedisSerializer<Object> legacySerializer() {
+        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        serializer.setObjectMapper(legacyMapper);
+        return serializer;
+    }
+
+    private static ObjectMapper legacyMapper() {
+        ObjectMapper om = new ObjectMapper();
+        om.registerModule(new JavaTimeModule());
+        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        om.activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+            .allowIfBaseType(Object.class)
+            .build(), ObjectMapper.DefaultTyping.NON_FINAL);
+        return om;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.chat.redis;
+
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.service.impl.DegradedRoomState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DegradedRoomState Test
+ *
+ * Node-local state while the Redis breaker is open: recent messages, presence,
+ * and the queues replayed by reconciliation (acknowledged by identity)
+ */
+class DegradedRoomStateTest {
+
+    private static final String ROOM_ID = "room-1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Test: 재생한 메시지만 큐에서 제거
+     *
+     * Given: 큐에 쌓인 메시지 3개
+     * When: 스냅샷의 앞 2개를 재생 후 ack
+     * Then: 세 번째 메시지만 남고, 모두 ack하면 방이 큐에서 빠짐
+     */
+    @Test
+    void testAckMessage_RemovesReplayedMessagesOnly() {
+        // GIVEN
+        DegradedRoomState state = state(10);
+        ChatMessage first = message("first");
+        ChatMessage second = message("second");
+        ChatMessage third = message("third");
+        state.queueMessage(ROOM_ID, first);
+        state.queueMessage(ROOM_ID, second);
+        state.queueMessage(ROOM_ID, third);
+
+        // WHEN
+        List<ChatMessage> snapshot = state.peekMessages(ROOM_ID);
+        state.ackMessage(ROOM_ID, snapshot.get(0));
+        state.ackMessage(ROOM_ID, snapshot.get(1));
+
+        // THEN
+        assertThat(state.peekMessages(ROOM_ID)).containsExactly(third);
+        state.ackMessage(ROOM_ID, third);
+        assertThat(state.hasPendingMessages(ROOM_ID)).isFalse();
+        assertThat(state.getPendingMessageCount()).isZero();
+    }
+
+    /**
+     * Test: 재생 중 큐 오버플로우가 재생되지 않은 메시지를 지우지 않음
+     *
+     * Given: max-pending-messages-per-room 2, 큐 [m1, m2]의 스냅샷
+     * When: 재생 중 m3 도착 (m1이 오버플로우로 제거됨), 스냅샷 m1, m2 ack
+     * Then: 재생되지 않은 m3는 큐에 남음
+     */
+    @Test
+    void testOverflowDuringReplay_KeepsUnreplayedMessages() {
+        // GIVEN
+        DegradedRoomState state = state(2);
+        ChatMessage m1 = message("m1");
+        ChatMessage m2 = message("m2");
+        ChatMessage m3 = message("m3");
+        state.queueMessage(ROOM_ID, m1);
+        state.queueMessage(ROOM_ID, m2);
+        List<ChatMessage> snapshot = state.peekMessages(ROOM_ID);
+
+        // WHEN
+        state.queueMessage(ROOM_ID, m3);
+        state.ackMessage(ROOM_ID, snapshot.get(0));
+        state.ackMessage(ROOM_ID, snapshot.get(1));
+
+        // THEN
+        assertThat(state.peekMessages(ROOM_ID)).containsExactly(m3);
+        assertThat(meterRegistry.counter("chat.redis.degraded.dropped.messages").count()).isEqualTo(1.0);
+    }
+
+    /**
+     * Test: 같은 내용의 다른 메시지 객체는 ack 대상이 아님
+     */
+    @Test
+    void testAckMessage_MatchesByIdentity() {
+        DegradedRoomState state = state(10);
+        ChatMessage queued = message("same");
+        state.queueMessage(ROOM_ID, queued);
+
+        ChatMessage copy = ChatMessage.builder()
+            .messageId(queued.getMessageId())
+            .roomId(ROOM_ID)
+            .userId(queued.getUserId())
+            .content(queued.getContent())
+            .timestamp(queued.getTimestamp())
+            .build();
+        state.ackMessage(ROOM_ID, copy);
+
+        assertThat(state.peekMessages(ROOM_ID)).hasSize(1);
+    }
+
+    /**
+     * Test: 최근 메시지는 방마다 최신 50개, 오래된 순
+     */
+    @Test
+    void testRecentMessages_KeepsNewest50() {
+        DegradedRoomState state = state(10);
+        for (int i = 0; i < 60; i++) {
+            state.appendRecent(ROOM_ID, message("m" + i));
+        }
+
+        List<ChatMessage> recent = state.getRecentMessages(ROOM_ID, 100);
+
+        assertThat(recent).hasSize(50);
+        assertThat(recent.get(0).getContent()).isEqualTo("m10");
+        assertThat(recent.get(49).getContent()).isEqualTo("m59");
+        assertThat(state.getRecentMessages(ROOM_ID, 5)).extracting(ChatMessage::getContent)
+            .containsExactly("m55", "m56", "m57", "m58", "m59");
+    }
+
+    /**
+     * Test: 로컬 presence와 재조정 대상 사용자
+     *
+     * Given: 사용자 2명 heartbeat, 1명 퇴장
+     * When: 방 사용자 및 대기 중인 presence 조회
+     * Then: 남은 사용자만 live, 대기 목록은 한 번만 반환
+     */
+    @Test
+    void testPresence_LiveUsersAndPendingReconciliation() {
+        // GIVEN
+        DegradedRoomState state = state(10);
+        state.heartbeat(ROOM_ID, "alice");
+        state.heartbeat(ROOM_ID, "bob");
+        state.removeUser(ROOM_ID, "bob");
+        state.queuePresence(ROOM_ID, "alice");
+        state.queuePresence(ROOM_ID, "bob");
+
+        // WHEN
+        Set<String> live = state.getRoomUsers(ROOM_ID);
+        Set<String> pending = state.takePendingPresence(ROOM_ID);
+
+        // THEN
+        assertThat(live).containsExactly("alice");
+        assertThat(pending).containsExactlyInAnyOrder("alice", "bob");
+        assertThat(state.takePendingPresence(ROOM_ID)).isEmpty();
+        assertThat(state.hasPending()).isFalse();
+    }
+
+    private DegradedRoomState state(int maxPendingMessagesPerRoom) {
+        return new DegradedRoomState(meterRegistry, Duration.ofSeconds(60), 100, maxPendingMessagesPerRoom);
+    }
+
+    private static ChatMessage message(String content) {
+        return ChatMessage.builder()
+            .messageId(UUID.randomUUID())
+            .roomId(ROOM_ID)
+            .userId("user-1")
+            .content(content)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.chat.redis;
+
+import com.example.chat.controller.MessageHistoryController;
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.HistoryCursor;
+import com.example.chat.dto.MessageHistoryRow;
+import com.example.chat.dto.MessageResponse;
+import com.example.chat.dto.RecentMessagePage;
+import com.example.chat.service.MessagePersistenceService;
+import com.example.chat.service.ReadReceiptService;
+import com.example.chat.service.RedisCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Message History Merge Test
+ *
+ * History pages merge the Redis recent-message window (not yet persisted messages)
+ * with PostgreSQL on the (timestamp DESC, messageId DESC) keyset. Pages must neither
+ * skip nor repeat messages, whatever the Redis arrival order.
+ */
+class MessageHistoryMergeTest {
+
+    private static final String ROOM_ID = "room-1";
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 15, 10, 0);
+
+    // Expected keyset order, UUIDs compared unsigned like PostgreSQL
+    private static final Comparator<MessageHistoryRow> NEWEST_FIRST = Comparator
+        .comparing(MessageHistoryRow::timestamp)
+        .thenComparing(MessageHistoryRow::messageId, (a, b) -> {
+            int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+            return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+        })
+        .reversed();
+
+    private final MessagePersistenceService persistenceService = mock(MessagePersistenceService.class);
+    private final ReadReceiptService readReceiptService = mock(ReadReceiptService.class);
+    private final RedisCacheService redisCacheService = mock(RedisCacheService.class);
+
+    private final List<MessageHistoryRow> persisted = new ArrayList<>();
+    private final List<ChatMessage> recent = new ArrayList<>();
+
+    private MessageHistoryController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new MessageHistoryController(persistenceService, readReceiptService, redisCacheService);
+
+        when(persistenceService.getMessageHistory(eq(ROOM_ID), anyInt()))
+            .thenAnswer(invocation -> persistedBefore(null, invocation.getArgument(1)));
+        when(persistenceService.getMessageHistoryBefore(eq(ROOM_ID), any(LocalDateTime.class), any(UUID.class), anyInt()))
+            .thenAnswer(invocation -> persistedBefore(
+                row(invocation.getArgument(2), invocation.getArgument(1), null), invocation.getArgument(3)));
+        when(redisCacheService.getRecentMessagesBefore(eq(ROOM_ID), isNull(), anyInt()))
+            .thenAnswer(invocation -> new RecentMessagePage(List.copyOf(recent), null));
+    }
+
+    /**
+     * Test: Redis/PostgreSQL 병합 페이지네이션에 누락·중복 없음
+     *
+     * Given: PostgreSQL 메시지 20개, Redis 창에 일부 중복 + 미저장 메시지가 뒤섞인 도착 순서로 존재
+     *        (같은 timestamp, UUID 최상위 비트가 다른 메시지 포함, 가장 오래된 미저장 메시지 포함)
+     * When: 페이지 크기 4로 X-Next-Cursor가 없을 때까지 조회
+     * Then: 이어 붙인 결과가 두 저장소 합집합의 keyset 순서와 동일
+     */
+    @Test
+    void testPaging_MergedSourcesHaveNoSkipsOrRepeats() {
+        // GIVEN
+        List<MessageHistoryRow> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // Pairs share a timestamp; the second of each pair has the UUID sign bit set
+            UUID id = new UUID(i % 2 == 0 ? i : 0x8000_0000_0000_0000L | i, i);
+            MessageHistoryRow row = row(id, BASE.plusSeconds(i / 2), "persisted-" + i);
+            persisted.add(row);
+            expected.add(row);
+            if (i >= 14) {
+                recent.add(message(row, "cached-" + i)); // Already persisted: must appear once
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            MessageHistoryRow pending = row(new UUID(0x8000_0000_0000_0000L | (100 + i), i),
+                BASE.plusSeconds(8 + i), "pending-" + i);
+            recent.add(message(pending, pending.content()));
+            expected.add(pending);
+        }
+        // Older than every persisted row: only the recent flag of the cursor keeps it reachable
+        MessageHistoryRow oldPending = row(new UUID(0L, 999L), BASE.minusMinutes(1), "pending-old");
+        recent.add(message(oldPending, oldPending.content()));
+        expected.add(oldPending);
+        Collections.shuffle(recent, new Random(42));
+        expected.sort(NEWEST_FIRST);
+
+        // WHEN
+        List<MessageResponse> paged = pageThrough(null, 4);
+
+        // THEN
+        assertThat(paged).extracting(MessageResponse::getMessageId)
+            .containsExactlyElementsOf(expected.stream().map(MessageHistoryRow::messageId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Test: 양쪽에 있는 메시지는 PostgreSQL 행으로 한 번만 반환
+     */
+    @Test
+    void testMerge_DuplicateReturnsPersistedRowOnce() {
+        MessageHistoryRow row = row(new UUID(0L, 1L), BASE, "persisted");
+        persisted.add(row);
+        recent.add(message(row, "cached"));
+
+        ResponseEntity<List<MessageResponse>> response = controller.getMessageHistory(ROOM_ID, 10, null, null);
+
+        assertThat(response.getBody()).extracting(MessageResponse::getContent).containsExactly("persisted");
+        assertThat(response.getHeaders().getFirst(MessageHistoryController.NEXT_CURSOR_HEADER)).isNull();
+    }
+
+    /**
+     * Test: 구버전 3부분 커서(stream entry ID)도 Redis 창과 계속 병합
+     *
+     * Given: 커서보다 오래된 미저장 Redis 메시지
+     * When: "{timestamp}|{messageId}|{entryId}" 커서로 조회
+     * Then: 커서 아래의 Redis 메시지가 PostgreSQL 행과 함께 반환, 커서 위의 메시지는 제외
+     */
+    @Test
+    void testLegacyCursor_ContinuesMergingRecentWindow() {
+        // GIVEN
+        MessageHistoryRow cursorRow = row(new UUID(0L, 5L), BASE.plusSeconds(5), "persisted-5");
+        MessageHistoryRow olderPersisted = row(new UUID(0L, 3L), BASE.plusSeconds(3), "persisted-3");
+        MessageHistoryRow olderPending = row(new UUID(0L, 4L), BASE.plusSeconds(4), "pending-4");
+        MessageHistoryRow newerPending = row(new UUID(0L, 6L), BASE.plusSeconds(6), "pending-6");
+        persisted.add(cursorRow);
+        persisted.add(olderPersisted);
+        recent.add(message(newerPending, newerPending.content()));
+        recent.add(message(olderPending, olderPending.content()));
+        String legacy = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            (cursorRow.timestamp() + "|" + cursorRow.messageId() + "|1736935205000-0").getBytes(StandardCharsets.UTF_8));
+
+        // WHEN
+        ResponseEntity<List<MessageResponse>> response = controller.getMessageHistory(ROOM_ID, 10, legacy, null);
+
+        // THEN
+        assertThat(response.getBody()).extracting(MessageResponse::getContent)
+            .containsExactly("pending-4", "persisted-3");
+    }
+
+    /**
+     * Test: recent 플래그가 없는 커서는 PostgreSQL만 조회
+     */
+    @Test
+    void testPlainCursor_SkipsRecentWindow() {
+        MessageHistoryRow olderPersisted = row(new UUID(0L, 3L), BASE.plusSeconds(3), "persisted-3");
+        persisted.add(olderPersisted);
+        recent.add(message(row(new UUID(0L, 4L), BASE.plusSeconds(4), "pending-4"), "pending-4"));
+        String cursor = new HistoryCursor(BASE.plusSeconds(5), new UUID(0L, 5L)).encode();
+
+        ResponseEntity<List<MessageResponse>> response = controller.getMessageHistory(ROOM_ID, 10, cursor, null);
+
+        assertThat(response.getBody()).extracting(MessageResponse::getContent).containsExactly("persisted-3");
+    }
+
+    private List<MessageResponse> pageThrough(String cursor, int pageSize) {
+        List<MessageResponse> all = new ArrayList<>();
+        do {
+            ResponseEntity<List<MessageResponse>> response = controller.getMessageHistory(ROOM_ID, pageSize, cursor, null);
+            assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+            all.addAll(response.getBody());
+            cursor = response.getHeaders().getFirst(MessageHistoryController.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        return all;
+    }
+
+    private List<MessageHistoryRow> persistedBefore(MessageHistoryRow bound, int limit) {
+        return persisted.stream()
+            .filter(row -> bound == null || NEWEST_FIRST.compare(row, bound) > 0)
+            .sorted(NEWEST_FIRST)
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    private static MessageHistoryRow row(UUID messageId, LocalDateTime timestamp, String content) {
+        return new MessageHistoryRow(messageId, ROOM_ID, "user-1", "User One", content, timestamp, null);
+    }
+
+    private static ChatMessage message(MessageHistoryRow row, String content) {
+        return ChatMessage.builder()
+            .messageId(row.messageId())
+            .roomId(ROOM_ID)
+            .userId(row.userId())
+            .username(row.username())
+            .content(content)
+            .timestamp(row.timestamp())
+            .build();
+    }
+}
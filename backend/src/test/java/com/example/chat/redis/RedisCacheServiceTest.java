@@ -1,11 +1,13 @@
 package com.example.chat.redis;
 
 import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.ReactionSummary;
 import com.example.chat.service.RedisCacheService;
 import com.redis.testcontainers.RedisContainer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -14,12 +16,20 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * Redis Cache Service Test (RED Phase)
@@ -39,7 +49,7 @@ import static org.assertj.core.api.Assertions.assertThat;
  *
  * Redis Key Schema:
  * - room:{roomId}:recent - Recent messages (List)
- * - room:{roomId}:users - Active users (Set)
+ * - room:{roomId}:presence - Active users (Sorted Set)
  */
 @SpringBootTest
 @Testcontainers
@@ -179,7 +189,7 @@ class RedisCacheServiceTest {
      *
      * Given: roomId, userId
      * When: addUserToRoom(roomId, userId) 호출
-     * Then: Redis Set room:{roomId}:users에 추가됨
+     * Then: Redis Sorted Set room:{roomId}:presence에 마지막 하트비트 시각으로 추가됨
      */
     @Test
     void testAddUserToRoom_Success() {
@@ -191,11 +201,11 @@ class RedisCacheServiceTest {
         redisCacheService.addUserToRoom(roomId, userId);
 
         // THEN
-        String redisKey = "room:" + roomId + ":users";
-        Set<Object> members = redisTemplate.opsForSet().members(redisKey);
+        String redisKey = "room:" + roomId + ":presence";
+        Double lastHeartbeat = redisTemplate.opsForZSet().score(redisKey, userId);
 
-        assertThat(members).isNotNull();
-        assertThat(members).contains(userId);
+        assertThat(lastHeartbeat).isNotNull();
+        assertThat(lastHeartbeat).isCloseTo(System.currentTimeMillis(), within(5000.0));
     }
 
     /**
@@ -276,4 +286,164 @@ class RedisCacheServiceTest {
         assertThat(ttl).isGreaterThan(0);
         assertThat(ttl).isLessThanOrEqualTo(600);
     }
+
+    /**
+     * Test: 스크립트 캐시 초기화 후 재로드 (NOSCRIPT)
+     *
+     * Given: SCRIPT FLUSH로 서버의 스크립트 캐시가 비워진 상태
+     * When: cacheRecentMessage / addUserToRoomAndCount 호출
+     * Then: 스크립트가 재로드되어 정상 동작
+     */
+    @Test
+    void testScriptReload_AfterScriptFlush() {
+        // GIVEN
+        String roomId = "room-script-1";
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+
+        ChatMessage message = ChatMessage.builder()
+            .messageId(UUID.randomUUID())
+            .roomId(roomId)
+            .userId("user-script")
+            .username("scriptuser")
+            .content("Message after flush")
+            .timestamp(LocalDateTime.now())
+            .type("TEXT")
+            .build();
+
+        // WHEN
+        redisCacheService.cacheRecentMessage(roomId, message);
+        long userCount = redisCacheService.addUserToRoomAndCount(roomId, "user-script");
+
+        // THEN
+        assertThat(redisCacheService.getRecentMessages(roomId)).hasSize(1);
+        assertThat(userCount).isEqualTo(1L);
+    }
+
+    /**
+     * Test: 동시 리액션 추가 시 유실 없음
+     *
+     * Given: 하나의 메시지와 이모지
+     * When: 여러 스레드가 서로 다른 사용자로 addReaction 동시 호출
+     * Then: 카운트와 사용자 Set 크기가 모두 전체 사용자 수와 일치
+     */
+    @Test
+    void testAddReaction_ConcurrentReactorsNotLost() throws Exception {
+        // GIVEN
+        UUID messageId = UUID.randomUUID();
+        int threads = 16;
+        int reactionsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // WHEN
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < reactionsPerThread; i++) {
+                    redisCacheService.addReaction(messageId, "HEART", "user-" + thread + "-" + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // THEN
+        int total = threads * reactionsPerThread;
+        assertThat(redisCacheService.getReactionCounts(messageId)).containsEntry("HEART", (long) total);
+        assertThat(redisCacheService.getReactions(messageId).getReactions().get("HEART")).hasSize(total);
+    }
+
+    /**
+     * Test: 여러 메시지 리액션 일괄 조회
+     *
+     * Given: 리액션이 있는 메시지 2개와 리액션이 없는 메시지 1개
+     * When: redisCacheService.getReactionsForMessages(messageIds) 호출
+     * Then: 메시지별 getReactions 결과와 동일하고, 리액션 없는 메시지는 제외됨
+     */
+    @Test
+    void testGetReactionsForMessages_MatchesSingleLookups() {
+        // GIVEN
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID empty = UUID.randomUUID();
+        redisCacheService.addReaction(first, "HEART", "user-a");
+        redisCacheService.addReaction(first, "HEART", "user-b");
+        redisCacheService.addReaction(first, "FIRE", "user-a");
+        redisCacheService.addReaction(second, "WOW", "user-c");
+
+        // WHEN
+        Map<UUID, ReactionSummary> result = redisCacheService.getReactionsForMessages(List.of(first, second, empty));
+
+        // THEN
+        assertThat(result).containsOnlyKeys(first, second);
+        assertThat(result.get(first).getReactions()).isEqualTo(redisCacheService.getReactions(first).getReactions());
+        assertThat(result.get(second).getReactions()).isEqualTo(redisCacheService.getReactions(second).getReactions());
+    }
+
+    /**
+     * Test: 니어 캐시 무효화
+     *
+     * Given: getRoomUserCount / getRecentMessages 결과가 니어 캐시에 적재된 상태
+     * When: 같은 방에 사용자 입장 및 메시지 캐싱
+     * Then: 다음 조회에서 갱신된 값이 반환됨 (오래된 L1 값이 남지 않음)
+     */
+    @Test
+    void testNearCache_InvalidatedOnWrite() {
+        // GIVEN
+        String roomId = "room-near-1";
+        redisCacheService.addUserToRoom(roomId, "user-1");
+        assertThat(redisCacheService.getRoomUserCount(roomId)).isEqualTo(1L);
+        assertThat(redisCacheService.getRecentMessages(roomId)).isEmpty();
+
+        // WHEN
+        redisCacheService.addUserToRoom(roomId, "user-2");
+        redisCacheService.cacheRecentMessage(roomId, ChatMessage.builder()
+            .messageId(UUID.randomUUID())
+            .roomId(roomId)
+            .userId("user-2")
+            .username("neartest")
+            .content("Fresh message")
+            .timestamp(LocalDateTime.now())
+            .type("TEXT")
+            .build());
+
+        // THEN
+        assertThat(redisCacheService.getRoomUserCount(roomId)).isEqualTo(2L);
+        assertThat(redisCacheService.getRecentMessages(roomId)).hasSize(1);
+    }
+
+    /**
+     * Test: 하트비트가 끊긴 사용자 개별 만료
+     *
+     * Given: 타임아웃보다 오래 전에 마지막 하트비트를 보낸 사용자와 방금 입장한 사용자
+     * When: getRoomUsers / getRoomUserCount 호출 후 sweepExpiredPresence 실행
+     * Then: 만료된 사용자는 조회에서 제외되고, 스위퍼가 Sorted Set에서 제거함
+     */
+    @Test
+    void testPresence_StaleMemberExpiresIndividually() {
+        // GIVEN
+        String roomId = "room-presence-1";
+        String redisKey = "room:" + roomId + ":presence";
+        redisCacheService.addUserToRoom(roomId, "user-active");
+        redisTemplate.opsForZSet().add(redisKey, "user-stale", System.currentTimeMillis() - 3_600_000L);
+
+        // WHEN
+        Set<String> users = redisCacheService.getRoomUsers(roomId);
+        long swept = redisCacheService.sweepExpiredPresence();
+
+        // THEN
+        assertThat(users).containsExactly("user-active");
+        assertThat(swept).isGreaterThanOrEqualTo(1L);
+        assertThat(redisTemplate.opsForZSet().score(redisKey, "user-stale")).isNull();
+        assertThat(redisTemplate.opsForZSet().score(redisKey, "user-active")).isNotNull();
+    }
 }
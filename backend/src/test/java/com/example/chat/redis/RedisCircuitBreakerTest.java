@@ -0,0 +1,176 @@
+package com.example.chat.redis;
+
+import com.example.chat.service.impl.RedisCircuitBreaker;
+import com.example.chat.service.impl.RedisCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RedisCircuitBreaker Test
+ *
+ * Latency-aware breaker: slow calls and errors trip it, open calls go straight
+ * to the fallback, half-open probes close it again
+ */
+class RedisCircuitBreakerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Test: 느린 호출로 차단기 열림
+     *
+     * Given: slow-call-threshold 5ms, minimum-calls 4, 실패율 임계값 50%
+     * When: 임계값보다 느린 호출 4회
+     * Then: OPEN 상태가 되고, 이후 호출은 Redis 호출 없이 fallback 반환
+     */
+    @Test
+    void testSlowCalls_OpenBreaker() {
+        // GIVEN
+        RedisCircuitBreaker breaker = breaker(Duration.ofSeconds(30));
+        AtomicInteger redisCalls = new AtomicInteger();
+
+        // WHEN
+        for (int i = 0; i < 4; i++) {
+            breaker.execute("test", () -> {
+                redisCalls.incrementAndGet();
+                sleep(20);
+                return "redis";
+            }, () -> "local");
+        }
+        String result = breaker.execute("test", () -> {
+            redisCalls.incrementAndGet();
+            return "redis";
+        }, () -> "local");
+
+        // THEN
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(result).isEqualTo("local");
+        assertThat(redisCalls.get()).isEqualTo(4);
+        assertThat(breaker.getFallbackCount()).isEqualTo(1L);
+    }
+
+    /**
+     * Test: 오류는 fallback으로 대체되고, 반개방 프로브 성공 시 닫힘
+     *
+     * Given: 오류로 열린 차단기
+     * When: open-duration 경과 후 정상 호출 2회 (probe-calls 2)
+     * Then: CLOSED 상태로 복귀
+     */
+    @Test
+    void testHalfOpenProbes_CloseBreaker() {
+        // GIVEN
+        RedisCircuitBreaker breaker = breaker(Duration.ofMillis(50));
+        for (int i = 0; i < 4; i++) {
+            String result = breaker.execute("test", () -> {
+                throw new IllegalStateException("Redis down");
+            }, () -> "local");
+            assertThat(result).isEqualTo("local");
+        }
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        // WHEN
+        sleep(80);
+        breaker.execute("test", () -> "redis", () -> "local");
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        breaker.execute("test", () -> "redis", () -> "local");
+
+        // THEN
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.execute("test", () -> "redis", () -> "local")).isEqualTo("redis");
+    }
+
+    /**
+     * Test: 비동기 호출 성공 시 결과 반환
+     *
+     * Given: 닫힌 차단기
+     * When: executeAsync로 나중에 완료되는 호출 실행
+     * Then: 호출 결과로 완료되고 fallback은 사용되지 않음
+     */
+    @Test
+    void testExecuteAsync_Success() {
+        // GIVEN
+        RedisCircuitBreaker breaker = breaker(Duration.ofSeconds(30));
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        // WHEN
+        CompletableFuture<String> result = breaker.executeAsync("test", () -> pending, () -> "local");
+        assertThat(result).isNotDone();
+        pending.complete("redis");
+
+        // THEN
+        assertThat(result.join()).isEqualTo("redis");
+        assertThat(breaker.getFallbackCount()).isZero();
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    /**
+     * Test: 비동기 호출 실패 시 fallback 반환
+     *
+     * Given: 닫힌 차단기
+     * When: 예외로 완료되는 호출, 호출 시점에 예외를 던지는 호출 실행
+     * Then: 두 경우 모두 예외 없이 fallback 값으로 완료
+     */
+    @Test
+    void testExecuteAsync_Failure_ServesFallback() {
+        // GIVEN
+        RedisCircuitBreaker breaker = breaker(Duration.ofSeconds(30));
+
+        // WHEN
+        CompletableFuture<String> failed = breaker.executeAsync("test",
+            () -> CompletableFuture.failedFuture(new IllegalStateException("Redis down")), () -> "local");
+        CompletableFuture<String> thrown = breaker.executeAsync("test", () -> {
+            throw new IllegalStateException("Redis down");
+        }, () -> "local");
+
+        // THEN
+        assertThat(failed.join()).isEqualTo("local");
+        assertThat(thrown.join()).isEqualTo("local");
+        assertThat(breaker.getFallbackCount()).isEqualTo(2L);
+    }
+
+    /**
+     * Test: 열린 차단기는 비동기 호출을 실행하지 않음
+     *
+     * Given: 오류로 열린 차단기
+     * When: executeAsync 호출
+     * Then: Redis 호출 없이 즉시 fallback 값으로 완료
+     */
+    @Test
+    void testExecuteAsync_Open_ServesFallback() {
+        // GIVEN
+        RedisCircuitBreaker breaker = breaker(Duration.ofSeconds(30));
+        for (int i = 0; i < 4; i++) {
+            breaker.executeAsync("test",
+                () -> CompletableFuture.<String>failedFuture(new IllegalStateException("Redis down")), () -> "local");
+        }
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        AtomicInteger redisCalls = new AtomicInteger();
+
+        // WHEN
+        CompletableFuture<String> result = breaker.executeAsync("test", () -> {
+            redisCalls.incrementAndGet();
+            return CompletableFuture.completedFuture("redis");
+        }, () -> "local");
+
+        // THEN
+        assertThat(result).isCompletedWithValue("local");
+        assertThat(redisCalls.get()).isZero();
+    }
+
+    private RedisCircuitBreaker breaker(Duration openDuration) {
+        return new RedisCircuitBreaker(meterRegistry, true, Duration.ofMillis(5), 10, 4, 0.5, openDuration, 2);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.chat.redis;
+
+import com.example.chat.config.RedisKeySchema;
+import com.example.chat.config.RedisKeySchema.Version;
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * RedisKeySchema Test
+ *
+ * Versioned key schema: v1 legacy keys, v2 hash-tagged keys (one cluster slot per room/message),
+ * and the dual-write / dual-read migration modes
+ */
+class RedisKeySchemaTest {
+
+    /**
+     * Test: v2 방 키는 모두 같은 슬롯
+     *
+     * Given: v2 스키마
+     * When: 한 방의 recent/stream/presence/online/typing 키 생성
+     * Then: 모든 키가 같은 클러스터 슬롯에 매핑됨 (v1 키는 보장되지 않음)
+     */
+    @Test
+    void testV2RoomKeys_ShareOneSlot() {
+        // GIVEN
+        RedisKeySchema schema = new RedisKeySchema("v2", "");
+        String roomId = "room-42";
+
+        // WHEN
+        List<String> keys = List.of(
+            schema.recentMessages(Version.V2, roomId),
+            schema.recentStream(Version.V2, roomId),
+            schema.presence(Version.V2, roomId),
+            schema.online(Version.V2, roomId, 100),
+            schema.online(Version.V2, roomId, 99),
+            schema.typing(Version.V2, roomId));
+
+        // THEN
+        assertThat(keys).allMatch(key -> SlotHash.getSlot(key) == SlotHash.getSlot(roomId));
+        assertThat(schema.presence(Version.V1, roomId)).isEqualTo("room:room-42:presence");
+        assertThat(schema.presence(Version.V2, roomId)).isEqualTo("room:{room-42}:presence");
+    }
+
+    /**
+     * Test: v2 메시지 리액션 키는 같은 슬롯
+     */
+    @Test
+    void testV2ReactionKeys_ShareOneSlot() {
+        RedisKeySchema schema = new RedisKeySchema("v2", "");
+        UUID messageId = UUID.randomUUID();
+
+        int slot = SlotHash.getSlot(schema.reactionCounts(Version.V2, messageId));
+        assertThat(SlotHash.getSlot(schema.reactionUsers(Version.V2, messageId, "HEART"))).isEqualTo(slot);
+        assertThat(SlotHash.getSlot(schema.reactionUsersPrefix(Version.V2, messageId) + "FIRE")).isEqualTo(slot);
+    }
+
+    /**
+     * Test: 마이그레이션 모드별 읽기/쓰기 버전
+     */
+    @Test
+    void testMigrationModes_ReadAndWriteVersions() {
+        RedisKeySchema dualWrite = new RedisKeySchema("dual-write", "");
+        assertThat(dualWrite.writeVersions()).containsExactly(Version.V1, Version.V2);
+        assertThat(dualWrite.readVersions()).containsExactly(Version.V1);
+        assertThat(dualWrite.seeding()).isTrue();
+
+        RedisKeySchema dualRead = new RedisKeySchema("dual-read", "");
+        assertThat(dualRead.writeVersions()).containsExactly(Version.V2, Version.V1);
+        assertThat(dualRead.readVersions()).containsExactly(Version.V2, Version.V1);
+        assertThat(dualRead.primary()).isEqualTo(Version.V2);
+        assertThat(dualRead.seeding()).isTrue();
+        assertThat(new RedisKeySchema("v1", "").seeding()).isFalse();
+        assertThat(new RedisKeySchema("v2", "").seeding()).isFalse();
+    }
+
+    /**
+     * Test: 클러스터에서는 v2 필수
+     */
+    @Test
+    void testCluster_RequiresV2() {
+        assertThatThrownBy(() -> new RedisKeySchema("dual-read", "localhost:7000"))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
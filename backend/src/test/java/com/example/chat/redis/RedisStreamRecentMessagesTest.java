@@ -0,0 +1,93 @@
+package com.example.chat.redis;
+
+import com.example.chat.dto.ChatMessage;
+import com.example.chat.dto.RecentMessagePage;
+import com.example.chat.service.RedisCacheService;
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Redis Streams recent-message backend Test
+ *
+ * chat.redis.recent-messages.backend=stream:
+ * - XADD MAXLEN ~ on write
+ * - XREVRANGE paging by entry ID on read
+ *
+ * Redis Key Schema:
+ * - room:{roomId}:stream - Recent messages (Stream)
+ */
+@SpringBootTest(properties = "chat.redis.recent-messages.backend=stream")
+@Testcontainers
+class RedisStreamRecentMessagesTest {
+
+    @Container
+    static RedisContainer redis = new RedisContainer(
+        DockerImageName.parse("redis:7-alpine")
+    ).withExposedPorts(6379);
+
+    @Autowired
+    private RedisCacheService redisCacheService;
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", redis::getFirstMappedPort);
+    }
+
+    /**
+     * Test: 스트림 페이지 단위 스크롤백
+     *
+     * Given: 120개 메시지가 캐싱된 방
+     * When: 50개씩 이전 페이지의 oldestEntryId로 이어서 조회
+     * Then: 최신순으로 중복/누락 없이 50, 50, 20개가 반환됨
+     */
+    @Test
+    void testGetRecentMessagesBefore_PagesThroughStream() {
+        // GIVEN
+        String roomId = "room-stream-1";
+        List<UUID> sent = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            ChatMessage message = ChatMessage.builder()
+                .messageId(UUID.randomUUID())
+                .roomId(roomId)
+                .userId("user-" + (i % 5))
+                .username("streamuser")
+                .content("Message " + i)
+                .timestamp(LocalDateTime.now())
+                .type("TEXT")
+                .build();
+            redisCacheService.cacheRecentMessage(roomId, message);
+            sent.add(0, message.getMessageId());
+        }
+
+        // WHEN
+        List<UUID> received = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            RecentMessagePage page = redisCacheService.getRecentMessagesBefore(roomId, cursor, 50);
+            page.messages().forEach(message -> received.add(message.getMessageId()));
+            pageSizes.add(page.messages().size());
+            cursor = page.messages().isEmpty() ? null : page.oldestEntryId();
+        } while (cursor != null);
+
+        // THEN
+        assertThat(pageSizes).containsExactly(50, 50, 20, 0);
+        assertThat(received).isEqualTo(sent);
+        assertThat(redisCacheService.getRecentMessages(roomId)).hasSize(50);
+    }
+}
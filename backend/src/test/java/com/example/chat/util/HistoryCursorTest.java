@@ -0,0 +1,86 @@
+package com.example.chat.util;
+
+import com.example.chat.dto.HistoryCursor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * History Cursor Test
+ *
+ * Opaque keyset cursor of message history: encode/decode round trip, the recent
+ * flag, and cursors issued by older versions (three-part with a stream entry ID)
+ */
+class HistoryCursorTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 1, 15, 10, 30, 0, 123_456_000);
+    private static final UUID MESSAGE_ID = UUID.fromString("8f0e4c2a-1b3d-7e5f-9a8b-7c6d5e4f3a2b");
+
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        HistoryCursor cursor = new HistoryCursor(TIMESTAMP, MESSAGE_ID);
+
+        HistoryCursor decoded = HistoryCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.isRecent()).isFalse();
+    }
+
+    @Test
+    void testEncodeDecode_RecentFlag() {
+        HistoryCursor cursor = new HistoryCursor(TIMESTAMP, MESSAGE_ID, true);
+
+        HistoryCursor decoded = HistoryCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.isRecent()).isTrue();
+    }
+
+    @Test
+    void testEncode_IsUrlSafeWithoutPadding() {
+        String encoded = new HistoryCursor(TIMESTAMP, MESSAGE_ID, true).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void testDecode_LegacyStreamEntryCursorIsRecent() {
+        // Three-part cursor of older versions: "{timestamp}|{messageId}|{stream entry ID}"
+        String legacy = encodeRaw(TIMESTAMP + "|" + MESSAGE_ID + "|1736937000123-0");
+
+        HistoryCursor decoded = HistoryCursor.decode(legacy);
+
+        assertThat(decoded.getTimestamp()).isEqualTo(TIMESTAMP);
+        assertThat(decoded.getMessageId()).isEqualTo(MESSAGE_ID);
+        assertThat(decoded.isRecent()).isTrue();
+    }
+
+    @Test
+    void testDecode_TwoPartCursorIsNotRecent() {
+        HistoryCursor decoded = HistoryCursor.decode(encodeRaw(TIMESTAMP + "|" + MESSAGE_ID));
+
+        assertThat(decoded).isEqualTo(new HistoryCursor(TIMESTAMP, MESSAGE_ID, false));
+    }
+
+    @Test
+    void testDecode_MalformedCursorIsRejected() {
+        assertThatThrownBy(() -> HistoryCursor.decode("not base64!"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HistoryCursor.decode(encodeRaw("no-separator")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HistoryCursor.decode(encodeRaw("2025-01-15T10:30|not-a-uuid")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HistoryCursor.decode(encodeRaw("yesterday|" + MESSAGE_ID)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
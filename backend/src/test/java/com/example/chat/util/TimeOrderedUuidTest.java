@@ -0,0 +1,71 @@
+package com.example.chat.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Time-Ordered UUID Test
+ *
+ * Tests TimeOrderedUuid for:
+ * - RFC 9562 version/variant bits
+ * - Embedded timestamp
+ * - Strict monotonic ordering within a JVM
+ * - Uniqueness under concurrent generation
+ */
+class TimeOrderedUuidTest {
+
+    @Test
+    void testNext_HasVersion7AndRfcVariant() {
+        UUID uuid = TimeOrderedUuid.next();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void testTimestampMillis_MatchesGenerationTime() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeOrderedUuid.next();
+        long after = System.currentTimeMillis();
+
+        // Counter overflow may carry a few milliseconds ahead of the clock
+        assertThat(TimeOrderedUuid.timestampMillis(uuid)).isBetween(before, after + 100);
+    }
+
+    @Test
+    void testTimestampMillis_RejectsRandomUuid() {
+        assertThatThrownBy(() -> TimeOrderedUuid.timestampMillis(UUID.randomUUID()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testNext_IsStrictlyIncreasing() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(TimeOrderedUuid.next());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+        }
+    }
+
+    @Test
+    void testNext_UniqueAcrossThreads() {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 200_000).parallel()
+            .forEach(i -> ids.add(TimeOrderedUuid.next()));
+
+        assertThat(ids).hasSize(200_000);
+    }
+}
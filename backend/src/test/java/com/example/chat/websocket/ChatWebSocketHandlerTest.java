@@ -2,6 +2,7 @@ package com.example.chat.websocket;
 
 import com.example.chat.dto.ChatEvent;
 import com.example.chat.dto.ChatMessage;
+import com.example.chat.service.AsyncRedisCacheService;
 import com.example.chat.service.KafkaProducerService;
 import com.example.chat.service.RedisCacheService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -26,6 +27,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -47,7 +49,7 @@ import static org.mockito.Mockito.*;
  * Dependencies:
  * - Spring WebSocket Test
  * - SockJS client
- * - MockBean for KafkaProducerService, RedisCacheService
+ * - MockBean for KafkaProducerService, RedisCacheService, AsyncRedisCacheService
  *
  * WebSocket Endpoints:
  * - /ws (SockJS endpoint)
@@ -69,6 +71,9 @@ class ChatWebSocketHandlerTest {
     @MockBean
     private RedisCacheService redisCacheService;
 
+    @MockBean
+    private AsyncRedisCacheService asyncRedisCacheService;
+
     private WebSocketStompClient stompClient;
     private String wsUrl;
 
@@ -76,6 +81,11 @@ class ChatWebSocketHandlerTest {
     void setUp() {
         wsUrl = "ws://localhost:" + port + "/ws";
 
+        when(asyncRedisCacheService.addUserToRoomAndCount(anyString(), anyString()))
+            .thenReturn(CompletableFuture.completedFuture(1L));
+        when(asyncRedisCacheService.removeUserFromRoomAndCount(anyString(), anyString()))
+            .thenReturn(CompletableFuture.completedFuture(0L));
+
         // SockJS + STOMP 클라이언트 설정
         var sockJsClient = new SockJsClient(
             List.of(new WebSocketTransport(new StandardWebSocketClient()))
@@ -136,8 +146,8 @@ class ChatWebSocketHandlerTest {
         assertThat(received.getEventType()).isEqualTo("user_joined");
         assertThat(received.getUserId()).isEqualTo(userId);
 
-        verify(redisCacheService, timeout(3000).atLeastOnce())
-            .addUserToRoom(eq(roomId), eq(userId));
+        verify(asyncRedisCacheService, timeout(3000).atLeastOnce())
+            .addUserToRoomAndCount(eq(roomId), eq(userId));
 
         session.disconnect();
     }
@@ -247,8 +257,8 @@ class ChatWebSocketHandlerTest {
         assertThat(received).isNotNull();
         assertThat(received.getEventType()).isEqualTo("user_left");
 
-        verify(redisCacheService, timeout(3000).atLeastOnce())
-            .removeUserFromRoom(eq(roomId), eq(userId));
+        verify(asyncRedisCacheService, timeout(3000).atLeastOnce())
+            .removeUserFromRoomAndCount(eq(roomId), eq(userId));
 
         session.disconnect();
     }